@@ -1,49 +1,75 @@
-/**
- * 
- */
-package com.schoste.ddd.domain.v1.annotations;
-
-import static java.lang.annotation.ElementType.METHOD;
-import static java.lang.annotation.RetentionPolicy.RUNTIME;
-
-import java.lang.annotation.Retention;
-import java.lang.annotation.Target;
-
-/**
- * Defines the method which should be used to get the value which should be set
- * during model conversion. The annotated method (setter method) must accept only
- * one parameter. This one parameter will be obtained by the referred method (getter method).
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- *
- */
-@Retention(RUNTIME)
-@Target(METHOD)
-public @interface AutoSet
-{
-	/**
-	 * Gets or sets the class which defines the method to use to get the value.
-	 * If this value is null, the converter will try to find a class named {@see AutoConvert#className()}.
-	 * If neither {@see AutoConvert#clazz()} nor {@see AutoConvert#className()} are defined,
-	 * the converter will search the conversion methods in the instance of the source model.
-	 * 
-	 * @return a class
-	 */
-	Class<?> clazz() default Object.class;
-	
-	/**
-	 * Gets or sets the name of the class which defines the method to use to get the value.
-	 * If {@see AutoConvert#clazz()} is not null, this property is ignored.
-	 * 
-	 * @return a full class name (with package name)
-	 */
-	String className() default "";
-
-	/**
-	 * Gets or sets the name of the method to use to get the value (getter method).
-	 * If this property is not defined, the converter will try to guess the conversion method itself.
-	 * 
-	 * @return a method name
-	 */
-	String methodName() default "";
-}
+/**
+ * 
+ */
+package com.schoste.ddd.domain.v1.annotations;
+
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Defines the method which should be used to get the value which should be set
+ * during model conversion. The annotated method (setter method) must accept only
+ * one parameter. This one parameter will be obtained by the referred method (getter method).
+ * The value returned by the getter method is passed to the setter method as it is, unless
+ * {@see AutoSet#targetClass()} or {@see AutoSet#nested()} request to convert it into a new instance.
+ * Collections are converted element by element. Values of primitive, boxed and JDK classes,
+ * enums and arrays are never converted.
+ * Parameters of constructors can be annotated too, so the converter can create immutable objects.
+ * The parameters of the canonical constructor of records don't need to be annotated.
+ * Unless the classes are compiled with parameter names, annotated constructor parameters must define {@see AutoSet#methodName()}.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+@Retention(RUNTIME)
+@Target({ METHOD, PARAMETER })
+public @interface AutoSet
+{
+	/**
+	 * Gets or sets the class which defines the method to use to get the value.
+	 * If this value is null, the converter will try to find a class named {@see AutoConvert#className()}.
+	 * If neither {@see AutoConvert#clazz()} nor {@see AutoConvert#className()} are defined,
+	 * the converter will search the conversion methods in the instance of the source model.
+	 * 
+	 * @return a class
+	 */
+	Class<?> clazz() default Object.class;
+	
+	/**
+	 * Gets or sets the name of the class which defines the method to use to get the value.
+	 * If {@see AutoConvert#clazz()} is not null, this property is ignored.
+	 * 
+	 * @return a full class name (with package name)
+	 */
+	String className() default "";
+
+	/**
+	 * Gets or sets the name of the method to use to get the value (getter method).
+	 * If this property is not defined, the converter will try to guess the conversion method itself.
+	 * 
+	 * @return a method name
+	 */
+	String methodName() default "";
+
+	/**
+	 * Gets or sets the class of the object to create when the value is converted instead of assigned.
+	 * For collections this is the class of the elements. If this property is defined, values which are
+	 * no instances of the class are converted. If this property is not defined, the class is taken from
+	 * the parameter of the setter method (or the type argument of the collection) if {@see AutoSet#nested()} is set.
+	 * 
+	 * @return a class
+	 */
+	Class<?> targetClass() default Object.class;
+
+	/**
+	 * Gets or sets if the value should always be converted into a new object (or a collection of new objects),
+	 * even if it could be assigned to the parameter of the setter method directly.
+	 * 
+	 * @return true if the value should always be converted
+	 */
+	boolean nested() default false;
+}
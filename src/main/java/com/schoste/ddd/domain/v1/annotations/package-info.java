@@ -1,4 +1,4 @@
-/**
- * Package for annotations defined in the domain layer
- */
+/**
+ * Package for annotations defined in the domain layer
+ */
 package com.schoste.ddd.domain.v1.annotations;
\ No newline at end of file
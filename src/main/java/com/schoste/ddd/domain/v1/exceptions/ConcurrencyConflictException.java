@@ -0,0 +1,55 @@
+package com.schoste.ddd.domain.v1.exceptions;
+
+/**
+ * Indicates that a domain object was changed or deleted by someone else since it was loaded.
+ * Reload the domain object and apply the changes again to resolve the conflict.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class ConcurrencyConflictException extends DomainException
+{
+	private static final long serialVersionUID = -4416927302815937614L;
+
+	private transient Object domainObject;
+	private int expectedVersion;
+	private int persistedVersion;
+
+	/**
+	 * Gets the domain object whose changes were rejected. Data access objects report the data object instead
+	 * (see {@see com.schoste.ddd.domain.v1.services.VersionedDataAccessObject}).
+	 * 
+	 * @return the domain object whose changes were rejected or null if the exception was deserialized
+	 */
+	public Object getDomainObject() { return this.domainObject; }
+
+	/**
+	 * Gets the version the domain object was loaded with
+	 * 
+	 * @return the version the domain object was loaded with
+	 */
+	public int getExpectedVersion() { return this.expectedVersion; }
+
+	/**
+	 * Gets the version of the persisted data object
+	 * 
+	 * @return the version of the persisted data object; zero if it does not exist anymore
+	 */
+	public int getPersistedVersion() { return this.persistedVersion; }
+
+	/**
+	 * Creates a new instance of this exception
+	 * 
+	 * @param domainObject the domain object whose changes were rejected
+	 * @param expectedVersion the version the domain object was loaded with
+	 * @param persistedVersion the version of the persisted data object; zero if it does not exist anymore
+	 */
+	public ConcurrencyConflictException(Object domainObject, int expectedVersion, int persistedVersion)
+	{
+		super(String.format("%s expected version %d but found %d", (domainObject == null) ? "null" : domainObject.getClass().getName(), expectedVersion, persistedVersion));
+
+		this.domainObject = domainObject;
+		this.expectedVersion = expectedVersion;
+		this.persistedVersion = persistedVersion;
+	}
+}
@@ -1,4 +1,4 @@
-/**
- * Package for domain layer exceptions
- */
+/**
+ * Package for domain layer exceptions
+ */
 package com.schoste.ddd.domain.v1.exceptions;
\ No newline at end of file
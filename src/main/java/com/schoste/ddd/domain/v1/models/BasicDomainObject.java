@@ -1,70 +1,84 @@
-package com.schoste.ddd.domain.v1.models;
-
-/**
- * Basic domain object implementation
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- *
- */
-public abstract class BasicDomainObject implements DomainObject
-{
-	protected int id;
-	protected State state;
-
-	/**
-	 * Creates a new instance with a detached state and an Id = 0
-	 */
-	public BasicDomainObject()
-	{
-		this.state = State.Detached;
-		this.id = 0;
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public int getId() { return this.id; }
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void setId(int id) { this.id = id; }
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public State getState() { return this.state; }
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void setState(State state) { this.state = state; }
-	
-	/**
-	 * Returns the id of the instance as hash code
-	 */
-	@Override
-	public int hashCode()
-	{
-		return this.id;
-	}
-	
-	/**
-	 * Compares two instances by comparing the id of them
-	 */
-	@Override
-	public boolean equals(Object obj)
-	{
-		if (this == obj) return true;
-		if (obj == null) return false;
-		if (getClass() != obj.getClass()) return false;
-
-		BasicDomainObject other = (BasicDomainObject) obj;
-		
-		return (this.id == other.id);
-	}
-}
+package com.schoste.ddd.domain.v1.models;
+
+/**
+ * Basic domain object implementation
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public abstract class BasicDomainObject implements DomainObject
+{
+	protected int id;
+	protected int version;
+	protected State state;
+
+	/**
+	 * Creates a new instance with a detached state and an Id = 0
+	 */
+	public BasicDomainObject()
+	{
+		this.state = State.Detached;
+		this.id = 0;
+		this.version = 0;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getId() { return this.id; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setId(int id) { this.id = id; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public State getState() { return this.state; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setState(State state) { this.state = state; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int getVersion() { return this.version; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setVersion(int version) { this.version = version; }
+	
+	/**
+	 * Returns the id of the instance as hash code
+	 */
+	@Override
+	public int hashCode()
+	{
+		return this.id;
+	}
+	
+	/**
+	 * Compares two instances by comparing the id of them
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+
+		BasicDomainObject other = (BasicDomainObject) obj;
+		
+		return (this.id == other.id);
+	}
+}
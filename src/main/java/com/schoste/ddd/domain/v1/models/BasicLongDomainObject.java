@@ -0,0 +1,70 @@
+package com.schoste.ddd.domain.v1.models;
+
+/**
+ * Basic implementation of domain objects with long ids
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public abstract class BasicLongDomainObject extends BasicDomainObject implements LongDomainObject
+{
+	protected long longId;
+
+	/**
+	 * Creates a new instance with a detached state and an Id = 0
+	 */
+	public BasicLongDomainObject()
+	{
+		super();
+
+		this.longId = 0;
+	}
+
+	/**
+	 * Gets the long id limited to the range of int
+	 */
+	@Override
+	public int getId() { return (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, this.longId)); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setId(int id) { this.longId = id; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getLongId() { return this.longId; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setLongId(long id) { this.longId = id; }
+
+	/**
+	 * Returns the hash code of the long id
+	 */
+	@Override
+	public int hashCode()
+	{
+		return Long.hashCode(this.longId);
+	}
+
+	/**
+	 * Compares two instances by comparing the long id of them
+	 */
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (this == obj) return true;
+		if (obj == null) return false;
+		if (getClass() != obj.getClass()) return false;
+
+		BasicLongDomainObject other = (BasicLongDomainObject) obj;
+
+		return (this.longId == other.longId);
+	}
+}
@@ -0,0 +1,28 @@
+package com.schoste.ddd.domain.v1.models;
+
+/**
+ * Interface to domain objects whose ids exceed the range of int.
+ * Repositories use the long id of such domain objects wherever they identify them.
+ * {@see DomainObject#getId()} must still return a value with the same sign as the long id,
+ * so it can tell apart persisted, added and detached domain objects.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+public interface LongDomainObject extends DomainObject
+{
+	/**
+	 * Gets the unique id of the domain object.
+	 * The same rules apply as for {@see DomainObject#getId()}.
+	 * 
+	 * @return the unique id of the domain object.
+	 */
+	public long getLongId();
+
+	/**
+	 * Sets the unique id of the domain object.
+	 * The same rules apply as for {@see DomainObject#setId(int)}.
+	 * 
+	 * @param id the unique id of the domain object.
+	 */
+	public void setLongId(long id);
+}
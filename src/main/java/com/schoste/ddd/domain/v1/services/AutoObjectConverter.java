@@ -1,24 +1,128 @@
-package com.schoste.ddd.domain.v1.services;
-
-import com.schoste.ddd.domain.v1.exceptions.DomainException;
-import com.schoste.ddd.domain.v1.exceptions.InvocationException;
-
-/**
- * Interface to the version 1 automated object converter
- *
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- */
-public interface AutoObjectConverter
-{
-	/**
-	 * Enriches the property of a given object with properties from another object.
-	 * Which properties of the target object are set is defined by methods annotated
-	 * with the {@see com.schoste.ddd.domain.annotations.AutoSet} annotation.
-	 * 
-	 * @param src the object to get the data from
-	 * @param dst the object to write the data to
-	 * @throws InvocationException thrown if invoking getters or setters fails
-	 * @throws DomainException re-throws every exception as domain layer exception
-	 */
-	void convert(Object src, Object dst) throws InvocationException, DomainException;
-}
+package com.schoste.ddd.domain.v1.services;
+
+import java.util.BitSet;
+
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.exceptions.InvocationException;
+
+/**
+ * Interface to the version 1 automated object converter
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+public interface AutoObjectConverter
+{
+	/**
+	 * Enriches the property of a given object with properties from another object.
+	 * Which properties of the target object are set is defined by methods annotated
+	 * with the {@see com.schoste.ddd.domain.v1.annotations.AutoSet} annotation.
+	 * 
+	 * @param src the object to get the data from
+	 * @param dst the object to write the data to
+	 * @throws InvocationException thrown if invoking getters or setters fails
+	 * @throws DomainException re-throws every exception as domain layer exception
+	 */
+	void convert(Object src, Object dst) throws InvocationException, DomainException;
+
+	/**
+	 * Enriches only some properties of a given object with properties from another object.
+	 * The properties are selected by their index in the values returned by
+	 * {@see AutoObjectConverter#getConvertedValues(Object, Class)}.
+	 * The default implementation sets all properties like {@see AutoObjectConverter#convert(Object, Object)}.
+	 * 
+	 * @param src the object to get the data from
+	 * @param dst the object to write the data to
+	 * @param properties the indexes of the properties to set
+	 * @throws InvocationException thrown if invoking getters or setters fails
+	 * @throws DomainException re-throws every exception as domain layer exception
+	 */
+	default void convert(Object src, Object dst, BitSet properties) throws InvocationException, DomainException
+	{
+		this.convert(src, dst);
+	}
+
+	/**
+	 * Creates a new object of the given class from the properties of another object.
+	 * Records are created by their canonical constructor, other classes by their constructor
+	 * whose parameters are all annotated with {@see com.schoste.ddd.domain.v1.annotations.AutoSet}.
+	 * The arguments of such constructors are obtained the same way as the values of setters.
+	 * Classes without such a constructor are created by their parameterless constructor and enriched
+	 * like by {@see AutoObjectConverter#convert(Object, Object)}.
+	 * The default implementation only supports classes with a parameterless constructor.
+	 * 
+	 * @param <D> the type of the object to create
+	 * @param src the object to get the data from
+	 * @param dstClass the class of the object to create
+	 * @return the new object or null if src is null
+	 * @throws InvocationException thrown if invoking getters, setters or constructors fails
+	 * @throws DomainException re-throws every exception as domain layer exception
+	 */
+	default <D> D create(Object src, Class<D> dstClass) throws InvocationException, DomainException
+	{
+		if (src == null) return null;
+		if (dstClass == null) throw new IllegalArgumentException("dstClass");
+
+		D dst;
+
+		try
+		{
+			dst = dstClass.getDeclaredConstructor().newInstance();
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+
+		this.convert(src, dst);
+
+		return dst;
+	}
+
+	/**
+	 * Gets the values which would be read from the given object when it is converted into an instance of the given class.
+	 * Collections, maps and arrays are copied, so the returned values don't change when the object is changed afterwards.
+	 * Two arrays returned by this method can be compared with {@see java.util.Arrays#deepEquals(Object[], Object[])}
+	 * to find out if the conversion would yield different values.
+	 * Repositories need this method for dirty checking.
+	 * 
+	 * @param src the object to get the data from
+	 * @param dstClass the class of the objects to write the data to
+	 * @return the values in the order in which they are converted or null if src is null
+	 * @throws InvocationException thrown if invoking getters fails
+	 * @throws UnsupportedOperationException thrown if the converter doesn't support reading the values on their own
+	 * @throws DomainException re-throws every exception as domain layer exception
+	 */
+	default Object[] getConvertedValues(Object src, Class<?> dstClass) throws InvocationException, DomainException
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Gets the names of the properties which are set when objects of one class are converted into objects of another class.
+	 * The names are in the same order as the values returned by {@see AutoObjectConverter#getConvertedValues(Object, Class)}.
+	 * 
+	 * Repositories need this method for partial updates.
+	 * 
+	 * @param srcClass the class of the objects to get the data from
+	 * @param dstClass the class of the objects to write the data to
+	 * @return the names of the properties of the class to write to
+	 * @throws UnsupportedOperationException thrown if the converter doesn't support getting the names of the properties
+	 * @throws DomainException thrown if the classes cannot be converted (e.g. a getter method does not exist)
+	 */
+	default String[] getConvertedPropertyNames(Class<?> srcClass, Class<?> dstClass) throws DomainException
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Computes and validates everything needed to convert instances of one class into instances
+	 * of another class, so the first call to {@see AutoObjectConverter#convert(Object, Object)}
+	 * doesn't have to. Plans of nested objects are prepared as well.
+	 * The default implementation does nothing, i.e. the classes are validated when they are converted.
+	 * 
+	 * @param srcClass the class of the objects to get the data from
+	 * @param dstClass the class of the objects to write the data to
+	 * @throws DomainException thrown if the classes cannot be converted (e.g. a getter method does not exist)
+	 */
+	default void prepare(Class<?> srcClass, Class<?> dstClass) throws DomainException { }
+}
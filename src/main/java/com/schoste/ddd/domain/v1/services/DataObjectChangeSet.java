@@ -0,0 +1,57 @@
+package com.schoste.ddd.domain.v1.services;
+
+import java.util.Collections;
+import java.util.Set;
+
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+
+/**
+ * Describes which properties of a persisted data object were changed.
+ * Only the changed properties and the id of the data object are set.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <DO> the data object class
+ */
+public class DataObjectChangeSet<DO extends GenericDataObject>
+{
+	private final DO dataObject;
+	private final Set<String> properties;
+
+	/**
+	 * Creates a new change set
+	 * 
+	 * @param dataObject the data object which holds the id and the new values of the changed properties
+	 * @param properties the names of the changed properties
+	 */
+	public DataObjectChangeSet(DO dataObject, Set<String> properties)
+	{
+		if (dataObject == null) throw new IllegalArgumentException("dataObject");
+		if (properties == null) throw new IllegalArgumentException("properties");
+
+		this.dataObject = dataObject;
+		this.properties = Collections.unmodifiableSet(properties);
+	}
+
+	/**
+	 * Gets the id of the changed data object
+	 * 
+	 * @return the id of the changed data object
+	 */
+	public long getId() { return (this.dataObject instanceof LongDataObject) ? ((LongDataObject) this.dataObject).getLongId() : this.dataObject.getId(); }
+
+	/**
+	 * Gets the data object which holds the new values of the changed properties.
+	 * All other properties are not set.
+	 * 
+	 * @return the data object holding the changed values
+	 */
+	public DO getDataObject() { return this.dataObject; }
+
+	/**
+	 * Gets the names of the changed properties
+	 * 
+	 * @return the names of the changed properties
+	 */
+	public Set<String> getProperties() { return this.properties; }
+}
@@ -0,0 +1,26 @@
+package com.schoste.ddd.domain.v1.services;
+
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Interface to data access objects which store data objects with long ids (see {@see LongDataObject}).
+ * Repositories read data objects through {@see LongDataAccessObject#get(long)} if the DAO implements
+ * this interface. Other DAOs can only be used with ids in the range of int.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <DO> the data object class
+ */
+public interface LongDataAccessObject<DO extends GenericDataObject> extends GenericDataAccessObject<DO>
+{
+	/**
+	 * Gets the data object with the given id
+	 * 
+	 * @param id the id of the data object
+	 * @return the data object or null if it does not exist
+	 * @throws DALException thrown if the data object cannot be read
+	 */
+	DO get(long id) throws DALException;
+}
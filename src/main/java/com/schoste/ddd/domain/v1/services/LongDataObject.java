@@ -0,0 +1,24 @@
+package com.schoste.ddd.domain.v1.services;
+
+/**
+ * Interface to data objects whose ids exceed the range of int.
+ * Repositories use the long id of such data objects instead of {@see com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject#getId()}.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+public interface LongDataObject
+{
+	/**
+	 * Gets the id of the data object
+	 * 
+	 * @return the id of the data object
+	 */
+	long getLongId();
+
+	/**
+	 * Sets the id of the data object
+	 * 
+	 * @param id the id of the data object
+	 */
+	void setLongId(long id);
+}
@@ -0,0 +1,27 @@
+package com.schoste.ddd.domain.v1.services;
+
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Interface to data access objects which can update single properties of persisted data objects.
+ * Units of Work use it for domain objects whose changed properties are known (see
+ * {@see com.schoste.ddd.domain.v1.services.standard.GenericRepositoryImpl#setDirtyChecking(boolean)}).
+ * All other domain objects are saved as a whole.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <DO> the data object class
+ */
+public interface PartialUpdateDataAccessObject<DO extends GenericDataObject> extends GenericDataAccessObject<DO>
+{
+	/**
+	 * Writes the changed properties of persisted data objects.
+	 * The values of all properties which are not part of a change set must be kept.
+	 * 
+	 * @param changeSets the changes to write
+	 * @throws DALException thrown if a data object does not exist or cannot be written
+	 */
+	void update(DataObjectChangeSet<?>[] changeSets) throws DALException;
+}
@@ -0,0 +1,45 @@
+package com.schoste.ddd.domain.v1.services;
+
+import java.util.Collection;
+
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.models.DomainObject;
+
+/**
+ * Interface to immutable point-in-time views of repositories (see {@see GenericRepository#snapshot()}).
+ * Every call creates new detached domain objects from the persisted state at the time the
+ * snapshot was taken. Changing these domain objects doesn't change the snapshot or the repository;
+ * don't add them to repositories.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <T> the domain object class
+ */
+public interface RepositorySnapshot<T extends DomainObject>
+{
+	/**
+	 * Gets the number of domain objects in the snapshot
+	 * 
+	 * @return the number of domain objects
+	 */
+	public int size();
+
+	/**
+	 * Gets the domain object with a given id
+	 * 
+	 * @param id the id of the domain object
+	 * @return a new detached domain object or null if the snapshot doesn't contain it
+	 * 
+	 * @throws DomainException re-throws every exception as {@see DomainException}
+	 */
+	public T get(long id) throws DomainException;
+
+	/**
+	 * Gets all domain objects of the snapshot
+	 * 
+	 * @return new detached domain objects
+	 * 
+	 * @throws DomainException re-throws every exception as {@see DomainException}
+	 */
+	public Collection<T> getAll() throws DomainException;
+}
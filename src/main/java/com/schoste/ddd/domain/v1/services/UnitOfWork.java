@@ -1,46 +1,119 @@
-package com.schoste.ddd.domain.v1.services;
-
-import com.schoste.ddd.domain.v1.exceptions.DomainException;
-import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
-
-/**
- * Interface to Units of Work (UOWs) which commit changes
- * of several repositories to their underlying data sources.
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- */
-public interface UnitOfWork extends RepositoryChangeListener
-{
-	/**
-	 * Persists all changes to the underlying data source
-	 * 
-	 * @throws IllegalStateException thrown if an object in a repository does not implement the DomainObject interface
-	 * 
-	 * @throws DALException re-throws exceptions from the data access layer
-	 * @throws DomainException re-throws all exceptions as {@see DomainException}
-	 */
-	public void commit() throws DALException, DomainException;
-	
-	/**
-	 * Reverts all changes of the repositories
-	 * 
-	 * @throws DomainException re-throws all exceptions as {@see DomainException}
-	 */
-	public void rollback() throws DomainException;
-
-	/**
-	 * Adds a listener which will be notified after {@link UnitOfWork#commit()} and {@link UnitOfWork#rollback()} have executed.
-	 * 
-	 * @param listener the listener to add
-	 * @exception IllegalArgumentException thrown if listener is null
-	 */
-	public void addListener(UnitOfWorkListener listener) throws IllegalArgumentException;
-
-	/**
-	 * Removes a listener which will be notified after {@link UnitOfWork#commit()} and {@link UnitOfWork#rollback()} have executed.
-	 * 
-	 * @param listener the listener to remove
-	 * @exception IllegalArgumentException thrown if listener is null
-	 */
-	public void removeListener(UnitOfWorkListener listener) throws IllegalArgumentException;
-}
+package com.schoste.ddd.domain.v1.services;
+
+import java.util.concurrent.CompletableFuture;
+
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+
+/**
+ * Interface to Units of Work (UOWs) which commit changes
+ * of several repositories to their underlying data sources.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+public interface UnitOfWork extends RepositoryChangeListener
+{
+	/**
+	 * Persists all changes to the underlying data source
+	 * 
+	 * @throws IllegalStateException thrown if an object in a repository does not implement the DomainObject interface
+	 * 
+	 * @throws DALException re-throws exceptions from the data access layer
+	 * @throws ConcurrencyConflictException thrown if a versioned domain object was changed by someone else since it was loaded
+	 * @throws DomainException re-throws all exceptions as {@see DomainException}
+	 */
+	public void commit() throws DALException, DomainException;
+
+	/**
+	 * Persists all changes to the underlying data source without waiting for the data source.
+	 * The changes which were made until the call are committed; changes which are made while
+	 * the commit is in progress are committed by the next commit. Commits of the same UoW are
+	 * executed one after another. If the commit fails, its changes remain in the UoW.
+	 * {@see UnitOfWork#rollback()}, {@see UnitOfWork#rollbackToSavepoint(String)} and closing the UoW
+	 * wait until the commits which were started before are completed, so they only revert the changes
+	 * which were not committed.
+	 * The default implementation commits on the calling thread and returns a completed future.
+	 * 
+	 * @return the future which completes when the changes were persisted or exceptionally with the
+	 * exception {@see UnitOfWork#commit()} would have thrown
+	 * @throws DomainException thrown if the changes cannot be collected
+	 */
+	public default CompletableFuture<Void> commitAsync() throws DomainException
+	{
+		try
+		{
+			this.commit();
+
+			return CompletableFuture.completedFuture(null);
+		}
+		catch (DALException | DomainException e)
+		{
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+	
+	/**
+	 * Reverts all changes of the repositories
+	 * 
+	 * @throws DomainException re-throws all exceptions as {@see DomainException}
+	 */
+	public void rollback() throws DomainException;
+
+	/**
+	 * Names the current state of the changes, so the changes made afterwards can be reverted
+	 * by {@see UnitOfWork#rollbackToSavepoint(String)}. An existing savepoint of the same name is replaced.
+	 * Savepoints are released when the changes made before them are committed.
+	 * 
+	 * @param name the name of the savepoint
+	 * @throws IllegalArgumentException thrown if name is null
+	 * @throws UnsupportedOperationException thrown if the UoW doesn't support savepoints
+	 * @throws DomainException re-throws all exceptions as {@see DomainException}
+	 */
+	public default void setSavepoint(String name) throws IllegalArgumentException, DomainException
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Reverts the changes which were made after a savepoint was set.
+	 * The savepoint is kept; savepoints which were set after it are released.
+	 * 
+	 * @param name the name of the savepoint
+	 * @throws IllegalArgumentException thrown if there is no savepoint of the given name
+	 * @throws UnsupportedOperationException thrown if the UoW doesn't support savepoints
+	 * @throws DomainException re-throws all exceptions as {@see DomainException}
+	 */
+	public default void rollbackToSavepoint(String name) throws IllegalArgumentException, DomainException
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Removes a savepoint without reverting any changes
+	 * 
+	 * @param name the name of the savepoint
+	 * @throws IllegalArgumentException thrown if there is no savepoint of the given name
+	 * @throws UnsupportedOperationException thrown if the UoW doesn't support savepoints
+	 */
+	public default void releaseSavepoint(String name) throws IllegalArgumentException
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	/**
+	 * Adds a listener which will be notified after {@link UnitOfWork#commit()} and {@link UnitOfWork#rollback()} have executed.
+	 * 
+	 * @param listener the listener to add
+	 * @exception IllegalArgumentException thrown if listener is null
+	 */
+	public void addListener(UnitOfWorkListener listener) throws IllegalArgumentException;
+
+	/**
+	 * Removes a listener which will be notified after {@link UnitOfWork#commit()} and {@link UnitOfWork#rollback()} have executed.
+	 * 
+	 * @param listener the listener to remove
+	 * @exception IllegalArgumentException thrown if listener is null
+	 */
+	public void removeListener(UnitOfWorkListener listener) throws IllegalArgumentException;
+}
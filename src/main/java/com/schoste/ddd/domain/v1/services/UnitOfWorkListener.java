@@ -1,52 +1,80 @@
-package com.schoste.ddd.domain.v1.services;
-
-import java.util.Collection;
-
-/**
- * Interface for listeners of the {@link UnitOfWork}
- * These listeners will be called after actions like {@link UnitOfWork#commit()} and {@link UnitOfWork#rollback()} are called.
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- *
- */
-public interface UnitOfWorkListener
-{
-	/**
-	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#rollback()} was executed containing
-	 * all the objects which were rolled back.
-	 * 
-	 * @param objs the objects which were rolled back
-	 */
-	void afterRollback(Collection<Object> objs);
-
-	/**
-	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#commit()} was executed containing
-	 * all the new objects which were persisted.
-	 * 
-	 * @param objs the objects which were persisted
-	 */
-	void afterPersistNew(Collection<Object> objs);
-
-	/**
-	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#commit()} was executed containing
-	 * all the existing objects which were persisted.
-	 * 
-	 * @param objs the objects which were persisted
-	 */
-	void afterPersistExisting(Collection<Object> objs);
-
-	/**
-	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#commit()} was executed containing
-	 * all the new objects which were deleted.
-	 * 
-	 * @param objs the objects which were deleted
-	 */
-	void afterDelete(Collection<Object> objs);
-
-	/**
-	 * Called by the {@link UnitOfWork} after it was notified about the reload of a repository
-	 *
-	 * @param objs all the objects that were put into detached state
-	 */
-	void afterReload(Collection<Object> objs);
-}
+package com.schoste.ddd.domain.v1.services;
+
+import java.util.Collection;
+
+/**
+ * Interface for listeners of the {@link UnitOfWork}
+ * These listeners will be called after actions like {@link UnitOfWork#commit()} and {@link UnitOfWork#rollback()} are called.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public interface UnitOfWorkListener
+{
+	/**
+	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#rollback()} was executed containing
+	 * all the objects which were rolled back.
+	 * 
+	 * @param objs the objects which were rolled back
+	 */
+	void afterRollback(Collection<Object> objs);
+
+	/**
+	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#commit()} was executed containing
+	 * all the new objects which were persisted.
+	 * 
+	 * @param objs the objects which were persisted
+	 */
+	void afterPersistNew(Collection<Object> objs);
+
+	/**
+	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#commit()} was executed containing
+	 * all the existing objects which were persisted.
+	 * 
+	 * @param objs the objects which were persisted
+	 */
+	void afterPersistExisting(Collection<Object> objs);
+
+	/**
+	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#commit()} was executed containing
+	 * all the new objects which were deleted.
+	 * 
+	 * @param objs the objects which were deleted
+	 */
+	void afterDelete(Collection<Object> objs);
+
+	/**
+	 * Called by the {@link UnitOfWork} after it was notified about the reload of a repository
+	 *
+	 * @param objs all the objects that were put into detached state
+	 */
+	void afterReload(Collection<Object> objs);
+
+	/**
+	 * Called by the {@link UnitOfWork} during {@link UnitOfWork#commit()} after a chunk of the changes
+	 * of a repository was written to report the progress of the commit.
+	 *
+	 * @param repository the repository which is committed
+	 * @param committedObjects the number of objects of the repository which were committed so far
+	 * @param totalObjects the number of objects of the repository which are committed
+	 */
+	default void afterCommitChunk(GenericRepository<?,?> repository, int committedObjects, int totalObjects) { }
+
+	/**
+	 * Called by the {@link UnitOfWork} after {@link UnitOfWork#commit()} or {@link UnitOfWork#commitAsync()}
+	 * completed. Called by the thread which executed the commit.
+	 *
+	 * @param exception the exception the commit failed with or null if it succeeded
+	 */
+	default void afterCommit(Exception exception) { }
+
+	/**
+	 * Called by the {@link UnitOfWork} before it commits the pending changes on its own because they
+	 * exceeded a limit. The commit is executed like {@link UnitOfWork#commitAsync()}, so
+	 * {@link UnitOfWorkListener#afterCommit(Exception)} is called when it completed.
+	 *
+	 * @param pendingObjects the number of pending changes
+	 * @param pendingBytes the estimated size of the pending changes in bytes
+	 */
+	default void beforeAutoFlush(int pendingObjects, long pendingBytes) { }
+}
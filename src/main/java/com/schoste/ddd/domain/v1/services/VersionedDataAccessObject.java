@@ -0,0 +1,55 @@
+package com.schoste.ddd.domain.v1.services;
+
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Interface to data access objects which compare the versions of persisted data objects (see {@see VersionedDataObject})
+ * and write them in one step. Units of Work write changed and removed domain objects through this interface if the DAO
+ * implements it, so changes made by someone else in the meantime (e.g. by another process) are never overwritten.
+ * Other DAOs are only checked against the data objects the domain objects were loaded from.
+ * The versions of all data objects passed at once are compared before any of them is written, so nothing is written
+ * if a version doesn't match. A {@see ConcurrencyConflictException} thrown by the DAO references the conflicting data object.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <DO> the data object class
+ */
+public interface VersionedDataAccessObject<DO extends GenericDataObject> extends GenericDataAccessObject<DO>
+{
+	/**
+	 * Saves persisted data objects whose versions were incremented if the persisted version
+	 * of every data object is still the one before its version.
+	 *
+	 * @param dataObjects the data objects to save
+	 * @throws ConcurrencyConflictException thrown if a data object does not exist or its persisted version doesn't match
+	 * @throws DALException thrown if the data objects cannot be written
+	 */
+	void saveIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException;
+
+	/**
+	 * Deletes persisted data objects if the persisted version of every data object is still its version
+	 *
+	 * @param dataObjects the data objects to delete
+	 * @throws ConcurrencyConflictException thrown if the persisted version of a data object doesn't match
+	 * @throws DALException thrown if the data objects cannot be deleted
+	 */
+	void deleteIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException;
+
+	/**
+	 * Writes the changed properties of persisted data objects if the persisted version of every data object is
+	 * still the one before the version of its change set. Must be implemented if the DAO implements
+	 * {@see PartialUpdateDataAccessObject} as well.
+	 *
+	 * @param changeSets the changes to write
+	 * @throws ConcurrencyConflictException thrown if a data object does not exist or its persisted version doesn't match
+	 * @throws DALException thrown if the data objects cannot be written
+	 * @throws UnsupportedOperationException thrown if the DAO doesn't support partial updates
+	 */
+	default void updateIfUnchanged(DataObjectChangeSet<?>[] changeSets) throws ConcurrencyConflictException, DALException
+	{
+		throw new UnsupportedOperationException();
+	}
+}
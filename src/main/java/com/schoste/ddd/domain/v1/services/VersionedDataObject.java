@@ -0,0 +1,26 @@
+package com.schoste.ddd.domain.v1.services;
+
+/**
+ * Interface to data objects which carry a version number.
+ * The version is incremented by the Unit of Work each time the data object is saved.
+ * Units of Work reject changes of domain objects whose version doesn't match the version
+ * of the persisted data object anymore (see {@see com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException}).
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+public interface VersionedDataObject
+{
+	/**
+	 * Gets the version of the data object
+	 * 
+	 * @return the version of the data object; zero if it was not saved yet
+	 */
+	int getVersion();
+
+	/**
+	 * Sets the version of the data object
+	 * 
+	 * @param version the version of the data object
+	 */
+	void setVersion(int version);
+}
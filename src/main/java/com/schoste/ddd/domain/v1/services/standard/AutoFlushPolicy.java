@@ -0,0 +1,91 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+/**
+ * Limits of the changes a Unit of Work (UoW) tracks before it commits them on its own
+ * (see {@see UnitOfWorkImpl#setAutoFlushPolicy(AutoFlushPolicy)}). A limit of zero means no limit.
+ * The size of the pending changes is estimated by {@see AutoFlushPolicy#estimateSize(Object)},
+ * which can be overwritten to reflect the actual domain objects.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class AutoFlushPolicy
+{
+	/**
+	 * The estimated number of bytes a pending change occupies if the size is not estimated otherwise
+	 */
+	public static final long DEFAULT_OBJECT_SIZE = 256;
+
+	private final int maxPendingObjects;
+	private final long maxPendingBytes;
+	private final long maxAge;
+
+	/**
+	 * Creates a new policy
+	 *
+	 * @param maxPendingObjects the number of pending changes after which the UoW commits
+	 * @param maxPendingBytes the estimated size of the pending changes in bytes after which the UoW commits
+	 * @param maxAge the time in milliseconds since the oldest pending change after which the UoW commits
+	 * @throws IllegalArgumentException thrown if a limit is negative
+	 */
+	public AutoFlushPolicy(int maxPendingObjects, long maxPendingBytes, long maxAge)
+	{
+		if (maxPendingObjects < 0) throw new IllegalArgumentException("maxPendingObjects");
+		if (maxPendingBytes < 0) throw new IllegalArgumentException("maxPendingBytes");
+		if (maxAge < 0) throw new IllegalArgumentException("maxAge");
+
+		this.maxPendingObjects = maxPendingObjects;
+		this.maxPendingBytes = maxPendingBytes;
+		this.maxAge = maxAge;
+	}
+
+	/**
+	 * Gets the number of pending changes after which the UoW commits
+	 *
+	 * @return the number of changes or zero if it is not limited
+	 */
+	public int getMaxPendingObjects() { return this.maxPendingObjects; }
+
+	/**
+	 * Gets the estimated size of the pending changes after which the UoW commits
+	 *
+	 * @return the size in bytes or zero if it is not limited
+	 */
+	public long getMaxPendingBytes() { return this.maxPendingBytes; }
+
+	/**
+	 * Gets the time since the oldest pending change after which the UoW commits.
+	 * The age is checked whenever a change is tracked.
+	 *
+	 * @return the time in milliseconds or zero if it is not limited
+	 */
+	public long getMaxAge() { return this.maxAge; }
+
+	/**
+	 * Estimates the memory a pending change of an object occupies
+	 *
+	 * @param obj the changed object
+	 * @return the estimated size in bytes
+	 */
+	public long estimateSize(Object obj)
+	{
+		return DEFAULT_OBJECT_SIZE;
+	}
+
+	/**
+	 * Checks if the pending changes exceed any of the limits
+	 *
+	 * @param pendingObjects the number of pending changes
+	 * @param pendingBytes the estimated size of the pending changes in bytes
+	 * @param age the time in milliseconds since the oldest pending change
+	 * @return true if the UoW should commit
+	 */
+	public boolean isExceeded(int pendingObjects, long pendingBytes, long age)
+	{
+		if ((this.maxPendingObjects > 0) && (pendingObjects >= this.maxPendingObjects)) return true;
+		if ((this.maxPendingBytes > 0) && (pendingBytes >= this.maxPendingBytes)) return true;
+		if ((this.maxAge > 0) && (age >= this.maxAge)) return true;
+
+		return false;
+	}
+}
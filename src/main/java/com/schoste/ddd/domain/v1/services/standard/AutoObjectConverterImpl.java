@@ -1,189 +1,753 @@
-package com.schoste.ddd.domain.v1.services.standard;
-
-import java.lang.reflect.Method;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-
-import com.schoste.ddd.domain.v1.exceptions.DomainException;
-import com.schoste.ddd.domain.v1.exceptions.InvocationException;
-import com.schoste.ddd.domain.v1.services.AutoObjectConverter;
-
-/**
- * Implementation of the version 1 auto object converter
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- */
-abstract public class AutoObjectConverterImpl implements AutoObjectConverter
-{
-	private class Getter
-	{
-		private Object invoker;
-		private Method method;
-
-		public Getter(Object invoker, Method method)
-		{
-			this.invoker = invoker;
-			this.method = method;
-		}
-
-		public Object get(Object invoker) throws Exception
-		{
-			Object actualInvoker = (this.invoker != null) ? this.invoker : invoker;
-
-			return this.method.invoke(actualInvoker);
-		}
-	}
-
-	private class AutoSetInfo
-	{
-		private Class<?> clazz;
-		private String className;
-		private String methodName;
-
-		public Class<?> getClazz() { return clazz; }
-		public String getClassName() { return className; }
-		public String getMethodName() { return methodName; }
-
-		public AutoSetInfo(com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet autoSet)
-		{
-			this.clazz = autoSet.clazz();
-			this.className = autoSet.className();
-			this.methodName = autoSet.methodName();
-		}
-
-		public AutoSetInfo(com.schoste.ddd.domain.v1.annotations.AutoSet autoSet)
-		{
-			this.clazz = autoSet.clazz();
-			this.className = autoSet.className();
-			this.methodName = autoSet.methodName();
-		}
-	}
-
-	protected Map<Class<?>, Map<Method, Getter>> conversionMethodMap = new HashMap<>();
-
-	/**
-	 * Gets the instance to an object for the given class
-	 * 
-	 * @param clazz the class to get the instance for
-	 * @return an instance to an object of the given class
-	 * @throws Exception re-throws every exception
-	 */
-	abstract protected Object getInstance(Class<?> clazz) throws Exception;
-
-	/**
-	 * Gets the instance to an object for the given class
-	 * 
-	 * @param className the full name of the class to get the instance for
-	 * @return an instance to an object of the given class
-	 * @throws Exception re-throws every exception
-	 */
-	abstract protected Object getInstance(String className) throws Exception;
-
-	/**
-	 * Computes and caches which methods should be called and setters and getters
-	 * to convert instances of classes.
-	 * 
-	 * @param srcClass the class of the object to get values from
-	 * @param dstClass the class of the object to set values
-	 * @throws NoSuchMethodException thrown if the getter method cannot be determined
-	 * @throws Exception re-throws every exception
-	 */
-	protected void buildConversionMethodMap(Class<?> srcClass, Class<?> dstClass) throws NoSuchMethodException, Exception
-	{
-		Method[] methods = dstClass.getMethods();
-		Map<Method, Getter> methodMap = new HashMap<>();
-
-		for (Method setterMethod : methods)
-		{
-			AutoSetInfo autoSetInfo = null;
-
-			com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet dalAnnotation = setterMethod.getAnnotation(com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet.class);
-			if (dalAnnotation != null) autoSetInfo = new AutoSetInfo(dalAnnotation);
-
-			com.schoste.ddd.domain.v1.annotations.AutoSet domainAnnotation = setterMethod.getAnnotation(com.schoste.ddd.domain.v1.annotations.AutoSet.class);
-			if (domainAnnotation != null) autoSetInfo = new AutoSetInfo(domainAnnotation);
-
-			if (autoSetInfo == null) continue;
-
-			Class<?> clazz = srcClass;
-			Object invoker = null;
-
-			if (!autoSetInfo.getClazz().equals(Object.class))
-			{
-				clazz = autoSetInfo.getClazz();
-				invoker = this.getInstance(clazz);
-			}
-			else if (!autoSetInfo.getClassName().equals("")) 
-			{
-				invoker = this.getInstance(autoSetInfo.getClassName());
-				clazz = invoker.getClass();
-			}
-
-			String getterMethodName = autoSetInfo.getMethodName();
-
-			if (getterMethodName.equals(""))
-			{
-				String setterMethodName = setterMethod.getName();
-
-				if (setterMethodName.startsWith("set")) getterMethodName = "get"+setterMethodName.substring(3);
-				else getterMethodName = setterMethodName;
-			}
-
-			Method getterMethod = clazz.getMethod(getterMethodName);
-			Getter getter = new Getter(invoker, getterMethod);
-
-			methodMap.put(setterMethod, getter);
-		}
-
-		this.conversionMethodMap.put(srcClass, methodMap);
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void convert(Object src, Object dst) throws InvocationException, DomainException
-	{
-		if (src == null) return;
-		if (dst == null) return;
-
-		Class<?> srcClass = src.getClass();
-
-		try
-		{
-			if (!this.conversionMethodMap.containsKey(srcClass)) this.buildConversionMethodMap(srcClass, dst.getClass());
-	
-			Map<Method, Getter> methodMap = this.conversionMethodMap.get(srcClass);
-			Collection<Method> setterMethods = methodMap.keySet();
-	
-			for (Method setterMethod : setterMethods)
-			{
-				Getter getter = methodMap.get(setterMethod);
-				Object invoker = src;
-				Method invokingMethod = getter.method;
-	
-				try
-				{
-					Object arg = getter.get(src);
-
-					invoker = dst;
-					invokingMethod = setterMethod;
-					invokingMethod.invoke(dst, arg);
-				}
-				catch (Exception ex)
-				{
-					throw new InvocationException(invoker, invokingMethod, ex);
-				}
-			}
-		}
-		catch (InvocationException ie)
-		{
-			throw ie;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-}
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Parameter;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.lang.reflect.WildcardType;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.exceptions.InvocationException;
+import com.schoste.ddd.domain.v1.services.AutoObjectConverter;
+
+/**
+ * Implementation of the version 1 auto object converter
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+abstract public class AutoObjectConverterImpl implements AutoObjectConverter
+{
+	private class Getter
+	{
+		private Object invoker;
+		private Method method;
+
+		public Getter(Object invoker, Method method)
+		{
+			this.invoker = invoker;
+			this.method = method;
+		}
+
+		public Object get(Object invoker) throws Exception
+		{
+			Object actualInvoker = (this.invoker != null) ? this.invoker : invoker;
+
+			return this.method.invoke(actualInvoker);
+		}
+	}
+
+	private static class AutoSetInfo
+	{
+		private Class<?> clazz;
+		private String className;
+		private String methodName;
+		private Class<?> targetClass = Object.class;
+		private boolean nested = false;
+		private boolean convertingUnassignable = false;
+
+		public Class<?> getClazz() { return clazz; }
+		public String getClassName() { return className; }
+		public String getMethodName() { return methodName; }
+		public Class<?> getTargetClass() { return targetClass; }
+		public boolean isNested() { return nested; }
+		public boolean isConvertingUnassignable() { return convertingUnassignable; }
+
+		public AutoSetInfo()
+		{
+			this.clazz = Object.class;
+			this.className = "";
+			this.methodName = "";
+		}
+
+		public AutoSetInfo(com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet autoSet)
+		{
+			this.clazz = autoSet.clazz();
+			this.className = autoSet.className();
+			this.methodName = autoSet.methodName();
+
+			// The annotation cannot request nested conversion, so values which don't fit the setter are converted
+			this.convertingUnassignable = true;
+		}
+
+		public AutoSetInfo(com.schoste.ddd.domain.v1.annotations.AutoSet autoSet)
+		{
+			this.clazz = autoSet.clazz();
+			this.className = autoSet.className();
+			this.methodName = autoSet.methodName();
+			this.targetClass = autoSet.targetClass();
+			this.nested = autoSet.nested();
+		}
+	}
+
+	/**
+	 * Defines how the value of a getter is passed on to its setter
+	 */
+	private enum Transfer
+	{
+		/**
+		 * The value is passed on as it is
+		 */
+		Assign,
+
+		/**
+		 * The value is converted into a new instance of the target class
+		 */
+		Convert,
+
+		/**
+		 * The value is a collection whose elements are converted into instances of the target class
+		 */
+		ConvertElements
+	}
+
+	private class PropertyConversion
+	{
+		private String name;
+		private Method setterMethod;
+		private Getter getter;
+		private Transfer transfer;
+		private Class<?> targetClass;
+		private Class<?> collectionClass;
+		private boolean nested;
+
+		public PropertyConversion(String name, Method setterMethod, Getter getter, Transfer transfer, Class<?> targetClass, Class<?> collectionClass, boolean nested)
+		{
+			this.name = name;
+			this.setterMethod = setterMethod;
+			this.getter = getter;
+			this.transfer = transfer;
+			this.targetClass = targetClass;
+			this.collectionClass = collectionClass;
+			this.nested = nested;
+		}
+	}
+
+	/**
+	 * Pre-computed list of property conversions to convert instances of one class into instances of another class.
+	 * If the other class is created by a constructor (e.g. records) the plan also contains the arguments of this constructor.
+	 */
+	protected class ConversionPlan
+	{
+		private final PropertyConversion[] properties;
+		private final Constructor<?> constructor;
+		private final PropertyConversion[] arguments;
+
+		private ConversionPlan(List<PropertyConversion> properties, Constructor<?> constructor, List<PropertyConversion> arguments)
+		{
+			this.properties = properties.toArray(new PropertyConversion[properties.size()]);
+			this.constructor = constructor;
+			this.arguments = arguments.toArray(new PropertyConversion[arguments.size()]);
+		}
+	}
+
+	/**
+	 * Placeholder for objects whose constructor arguments are being converted
+	 */
+	private static final Object CONSTRUCTING = new Object();
+
+	protected Map<Class<?>, Map<Class<?>, ConversionPlan>> conversionMethodMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Checks if values of a class are always assigned as they are, because they cannot be converted
+	 * property by property (primitive, boxed and JDK classes, enums and arrays)
+	 */
+	private static boolean isValueClass(Class<?> clazz)
+	{
+		return clazz.isPrimitive() || clazz.isArray() || clazz.isEnum() || clazz.getName().startsWith("java.") || clazz.getName().startsWith("javax.");
+	}
+
+	private static Class<?> getElementClass(Type collectionType)
+	{
+		if (!(collectionType instanceof ParameterizedType)) return Object.class;
+
+		Type[] typeArguments = ((ParameterizedType) collectionType).getActualTypeArguments();
+
+		if (typeArguments.length != 1) return Object.class;
+
+		Type elementType = typeArguments[0];
+
+		if (elementType instanceof WildcardType) elementType = ((WildcardType) elementType).getUpperBounds()[0];
+		if (elementType instanceof ParameterizedType) elementType = ((ParameterizedType) elementType).getRawType();
+
+		return (elementType instanceof Class) ? (Class<?>) elementType : Object.class;
+	}
+
+	/**
+	 * Gets the instance to an object for the given class
+	 * 
+	 * @param clazz the class to get the instance for
+	 * @return an instance to an object of the given class
+	 * @throws Exception re-throws every exception
+	 */
+	abstract protected Object getInstance(Class<?> clazz) throws Exception;
+
+	/**
+	 * Gets the instance to an object for the given class
+	 * 
+	 * @param className the full name of the class to get the instance for
+	 * @return an instance to an object of the given class
+	 * @throws Exception re-throws every exception
+	 */
+	abstract protected Object getInstance(String className) throws Exception;
+
+	/**
+	 * Creates a new object which is the target of a nested conversion.
+	 * By default the parameterless constructor of the class is invoked.
+	 * Overwrite the method to create nested objects differently.
+	 * 
+	 * @param clazz the class of the object to create
+	 * @return a new instance of the given class
+	 * @throws Exception re-throws every exception
+	 */
+	protected Object createInstance(Class<?> clazz) throws Exception
+	{
+		return clazz.getDeclaredConstructor().newInstance();
+	}
+
+	/**
+	 * Creates a new, empty collection which is the target of an element-wise conversion.
+	 * 
+	 * @param collectionClass the class of the setter's parameter
+	 * @param size the number of elements that will be added
+	 * @return a new collection which can be passed to the setter
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected Collection<Object> createCollection(Class<?> collectionClass, int size) throws Exception
+	{
+		if (collectionClass.isInterface() || Modifier.isAbstract(collectionClass.getModifiers()))
+		{
+			if (SortedSet.class.isAssignableFrom(collectionClass)) return new TreeSet<>();
+			if (Set.class.isAssignableFrom(collectionClass)) return new LinkedHashSet<>(size);
+			if (Queue.class.isAssignableFrom(collectionClass)) return new ArrayDeque<>(size);
+
+			return new ArrayList<>(size);
+		}
+
+		return (Collection<Object>) this.createInstance(collectionClass);
+	}
+
+	private Getter buildGetter(Class<?> srcClass, AutoSetInfo autoSetInfo, String... getterMethodNames) throws NoSuchMethodException, Exception
+	{
+		Class<?> clazz = srcClass;
+		Object invoker = null;
+
+		if (!autoSetInfo.getClazz().equals(Object.class))
+		{
+			clazz = autoSetInfo.getClazz();
+			invoker = this.getInstance(clazz);
+		}
+		else if (!autoSetInfo.getClassName().equals(""))
+		{
+			invoker = this.getInstance(autoSetInfo.getClassName());
+			clazz = invoker.getClass();
+		}
+
+		if (!autoSetInfo.getMethodName().equals("")) return new Getter(invoker, clazz.getMethod(autoSetInfo.getMethodName()));
+
+		for (int i=0; i<getterMethodNames.length -1; i++)
+		{
+			try
+			{
+				return new Getter(invoker, clazz.getMethod(getterMethodNames[i]));
+			}
+			catch (NoSuchMethodException e)
+			{
+				// try the next guess
+			}
+		}
+
+		return new Getter(invoker, clazz.getMethod(getterMethodNames[getterMethodNames.length -1]));
+	}
+
+	private PropertyConversion buildPropertyConversion(String name, Method setterMethod, Getter getter, Class<?> parameterClass, Type parameterType, AutoSetInfo autoSetInfo)
+	{
+		Method getterMethod = getter.method;
+		Class<?> valueClass = getterMethod.getReturnType();
+		Class<?> targetClass = autoSetInfo.getTargetClass();
+		Transfer transfer = Transfer.Assign;
+
+		// Values are only converted on request; all others are passed to the setter as they are
+		boolean convert = autoSetInfo.isNested() || !targetClass.equals(Object.class);
+
+		if (Collection.class.isAssignableFrom(parameterClass) && Collection.class.isAssignableFrom(valueClass))
+		{
+			if (targetClass.equals(Object.class)) targetClass = getElementClass(parameterType);
+			if (autoSetInfo.isConvertingUnassignable()) convert |= !targetClass.isAssignableFrom(getElementClass(getterMethod.getGenericReturnType()));
+
+			// Without a known element class there is nothing to convert to
+			if (convert && (!targetClass.equals(Object.class)) && (!isValueClass(targetClass))) transfer = Transfer.ConvertElements;
+		}
+		else
+		{
+			if (targetClass.equals(Object.class)) targetClass = parameterClass;
+			if (autoSetInfo.isConvertingUnassignable()) convert |= !targetClass.isAssignableFrom(valueClass);
+
+			if (convert && (!isValueClass(targetClass))) transfer = Transfer.Convert;
+		}
+
+		return new PropertyConversion(name, setterMethod, getter, transfer, targetClass, parameterClass, autoSetInfo.isNested());
+	}
+
+	private static AutoSetInfo getAutoSetInfo(Parameter parameter)
+	{
+		com.schoste.ddd.domain.v1.annotations.AutoSet domainAnnotation = parameter.getAnnotation(com.schoste.ddd.domain.v1.annotations.AutoSet.class);
+
+		return (domainAnnotation != null) ? new AutoSetInfo(domainAnnotation) : null;
+	}
+
+	/**
+	 * Gets the constructor to use to create instances of the given class.
+	 * For records this is the canonical constructor. For other classes this is the first public constructor
+	 * whose parameters are all annotated with {@see com.schoste.ddd.domain.v1.annotations.AutoSet}.
+	 * 
+	 * @param dstClass the class to get the constructor for
+	 * @return the constructor or null if instances are created by {@see AutoObjectConverterImpl#createInstance(Class)}
+	 * @throws Exception re-throws every exception
+	 */
+	protected Constructor<?> getAutoConstructor(Class<?> dstClass) throws Exception
+	{
+		if (dstClass.isRecord())
+		{
+			RecordComponent[] components = dstClass.getRecordComponents();
+			Class<?>[] componentClasses = new Class<?>[components.length];
+
+			for (int i=0; i<components.length; i++) componentClasses[i] = components[i].getType();
+
+			return dstClass.getDeclaredConstructor(componentClasses);
+		}
+
+		for (Constructor<?> constructor : dstClass.getConstructors())
+		{
+			if (constructor.getParameterCount() < 1) continue;
+
+			boolean isAutoConstructor = true;
+
+			for (Parameter parameter : constructor.getParameters()) isAutoConstructor &= (getAutoSetInfo(parameter) != null);
+
+			if (isAutoConstructor) return constructor;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Computes and caches which methods should be called and setters and getters
+	 * to convert instances of classes.
+	 * 
+	 * @param srcClass the class of the object to get values from
+	 * @param dstClass the class of the object to set values
+	 * @throws NoSuchMethodException thrown if the getter method cannot be determined
+	 * @throws Exception re-throws every exception
+	 */
+	protected void buildConversionMethodMap(Class<?> srcClass, Class<?> dstClass) throws NoSuchMethodException, Exception
+	{
+		Method[] methods = dstClass.getMethods();
+		List<PropertyConversion> properties = new ArrayList<>();
+
+		for (Method setterMethod : methods)
+		{
+			// Record accessors may carry annotations of their record components
+			if (setterMethod.getParameterCount() != 1) continue;
+
+			AutoSetInfo autoSetInfo = null;
+
+			com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet dalAnnotation = setterMethod.getAnnotation(com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet.class);
+			if (dalAnnotation != null) autoSetInfo = new AutoSetInfo(dalAnnotation);
+
+			com.schoste.ddd.domain.v1.annotations.AutoSet domainAnnotation = setterMethod.getAnnotation(com.schoste.ddd.domain.v1.annotations.AutoSet.class);
+			if (domainAnnotation != null) autoSetInfo = new AutoSetInfo(domainAnnotation);
+
+			if (autoSetInfo == null) continue;
+
+			String setterMethodName = setterMethod.getName();
+			String getterMethodName = (setterMethodName.startsWith("set")) ? "get"+setterMethodName.substring(3) : setterMethodName;
+			String propertyName = (setterMethodName.startsWith("set") && (setterMethodName.length() > 3)) ? setterMethodName.substring(3, 4).toLowerCase()+setterMethodName.substring(4) : setterMethodName;
+			Getter getter = this.buildGetter(srcClass, autoSetInfo, getterMethodName);
+
+			properties.add(this.buildPropertyConversion(propertyName, setterMethod, getter, setterMethod.getParameterTypes()[0], setterMethod.getGenericParameterTypes()[0], autoSetInfo));
+		}
+
+		Constructor<?> constructor = this.getAutoConstructor(dstClass);
+		List<PropertyConversion> arguments = new ArrayList<>();
+
+		if (constructor != null)
+		{
+			Parameter[] parameters = constructor.getParameters();
+			RecordComponent[] components = dstClass.getRecordComponents();
+
+			for (int i=0; i<parameters.length; i++)
+			{
+				AutoSetInfo autoSetInfo = getAutoSetInfo(parameters[i]);
+				String propertyName = (components != null) ? components[i].getName() : parameters[i].getName();
+				String capitalizedPropertyName = propertyName.substring(0, 1).toUpperCase()+propertyName.substring(1);
+
+				if (autoSetInfo == null) autoSetInfo = new AutoSetInfo();
+
+				Getter getter = this.buildGetter(srcClass, autoSetInfo, "get"+capitalizedPropertyName, "is"+capitalizedPropertyName, propertyName);
+
+				arguments.add(this.buildPropertyConversion(propertyName, null, getter, parameters[i].getType(), parameters[i].getParameterizedType(), autoSetInfo));
+			}
+
+			constructor.trySetAccessible();
+		}
+
+		this.conversionMethodMap.computeIfAbsent(srcClass, c -> new ConcurrentHashMap<>()).put(dstClass, new ConversionPlan(properties, constructor, arguments));
+	}
+
+	/**
+	 * Gets the cached conversion plan for the given classes. If no plan was computed yet, it is built.
+	 * 
+	 * @param srcClass the class of the object to get values from
+	 * @param dstClass the class of the object to set values
+	 * @return the conversion plan
+	 * @throws Exception re-throws every exception
+	 */
+	protected ConversionPlan getConversionPlan(Class<?> srcClass, Class<?> dstClass) throws Exception
+	{
+		Map<Class<?>, ConversionPlan> plans = this.conversionMethodMap.get(srcClass);
+		ConversionPlan plan = (plans != null) ? plans.get(dstClass) : null;
+
+		if (plan != null) return plan;
+
+		this.buildConversionMethodMap(srcClass, dstClass);
+
+		return this.conversionMethodMap.get(srcClass).get(dstClass);
+	}
+
+	/**
+	 * Converts a nested value into an instance of the target class.
+	 * Values which were converted already during the same conversion are not converted again,
+	 * so shared references stay shared and cyclic references are resolved.
+	 * 
+	 * @param value the value to convert
+	 * @param targetClass the class to convert the value into
+	 * @param convertedObjects the source objects converted so far, mapped to their converted objects
+	 * @return the converted value
+	 * @throws Exception re-throws every exception
+	 */
+	private Object convertValue(Object value, Class<?> targetClass, Map<Object, Object> convertedObjects) throws Exception
+	{
+		if (value == null) return null;
+
+		Object convertedValue = convertedObjects.get(value);
+
+		if ((convertedValue != null) && targetClass.isInstance(convertedValue)) return convertedValue;
+		if (convertedValue == CONSTRUCTING) throw new IllegalStateException(String.format("Cyclic reference to %s which is created by a constructor", targetClass.getName()));
+
+		ConversionPlan plan = this.getConversionPlan(value.getClass(), targetClass);
+
+		if (plan.constructor == null)
+		{
+			convertedValue = this.createInstance(targetClass);
+		}
+		else
+		{
+			Object[] args = new Object[plan.arguments.length];
+
+			convertedObjects.put(value, CONSTRUCTING);
+
+			for (int i=0; i<args.length; i++)
+			{
+				PropertyConversion argument = plan.arguments[i];
+
+				try
+				{
+					args[i] = this.transfer(argument, argument.getter.get(value), convertedObjects);
+				}
+				catch (InvocationException ie)
+				{
+					throw ie;
+				}
+				catch (Exception ex)
+				{
+					throw new InvocationException(value, argument.getter.method, ex);
+				}
+			}
+
+			convertedValue = plan.constructor.newInstance(args);
+		}
+
+		this.convert(value, convertedValue, convertedObjects);
+
+		return convertedValue;
+	}
+
+	private Object transfer(PropertyConversion property, Object value, Map<Object, Object> convertedObjects) throws Exception
+	{
+		if (value == null) return null;
+
+		switch (property.transfer)
+		{
+			case Convert:
+				// Values which fit already are only copied if nested conversion was requested
+				if ((!property.nested) && property.targetClass.isInstance(value)) return value;
+
+				return this.convertValue(value, property.targetClass, convertedObjects);
+
+			case ConvertElements:
+				Collection<?> elements = (Collection<?>) value;
+				Collection<Object> convertedElements = this.createCollection(property.collectionClass, elements.size());
+
+				for (Object element : elements)
+				{
+					if ((element == null) || ((!property.nested) && property.targetClass.isInstance(element))) convertedElements.add(element);
+					else convertedElements.add(this.convertValue(element, property.targetClass, convertedObjects));
+				}
+
+				return convertedElements;
+
+			default:
+				return value;
+		}
+	}
+
+	/**
+	 * Enriches the properties of the destination object with the properties of the source object
+	 * and keeps track of all objects converted in the same pass.
+	 * 
+	 * @param src the object to get the data from
+	 * @param dst the object to write the data to
+	 * @param convertedObjects the source objects converted so far, mapped to their converted objects
+	 * @throws InvocationException thrown if invoking getters or setters fails
+	 * @throws DomainException re-throws every exception as domain layer exception
+	 */
+	protected void convert(Object src, Object dst, Map<Object, Object> convertedObjects) throws InvocationException, DomainException
+	{
+		this.convert(src, dst, convertedObjects, null);
+	}
+
+	private void convert(Object src, Object dst, Map<Object, Object> convertedObjects, BitSet selectedProperties) throws InvocationException, DomainException
+	{
+		try
+		{
+			convertedObjects.put(src, dst);
+
+			ConversionPlan plan = this.getConversionPlan(src.getClass(), dst.getClass());
+
+			for (int i=0; i<plan.properties.length; i++)
+			{
+				if ((selectedProperties != null) && (!selectedProperties.get(i))) continue;
+
+				PropertyConversion property = plan.properties[i];
+				Object invoker = src;
+				Method invokingMethod = property.getter.method;
+
+				try
+				{
+					Object arg = this.transfer(property, property.getter.get(src), convertedObjects);
+
+					invoker = dst;
+					invokingMethod = property.setterMethod;
+					invokingMethod.invoke(dst, arg);
+				}
+				catch (InvocationException ie)
+				{
+					throw ie;
+				}
+				catch (Exception ex)
+				{
+					throw new InvocationException(invoker, invokingMethod, ex);
+				}
+			}
+		}
+		catch (InvocationException ie)
+		{
+			throw ie;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	private void prepare(Class<?> srcClass, Class<?> dstClass, Set<List<Class<?>>> preparedPlans) throws Exception
+	{
+		if (!preparedPlans.add(List.of(srcClass, dstClass))) return;
+
+		ConversionPlan plan = this.getConversionPlan(srcClass, dstClass);
+
+		List<PropertyConversion> properties = new ArrayList<>(List.of(plan.properties));
+
+		properties.addAll(List.of(plan.arguments));
+
+		for (PropertyConversion property : properties)
+		{
+			Class<?> valueClass = (property.transfer == Transfer.ConvertElements) ? getElementClass(property.getter.method.getGenericReturnType()) : property.getter.method.getReturnType();
+
+			// Plans from declared JDK classes (e.g. Object) depend on the runtime class and are built when they are needed
+			if ((property.transfer != Transfer.Assign) && (!isValueClass(valueClass))) this.prepare(valueClass, property.targetClass, preparedPlans);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void prepare(Class<?> srcClass, Class<?> dstClass) throws DomainException
+	{
+		if (srcClass == null) throw new IllegalArgumentException("srcClass");
+		if (dstClass == null) throw new IllegalArgumentException("dstClass");
+
+		try
+		{
+			this.prepare(srcClass, dstClass, new HashSet<>());
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(String.format("%s -> %s", srcClass.getName(), dstClass.getName()), e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void convert(Object src, Object dst) throws InvocationException, DomainException
+	{
+		if (src == null) return;
+		if (dst == null) return;
+
+		this.convert(src, dst, new IdentityHashMap<>());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void convert(Object src, Object dst, BitSet properties) throws InvocationException, DomainException
+	{
+		if (src == null) return;
+		if (dst == null) return;
+		if (properties == null) throw new IllegalArgumentException("properties");
+
+		this.convert(src, dst, new IdentityHashMap<>(), properties);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String[] getConvertedPropertyNames(Class<?> srcClass, Class<?> dstClass) throws DomainException
+	{
+		if (srcClass == null) throw new IllegalArgumentException("srcClass");
+		if (dstClass == null) throw new IllegalArgumentException("dstClass");
+
+		try
+		{
+			ConversionPlan plan = this.getConversionPlan(srcClass, dstClass);
+			String[] names = new String[plan.properties.length + plan.arguments.length];
+			int index = 0;
+
+			for (PropertyConversion property : plan.properties) names[index++] = property.name;
+			for (PropertyConversion argument : plan.arguments) names[index++] = argument.name;
+
+			return names;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	private static Object copyValue(Object value)
+	{
+		if (value instanceof Collection) return new ArrayList<>((Collection<?>) value);
+		if (value instanceof Map) return new HashMap<>((Map<?,?>) value);
+		if (value instanceof Object[]) return ((Object[]) value).clone();
+
+		return value;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Object[] getConvertedValues(Object src, Class<?> dstClass) throws InvocationException, DomainException
+	{
+		if (src == null) return null;
+		if (dstClass == null) throw new IllegalArgumentException("dstClass");
+
+		try
+		{
+			ConversionPlan plan = this.getConversionPlan(src.getClass(), dstClass);
+			Object[] values = new Object[plan.properties.length + plan.arguments.length];
+			int index = 0;
+
+			for (PropertyConversion property : plan.properties)
+			{
+				try
+				{
+					values[index++] = copyValue(property.getter.get(src));
+				}
+				catch (Exception ex)
+				{
+					throw new InvocationException(src, property.getter.method, ex);
+				}
+			}
+
+			for (PropertyConversion argument : plan.arguments)
+			{
+				try
+				{
+					values[index++] = copyValue(argument.getter.get(src));
+				}
+				catch (Exception ex)
+				{
+					throw new InvocationException(src, argument.getter.method, ex);
+				}
+			}
+
+			return values;
+		}
+		catch (InvocationException ie)
+		{
+			throw ie;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public <D> D create(Object src, Class<D> dstClass) throws InvocationException, DomainException
+	{
+		if (src == null) return null;
+		if (dstClass == null) throw new IllegalArgumentException("dstClass");
+
+		try
+		{
+			return dstClass.cast(this.convertValue(src, dstClass, new IdentityHashMap<>()));
+		}
+		catch (DomainException de)
+		{
+			throw de;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+}
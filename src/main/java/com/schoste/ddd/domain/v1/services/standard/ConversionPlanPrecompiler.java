@@ -0,0 +1,61 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.Map;
+
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+
+/**
+ * Prepares the conversion plans of all repositories once all singletons of the application
+ * context were created. Add this class as bean to the application context, so mapping errors
+ * fail the startup of the context and no request has to pay for building conversion plans.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+public class ConversionPlanPrecompiler implements SmartInitializingSingleton
+{
+	@Autowired
+	protected ApplicationContext applicationContext;
+
+	/**
+	 * Prepares the conversion plans to convert data objects to domain objects and vice versa
+	 * for the given repository.
+	 * 
+	 * @param repository the repository to prepare the conversion plans for
+	 * @throws Exception re-throws every exception
+	 */
+	protected void precompile(GenericRepositoryImpl<?,?> repository) throws Exception
+	{
+		Class<?> domainObjectClass = repository.getDomainObjectClass();
+		Class<?> dataObjectClass = repository.getDataObjectClass();
+
+		repository.converter.prepare(dataObjectClass, domainObjectClass);
+		repository.converter.prepare(domainObjectClass, dataObjectClass);
+	}
+
+	/**
+	 * Prepares the conversion plans of all singleton repositories of the application context
+	 * 
+	 * @throws BeanInitializationException thrown if the conversion plan of a repository cannot be built
+	 */
+	@Override
+	public void afterSingletonsInstantiated()
+	{
+		@SuppressWarnings("rawtypes")
+		Map<String, GenericRepositoryImpl> repositories = this.applicationContext.getBeansOfType(GenericRepositoryImpl.class, false, true);
+
+		for (Map.Entry<String, ?> repository : repositories.entrySet())
+		{
+			try
+			{
+				this.precompile((GenericRepositoryImpl<?,?>) repository.getValue());
+			}
+			catch (Exception e)
+			{
+				throw new BeanInitializationException(String.format("Cannot build conversion plans of %s", repository.getKey()), e);
+			}
+		}
+	}
+}
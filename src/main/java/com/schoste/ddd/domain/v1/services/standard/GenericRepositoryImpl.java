@@ -1,634 +1,1656 @@
-package com.schoste.ddd.domain.v1.services.standard;
-
-import java.lang.ref.SoftReference;
-import java.lang.reflect.ParameterizedType;
-import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
-
-import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.context.ApplicationContext;
-import org.springframework.stereotype.Repository;
-
-import com.schoste.ddd.domain.v1.exceptions.DataObjectNullException;
-import com.schoste.ddd.domain.v1.exceptions.DomainException;
-import com.schoste.ddd.domain.v1.models.DomainObject;
-import com.schoste.ddd.domain.v1.models.DomainObject.State;
-import com.schoste.ddd.domain.v1.services.AutoObjectConverter;
-import com.schoste.ddd.domain.v1.services.GenericRepository;
-import com.schoste.ddd.domain.v1.services.RepositoryChangeListener;
-import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
-import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
-import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
-
-/**
- * Implementation of the generic repository
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- *
- * @param <T> the domain model class
- * @param <DO> the data object class
- */
-@Repository
-public abstract class GenericRepositoryImpl<T extends DomainObject, DO extends GenericDataObject> implements GenericRepository<T, DO> 
-{
-	@Autowired
-	protected ApplicationContext applicationContext;
-
-	@Autowired
-	protected AutoObjectConverter converter;
-	
-	protected Set<RepositoryChangeListener> changeListener = new HashSet<RepositoryChangeListener>();
-	protected Map<Integer, SoftReference<T>> loadedObjects = new HashMap<Integer, SoftReference<T>>();
-	protected int lastVirtualId = -1;
-	
-	private void notifyObjectAdded(T domainObject)
-	{
-		try
-		{
-			synchronized (this.changeListener)
-			{
-				for (RepositoryChangeListener listener : this.changeListener) listener.onObjectAdded(this, domainObject);
-			}
-		}
-		catch (Exception e)
-		{
-			System.err.println(e.getMessage());
-		}
-	}
-	
-	private void notifyObjectRemoved(T domainObject)
-	{
-		try
-		{
-			synchronized (this.changeListener)
-			{
-				for (RepositoryChangeListener listener : this.changeListener) listener.onObjectRemoved(this, domainObject);
-			}
-		}
-		catch (Exception e)
-		{
-			System.err.println(e.getMessage());
-		}
-	}
-	
-	private void notifyObjectModified(T domainObject)
-	{
-		try
-		{
-			synchronized (this.changeListener)
-			{
-				for (RepositoryChangeListener listener : this.changeListener) listener.onObjectModified(this, domainObject);
-			}
-		}
-		catch (Exception e)
-		{
-			System.err.println(e.getMessage());
-		}
-	}
-	
-	private void notifyReload()
-	{
-		try
-		{
-			synchronized (this.changeListener)
-			{
-				for (RepositoryChangeListener listener : this.changeListener) listener.onReload(this);
-			}
-		}
-		catch (Exception e)
-		{
-			System.err.println(e.getMessage());
-		}
-	}
-
-	/**
-	 * Obtains the actual class of domain objects
-	 * 
-	 * @return the actual domain class
-	 * @throws IllegalStateException thrown if the actual domain class cannot be obtained
-	 * @throws Exception re-throws every exception
-	 */
-	@SuppressWarnings("rawtypes")
-	protected Class getDomainObjectClass() throws IllegalStateException, Exception
-	{
-		Type[] types = ((ParameterizedType) this.getClass().getGenericSuperclass()).getActualTypeArguments();
-
-		if (types.length < 1) throw new IllegalStateException();
-
-		return (Class) types[0];
-	}
-	
-	/**
-	 * Obtains the actual class of data objects
-	 * 
-	 * @return the actual data class
-	 * @throws IllegalStateException thrown if the actual data class cannot be obtained
-	 * @throws Exception re-throws every exception
-	 */
-	@SuppressWarnings("rawtypes")
-	protected Class getDataObjectClass() throws IllegalStateException, Exception
-	{
-		Type[] types = ((ParameterizedType) this.getClass().getGenericSuperclass()).getActualTypeArguments();
-
-		if (types.length < 2) throw new IllegalStateException();
-
-		return (Class) types[1];
-	}
-	
-	/**
-	 * Gets the data access object (DAO) which is used to actually persist
-	 * the domain models
-	 * 
-	 * @return a data access object (DAO)
-	 */
-	protected abstract GenericDataAccessObject<?> getDataAccessObject();
-
-	/**
-	 * Called by {@see GenericRepositoryImpl#dataObjectToDomainObject(GenericDataObject, DomainObject)}
-	 * after the domain object was enriched by the auto converter
-	 * 
-	 * @param dataObject the data object with source information
-	 * @param domainObject the domain object to enrich with information
-	 * @throws Exception re-throws every exception
-	 */
-	protected abstract void afterAutoConversation(DO dataObject, T domainObject) throws Exception;
-
-	/**
-	 * Creates a new domain model or updates an existing from a data object.
-	 * When overwriting this method <b>DO NOT</b> set the id of the domain object.
-	 * <b>Rather call the method of the super class.</b> The method of the super class will
-	 * update the id and <b>it will make sure the object in the repository is updated too!</b>
-	 * The returned domain model is supposed to have the state Unchanged on return.
-	 * 
-	 * @param dataObject the data object a source
-	 * @param domainObject an existing domain model to update with the provided data object. If null a new one will be created
-	 * @return the new or updated domain model
-	 * @throws IllegalArgumentException thrown if the dataObject is null
-	 * @throws Exception re-throws every exception
-	 */
-	protected synchronized T dataObjectToDomainObject(DO dataObject, T domainObject) throws Exception
-	{
-		if (dataObject == null) throw new IllegalArgumentException("dataObject");
-		if (domainObject == null) domainObject = this.createObject();
-
-		this.converter.convert(dataObject, domainObject);
-		this.afterAutoConversation(dataObject, domainObject);
-
-		// Check if the DO exists in the repo already and if so, update it
-		boolean existed = (this.loadedObjects.remove(domainObject.getId()) != null);
-		
-		domainObject.setId(dataObject.getId());
-		domainObject.setState(State.Unchanged);
-		
-		if (existed) this.loadedObjects.put(domainObject.getId(), new SoftReference<T>(domainObject));
-		
-		return domainObject;
-	}
-
-	/**
-	 * Creates a new domain model or updates an existing from a data object by calling the
-	 * typed method dataObjectToDomainObject().
-	 * 
-	 * @param dataObject the data object a source
-	 * @param domainObject an existing domain model to update with the provided data object. If null a new one will be created
-	 * @return the new or updated domain model
-	 * @throws IllegalArgumentException if the classes of the dataObject or the domainObject do not match the classes of the repository or the data access object
-	 * @throws Exception re-throws every exception
-	 */
-	@SuppressWarnings("unchecked")
-	protected T dataObjectToDomainObject(Object dataObject, Object domainObject) throws Exception
-	{
-		if ((dataObject != null) && (!this.getDataObjectClass().isInstance(dataObject))) throw new IllegalArgumentException("dataObject");
-		if ((domainObject != null) && (!this.getDomainObjectClass().isInstance(domainObject))) throw new IllegalArgumentException("domainObject");
-		
-		return this.dataObjectToDomainObject((DO) dataObject, (T) domainObject);
-	}
-
-	/**
-	 * Called by {@see GenericRepositoryImpl#domainObjectToDataObject(DomainObject)}
-	 * after the data object was enriched by the auto converter
-	 * 
-	 * @param domainObject the domain object to enrich with information with source information
-	 * @param dataObject the data object to enrich with information
-	 * @throws Exception re-throws every exception
-	 */
-	protected abstract void afterAutoConversation(T domainObject, DO dataObject) throws Exception;
-
-	/**
-	 * Creates a data object from a given domain model (so it can be persisted).
-	 * When overwriting this method <b>make sure to call the method of the super class.</b>
-	 * When calling the method of the super class, the repository will check if there
-	 * already exists a data object with the given id that you need to update.
-	 * 
-	 * @param domainObject the domain model to create the data object from
-	 * @return a data object or null if no data object exists yet for the given domain model's id
-	 * @throws IllegalArgumentException thrown when any of the parameters is null
-	 * @throw DataObjectNullException thrown if no data object could be created
-	 * @throws Exception re-throws every exception
-	 */
-	protected DO domainObjectToDataObject(T domainObject) throws Exception
-	{
-		if (domainObject == null) throw new IllegalArgumentException("domainObject");
-
-		@SuppressWarnings("unchecked")
-		DO dataObject = (domainObject.getId() > 0) ? (DO) this.getDataAccessObject().get(domainObject.getId()) : (DO) this.getDataAccessObject().createDataObject();
-
-		if (dataObject == null) throw new DataObjectNullException(this.getDataAccessObject().getClass());
-
-		dataObject.setId(domainObject.getId());
-		dataObject.setIsDeleted(false);
-
-		this.converter.convert(domainObject, dataObject);
-		this.afterAutoConversation(domainObject, dataObject);
-
-		return dataObject;
-	}
-	
-	/**
-	 * Creates a data object from a given domain model (so it can be persisted)
-	 * 
-	 * @param domainObject the domain model to create the data object from
-	 * @return a data object
-	 * @throws Exception re-throws every exception
-	 */
-	@SuppressWarnings("unchecked")
-	protected DO domainObjectToDataObject(Object domainObject) throws Exception
-	{
-		if ((domainObject != null) && (!this.getDomainObjectClass().isInstance(domainObject))) throw new IllegalArgumentException("domainObject");
-		
-		return this.domainObjectToDataObject((T) domainObject);
-	}
-	
-	/**
-	 * Resets the virtual id for not persisted domain objects to the next lowest value.
-	 * If multiple UoWs track a repository and one of them commits it might still be
-	 * the case that some domain objects are neither persisted nor removed and therefore
-	 * still exist with virtual Ids.
-	 */
-	protected synchronized void resetVirtualDomainObjectId()
-	{
-		int minVirtualId = 0;
-		
-		for (int domainObjectId : this.loadedObjects.keySet()) minVirtualId = Math.min(minVirtualId, domainObjectId);
-		
-		this.lastVirtualId = --minVirtualId;
-	}
-	
-	/**
-	 * Tries to get a domain object from the cache. If it isn't found in cache
-	 * (either because it expired or was not loaded yet) it is reloaded from DAL
-	 * 
-	 * @param id the id of the domain object to get/load
-	 * @return the domain object with the given id or null if it does not exist at all
-	 * @throws Exception re-throws every exception
-	 */
-	@SuppressWarnings("unchecked")
-	protected synchronized T loadDomainObject(int id) throws Exception
-	{
-		T domainObject = null;
-		
-		if (this.loadedObjects.containsKey(id))
-		{
-			// The object was loaded once; get it from cache
-			SoftReference<T> refToDomainObject = this.loadedObjects.get(id);
-			
-			domainObject = refToDomainObject.get();
-		}
-		
-		if (domainObject == null)
-		{
-			// The object was not loaded yet or was removed from cache; reload it
-			DO dataObject = (DO) this.getDataAccessObject().get(id);
-			
-			if (dataObject != null)
-			{
-				// An object with the given id exists in the DAL; load it
-				domainObject = this.createObject();
-				domainObject = this.dataObjectToDomainObject(dataObject, domainObject);
-				
-				SoftReference<T> refToDomainObject = new SoftReference<T>(domainObject);
-				
-				this.loadedObjects.put(domainObject.getId(), refToDomainObject);
-			}
-		}
-		
-		return domainObject;
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public void addChangeListener(RepositoryChangeListener listener)
-	{
-		synchronized (this.changeListener)
-		{
-			if (listener != null) this.changeListener.add(listener);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public void removeChangeListener(RepositoryChangeListener listener)
-	{
-		synchronized (this.changeListener)
-		{
-			if (listener != null) this.changeListener.remove(listener);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public T createObject() throws DomainException
-	{
-		try
-		{
-			@SuppressWarnings("unchecked")
-			T obj = (T) this.applicationContext.getBean(this.getDomainObjectClass());
-			
-			obj.setId(this.lastVirtualId--);
-			obj.setState(State.Detached);
-			
-			return obj;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@SuppressWarnings("unchecked")
-	public synchronized void reload() throws DALException, DomainException
-	{
-		try
-		{
-			this.notifyReload();
-			
-			for (SoftReference<T> loadedObjectRef : this.loadedObjects.values())
-			{
-				T existingObject = loadedObjectRef.get();
-				
-				if (existingObject != null) existingObject.setState(State.Detached);
-			}
-	
-			Collection<?> newDataObjects = (Collection<?>) this.getDataAccessObject().reloadAll();
-	
-			for (Object newObject : newDataObjects) 
-			{
-				DO newDataObject = (DO) newObject;
-				T newDomainObject = this.dataObjectToDomainObject(newDataObject, this.get(newDataObject.getId()));
-	
-				this.loadedObjects.put(newDomainObject.getId(), new SoftReference<T>(newDomainObject));
-			}
-			
-			Collection<Integer> existingObjectIds = new ArrayList<>(this.loadedObjects.keySet());
-			
-			for (int existingObjectId : existingObjectIds)
-			{
-				SoftReference<T> existingObjectRef = this.loadedObjects.get(existingObjectId);
-				T existingObject = existingObjectRef.get();
-				
-				if (existingObject == null) this.loadedObjects.remove(existingObjectId);
-				if (existingObject.getState() == State.Detached) this.loadedObjects.remove(existingObject.getId());
-			}
-		}
-		catch (DALException e)
-		{
-			throw e;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public T get(int id) throws DALException, DomainException
-	{
-		try
-		{
-			T domainObject = this.loadDomainObject(id);
-			
-			return domainObject;
-		}
-		catch (DALException e)
-		{
-			throw e;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@SuppressWarnings("unchecked")
-	public synchronized Collection<T> getAll() throws DALException, DomainException
-	{
-		try
-		{
-			Collection<?> newDataObjects = (Collection<?>) this.getDataAccessObject().getAll();
-			
-			for (Object newObject : newDataObjects) 
-			{
-				DO newDataObject = (DO) newObject;
-				T newDomainObject = this.dataObjectToDomainObject(newDataObject, this.get(newDataObject.getId()));
-				
-				this.loadedObjects.put(newDomainObject.getId(), new SoftReference<T>(newDomainObject));
-			}
-			
-			Collection<T> domainObjects = new ArrayList<T>(this.loadedObjects.size());
-	
-			for (int domainObjectId : this.loadedObjects.keySet())
-			{
-				T domainObject = this.loadDomainObject(domainObjectId);
-				
-				domainObjects.add(domainObject);
-			}
-			
-			return domainObjects;
-		}
-		catch (DALException e)
-		{
-			throw e;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public synchronized void add(T domainObject) throws DomainException
-	{
-		try
-		{
-			if (domainObject == null) throw new IllegalArgumentException("domainObject");
-			if ((domainObject.getState() != State.Detached) && (domainObject.getState() != State.Added)) throw new IllegalStateException();
-	
-			if (!this.loadedObjects.containsKey(domainObject.getId()))
-			{
-				this.loadedObjects.put(domainObject.getId(), new SoftReference<T>(domainObject));
-				
-				domainObject.setState(State.Added);
-				
-				this.notifyObjectAdded(domainObject);
-			}
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public synchronized void remove(T domainObject) throws DomainException
-	{
-		try
-		{
-			if (domainObject == null) throw new IllegalArgumentException("domainObject");
-	
-			if (this.loadedObjects.containsKey(domainObject.getId()))
-			{
-				this.loadedObjects.remove(domainObject.getId());
-				
-				if (domainObject.getState() == State.Unchanged)	domainObject.setState(State.Deleted);
-				if (domainObject.getState() == State.Modified)	domainObject.setState(State.Deleted);
-				if (domainObject.getState() == State.Added) domainObject.setState(State.Detached);
-				
-				this.notifyObjectRemoved(domainObject);
-			}
-			else
-			{
-				// The object doesn't exist in the repo anyways, so detach it.
-				domainObject.setState(State.Detached);
-			}
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public void setModified(T domainObject) throws DomainException
-	{
-		try
-		{
-			if (domainObject == null) throw new IllegalArgumentException("domainObject");
-			if (domainObject.getState() != State.Unchanged) return;
-			
-			domainObject.setState(State.Modified);
-			this.notifyObjectModified(domainObject);
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@SuppressWarnings("unchecked")
-	public void add(Object object) throws DomainException
-	{
-		try
-		{
-			T domainObject = (T) object;
-	
-			this.add(domainObject);
-		}
-		catch (DomainException e)
-		{
-			throw e;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@SuppressWarnings("unchecked")
-	public void remove(Object object) throws DomainException
-	{
-		try
-		{
-			T domainObject = (T) object;
-			
-			this.remove(domainObject);
-		}
-		catch (DomainException e)
-		{
-			throw e;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	@SuppressWarnings("unchecked")
-	public void setModified(Object object) throws DomainException
-	{
-		try
-		{
-			T domainObject = (T) object;
-			
-			this.setModified(domainObject);
-		}
-		catch (DomainException e)
-		{
-			throw e;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public synchronized void reset() throws DomainException
-	{
-		try
-		{
-			synchronized (this.changeListener)
-			{
-				this.changeListener.clear();
-				this.loadedObjects.clear();
-				this.resetVirtualDomainObjectId();
-			}
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-}
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Repository;
+
+import com.schoste.ddd.domain.v1.exceptions.DataObjectNullException;
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.models.DomainObject;
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+import com.schoste.ddd.domain.v1.models.LongDomainObject;
+import com.schoste.ddd.domain.v1.services.AutoObjectConverter;
+import com.schoste.ddd.domain.v1.services.DataObjectChangeSet;
+import com.schoste.ddd.domain.v1.services.GenericRepository;
+import com.schoste.ddd.domain.v1.services.LongDataAccessObject;
+import com.schoste.ddd.domain.v1.services.LongDataObject;
+import com.schoste.ddd.domain.v1.services.RepositoryChangeListener;
+import com.schoste.ddd.domain.v1.services.RepositorySnapshot;
+import com.schoste.ddd.domain.v1.services.UnitOfWork;
+import com.schoste.ddd.domain.v1.services.VersionedDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Implementation of the generic repository
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <T> the domain model class
+ * @param <DO> the data object class
+ */
+@Repository
+public abstract class GenericRepositoryImpl<T extends DomainObject, DO extends GenericDataObject> implements GenericRepository<T, DO> 
+{
+	/**
+	 * Entry of the identity map which references a loaded domain object
+	 * 
+	 * @param <T> the domain model class
+	 * @param <DO> the data object class
+	 */
+	protected static class LoadedObject<T, DO> extends SoftReference<T>
+	{
+		/**
+		 * The values of the domain object's properties when it was loaded
+		 * or null if they were not captured
+		 */
+		protected Object[] snapshot;
+
+		/**
+		 * The data object the domain object was loaded from or null if it is not known
+		 */
+		protected SoftReference<DO> dataObject;
+
+		public LoadedObject(T domainObject, DO dataObject)
+		{
+			super(domainObject);
+
+			if (dataObject != null) this.dataObject = new SoftReference<DO>(dataObject);
+		}
+	}
+
+	private static final int COMMIT_LOCK_STRIPES = 64;
+
+	@Autowired
+	protected ApplicationContext applicationContext;
+
+	@Autowired
+	protected AutoObjectConverter converter;
+	
+	/**
+	 * Guards the identity map. A lock is used instead of the monitor of the repository, so virtual threads
+	 * waiting for it don't pin their carrier threads. The data access object is not called while holding it
+	 * unless the repository is reloaded.
+	 */
+	protected final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Validates optimistic reads of the identity map (see {@see GenericRepositoryImpl#loadDomainObject(long)}).
+	 * Every change of the identity map takes its write lock in addition to the lock of the repository,
+	 * so lookups which hit the cache neither lock nor write shared state.
+	 */
+	protected final StampedLock identityMapLock = new StampedLock();
+
+	/**
+	 * Guards the ids of data objects while a Unit of Work checks and writes them, so commits
+	 * of disjoint ids proceed in parallel (see {@see StripedLock})
+	 */
+	final StripedLock commitLocks = new StripedLock(COMMIT_LOCK_STRIPES);
+	protected Set<RepositoryChangeListener> changeListener = new HashSet<RepositoryChangeListener>();
+	protected Set<Reference<? extends RepositoryChangeListener>> weakChangeListener = new HashSet<Reference<? extends RepositoryChangeListener>>();
+	protected ReferenceQueue<RepositoryChangeListener> collectedChangeListener = new ReferenceQueue<RepositoryChangeListener>();
+	protected LongObjectMap<LoadedObject<T, DO>> loadedObjects = new LongObjectMap<LoadedObject<T, DO>>();
+	protected long lastVirtualId = -1;
+
+	/**
+	 * The persisted data objects which are visible to snapshots. Like the identity map the data objects are
+	 * softly referenced, so they can be collected if memory gets low; only their ids are kept until the
+	 * repository is reloaded or reset.
+	 */
+	protected volatile PersistentLongMap<SoftReference<DO>> publishedDataObjects = PersistentLongMap.empty();
+	protected boolean dirtyChecking = false;
+	protected volatile HiLoIdAllocator idAllocator = null;
+
+	/**
+	 * Gets if the repository captures the values of loaded domain objects to detect
+	 * if they were actually changed.
+	 * 
+	 * @return true if dirty checking is enabled
+	 */
+	public boolean isDirtyChecking() { return this.dirtyChecking; }
+
+	/**
+	 * Sets if the repository captures the values of loaded domain objects to detect
+	 * if they were actually changed. If enabled, Units of Work will persist changed
+	 * domain objects even if they were not marked as modified and skip domain objects
+	 * which were marked as modified but not changed.
+	 * Only values which are converted automatically are compared. Don't enable dirty
+	 * checking if the afterAutoConversation methods convert values which may change
+	 * on their own. The values of domain objects which were loaded before dirty checking
+	 * was enabled are not captured, so their changes are only persisted if they are
+	 * marked as modified.
+	 * 
+	 * @param dirtyChecking true to enable dirty checking
+	 */
+	public void setDirtyChecking(boolean dirtyChecking) { this.dirtyChecking = dirtyChecking; }
+
+	/**
+	 * Gets the allocator of the ids of new domain objects
+	 * 
+	 * @return the allocator or null if new domain objects get virtual ids
+	 */
+	public HiLoIdAllocator getIdAllocator() { return this.idAllocator; }
+
+	/**
+	 * Sets the allocator of the ids of new domain objects. If set, {@see GenericRepositoryImpl#createObject()}
+	 * assigns final positive ids instead of virtual ones, so new domain objects can reference each other
+	 * by id before they are committed and need not be converted back after they were saved.
+	 * The data access object must keep the ids of the data objects it saves.
+	 * 
+	 * @param idAllocator the allocator or null to assign virtual ids
+	 */
+	public void setIdAllocator(HiLoIdAllocator idAllocator) { this.idAllocator = idAllocator; }
+
+	/**
+	 * Checks if a domain object was persisted already. Objects with allocated ids have positive
+	 * ids before they are persisted, so their state is checked as well.
+	 * 
+	 * @param domainObject the domain object to check
+	 * @return true if the domain object has an id of the data access object and is not new
+	 */
+	protected static boolean isPersisted(DomainObject domainObject)
+	{
+		return (getDomainObjectId(domainObject) > 0) && (domainObject.getState() != State.Added) && (domainObject.getState() != State.Detached);
+	}
+	
+	/**
+	 * Removes the weakly referenced listeners which were garbage collected.
+	 * Must be called while holding the monitor of the change listeners.
+	 */
+	private void removeCollectedChangeListeners()
+	{
+		for (Reference<? extends RepositoryChangeListener> collected; (collected = this.collectedChangeListener.poll()) != null; ) this.weakChangeListener.remove(collected);
+	}
+
+	/**
+	 * Gets the listeners which are notified when the repository changes.
+	 * The listeners are copied, so they are notified without holding the monitor of the change listeners.
+	 *
+	 * @param scoped true to skip the other UoWs if the Unit of Work (UoW) bound to the current thread
+	 * (see {@see UnitOfWorkScope}) is a listener; only changes of single objects are attributed to it
+	 */
+	private Collection<RepositoryChangeListener> getChangeListeners(boolean scoped)
+	{
+		Collection<RepositoryChangeListener> listeners;
+
+		synchronized (this.changeListener)
+		{
+			listeners = new ArrayList<RepositoryChangeListener>(this.changeListener.size() + this.weakChangeListener.size());
+
+			this.removeCollectedChangeListeners();
+
+			listeners.addAll(this.changeListener);
+
+			for (Reference<? extends RepositoryChangeListener> reference : this.weakChangeListener)
+			{
+				RepositoryChangeListener listener = reference.get();
+
+				if (listener != null) listeners.add(listener);
+			}
+		}
+
+		UnitOfWork currentUnitOfWork = scoped ? UnitOfWorkScope.current() : null;
+
+		if ((currentUnitOfWork != null) && listeners.contains(currentUnitOfWork))
+		{
+			// The changes are attributed to the bound UoW only
+			listeners.removeIf(listener -> (listener instanceof UnitOfWork) && (listener != currentUnitOfWork));
+		}
+
+		return listeners;
+	}
+
+	private void notifyObjectAdded(T domainObject)
+	{
+		try
+		{
+			for (RepositoryChangeListener listener : this.getChangeListeners(true)) listener.onObjectAdded(this, domainObject);
+		}
+		catch (Exception e)
+		{
+			System.err.println(e.getMessage());
+		}
+	}
+	
+	private void notifyObjectRemoved(T domainObject)
+	{
+		try
+		{
+			for (RepositoryChangeListener listener : this.getChangeListeners(true)) listener.onObjectRemoved(this, domainObject);
+		}
+		catch (Exception e)
+		{
+			System.err.println(e.getMessage());
+		}
+	}
+	
+	private void notifyObjectModified(T domainObject)
+	{
+		try
+		{
+			for (RepositoryChangeListener listener : this.getChangeListeners(true)) listener.onObjectModified(this, domainObject);
+		}
+		catch (Exception e)
+		{
+			System.err.println(e.getMessage());
+		}
+	}
+	
+	private void notifyReload()
+	{
+		try
+		{
+			for (RepositoryChangeListener listener : this.getChangeListeners(false)) listener.onReload(this);
+		}
+		catch (Exception e)
+		{
+			System.err.println(e.getMessage());
+		}
+	}
+
+	/**
+	 * Obtains the actual class of domain objects
+	 * 
+	 * @return the actual domain class
+	 * @throws IllegalStateException thrown if the actual domain class cannot be obtained
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("rawtypes")
+	protected Class getDomainObjectClass() throws IllegalStateException, Exception
+	{
+		Type[] types = ((ParameterizedType) this.getClass().getGenericSuperclass()).getActualTypeArguments();
+
+		if (types.length < 1) throw new IllegalStateException();
+
+		return (Class) types[0];
+	}
+	
+	/**
+	 * Obtains the actual class of data objects
+	 * 
+	 * @return the actual data class
+	 * @throws IllegalStateException thrown if the actual data class cannot be obtained
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("rawtypes")
+	protected Class getDataObjectClass() throws IllegalStateException, Exception
+	{
+		Type[] types = ((ParameterizedType) this.getClass().getGenericSuperclass()).getActualTypeArguments();
+
+		if (types.length < 2) throw new IllegalStateException();
+
+		return (Class) types[1];
+	}
+	
+	/**
+	 * Gets the data access object (DAO) which is used to actually persist
+	 * the domain models
+	 * 
+	 * @return a data access object (DAO)
+	 */
+	protected abstract GenericDataAccessObject<?> getDataAccessObject();
+
+	/**
+	 * Called by {@see GenericRepositoryImpl#dataObjectToDomainObject(GenericDataObject, DomainObject)}
+	 * after the domain object was enriched by the auto converter
+	 * 
+	 * @param dataObject the data object with source information
+	 * @param domainObject the domain object to enrich with information
+	 * @throws Exception re-throws every exception
+	 */
+	protected abstract void afterAutoConversation(DO dataObject, T domainObject) throws Exception;
+
+	/**
+	 * Creates a new domain model or updates an existing from a data object.
+	 * When overwriting this method <b>DO NOT</b> set the id of the domain object.
+	 * <b>Rather call the method of the super class.</b> The method of the super class will
+	 * update the id and <b>it will make sure the object in the repository is updated too!</b>
+	 * The returned domain model is supposed to have the state Unchanged on return.
+	 * 
+	 * @param dataObject the data object a source
+	 * @param domainObject an existing domain model to update with the provided data object. If null a new one will be created
+	 * @return the new or updated domain model
+	 * @throws IllegalArgumentException thrown if the dataObject is null
+	 * @throws Exception re-throws every exception
+	 */
+	protected T dataObjectToDomainObject(DO dataObject, T domainObject) throws Exception
+	{
+		if (dataObject == null) throw new IllegalArgumentException("dataObject");
+		if (domainObject == null) domainObject = this.createObject(false);
+
+		// The values are converted without the lock, so commits of different domain objects don't wait for each other
+		this.converter.convert(dataObject, domainObject);
+		this.afterAutoConversation(dataObject, domainObject);
+
+		if (dataObject instanceof VersionedDataObject) domainObject.setVersion(((VersionedDataObject) dataObject).getVersion());
+
+		domainObject.setState(State.Unchanged);
+
+		LoadedObject<T, DO> loadedObject = this.createLoadedObject(domainObject, dataObject);
+
+		this.lock.lock();
+
+		try
+		{
+			// Check if the DO exists in the repo already and if so, update it
+			boolean existed = (this.removeIdentityMapEntry(getDomainObjectId(domainObject)) != null);
+		
+			setDomainObjectId(domainObject, getDataObjectId(dataObject));
+		
+			if (existed) this.putIdentityMapEntry(getDomainObjectId(domainObject), loadedObject);
+		
+			return domainObject;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Creates a new domain model or updates an existing from a data object by calling the
+	 * typed method dataObjectToDomainObject().
+	 * 
+	 * @param dataObject the data object a source
+	 * @param domainObject an existing domain model to update with the provided data object. If null a new one will be created
+	 * @return the new or updated domain model
+	 * @throws IllegalArgumentException if the classes of the dataObject or the domainObject do not match the classes of the repository or the data access object
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected T dataObjectToDomainObject(Object dataObject, Object domainObject) throws Exception
+	{
+		if ((dataObject != null) && (!this.getDataObjectClass().isInstance(dataObject))) throw new IllegalArgumentException("dataObject");
+		if ((domainObject != null) && (!this.getDomainObjectClass().isInstance(domainObject))) throw new IllegalArgumentException("domainObject");
+		
+		return this.dataObjectToDomainObject((DO) dataObject, (T) domainObject);
+	}
+
+	/**
+	 * Called by {@see GenericRepositoryImpl#domainObjectToDataObject(DomainObject)}
+	 * after the data object was enriched by the auto converter
+	 * 
+	 * @param domainObject the domain object to enrich with information with source information
+	 * @param dataObject the data object to enrich with information
+	 * @throws Exception re-throws every exception
+	 */
+	protected abstract void afterAutoConversation(T domainObject, DO dataObject) throws Exception;
+
+	/**
+	 * Creates a data object from a given domain model (so it can be persisted).
+	 * When overwriting this method <b>make sure to call the method of the super class.</b>
+	 * When calling the method of the super class, the repository will check if there
+	 * already exists a data object with the given id that you need to update.
+	 * If the domain object was loaded by the repository, a copy of the data object it was loaded
+	 * from is updated instead of reading the data object again.
+	 * 
+	 * @param domainObject the domain model to create the data object from
+	 * @return a data object or null if no data object exists yet for the given domain model's id
+	 * @throws IllegalArgumentException thrown when any of the parameters is null
+	 * @throw DataObjectNullException thrown if no data object could be created
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected DO domainObjectToDataObject(T domainObject) throws Exception
+	{
+		if (domainObject == null) throw new IllegalArgumentException("domainObject");
+
+		DO dataObject = null;
+
+		if (isPersisted(domainObject))
+		{
+			// Prefer a copy of the data object the domain object was loaded from over reading it again
+			DO loadedDataObject = this.getLoadedDataObject(domainObject);
+
+			dataObject = (loadedDataObject != null) ? (DO) loadedDataObject.clone() : (DO) this.getDataObject(getDomainObjectId(domainObject));
+		}
+		else dataObject = (DO) this.getDataAccessObject().createDataObject();
+
+		if (dataObject == null) throw new DataObjectNullException(this.getDataAccessObject().getClass());
+
+		setDataObjectId(dataObject, getDomainObjectId(domainObject));
+		dataObject.setIsDeleted(false);
+
+		if (dataObject instanceof VersionedDataObject) ((VersionedDataObject) dataObject).setVersion(domainObject.getVersion());
+
+		this.converter.convert(domainObject, dataObject);
+		this.afterAutoConversation(domainObject, dataObject);
+
+		return dataObject;
+	}
+	
+	/**
+	 * Creates a data object from a given domain model (so it can be persisted)
+	 * 
+	 * @param domainObject the domain model to create the data object from
+	 * @return a data object
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected DO domainObjectToDataObject(Object domainObject) throws Exception
+	{
+		if ((domainObject != null) && (!this.getDomainObjectClass().isInstance(domainObject))) throw new IllegalArgumentException("domainObject");
+		
+		return this.domainObjectToDataObject((T) domainObject);
+	}
+	
+	/**
+	 * Gets the id of a domain object. The long id is used if the domain object implements {@see LongDomainObject}.
+	 * 
+	 * @param domainObject the domain object to get the id of
+	 * @return the id of the domain object
+	 */
+	protected static long getDomainObjectId(DomainObject domainObject)
+	{
+		return (domainObject instanceof LongDomainObject) ? ((LongDomainObject) domainObject).getLongId() : domainObject.getId();
+	}
+
+	/**
+	 * Sets the id of a domain object. The long id is set if the domain object implements {@see LongDomainObject}.
+	 * 
+	 * @param domainObject the domain object to set the id of
+	 * @param id the id to set
+	 * @throws ArithmeticException thrown if the id exceeds the range of int and the domain object has no long id
+	 */
+	protected static void setDomainObjectId(DomainObject domainObject, long id)
+	{
+		if (domainObject instanceof LongDomainObject) ((LongDomainObject) domainObject).setLongId(id);
+		else domainObject.setId(Math.toIntExact(id));
+	}
+
+	/**
+	 * Gets the id of a data object. The long id is used if the data object implements {@see LongDataObject}.
+	 * 
+	 * @param dataObject the data object to get the id of
+	 * @return the id of the data object
+	 */
+	protected static long getDataObjectId(GenericDataObject dataObject)
+	{
+		return (dataObject instanceof LongDataObject) ? ((LongDataObject) dataObject).getLongId() : dataObject.getId();
+	}
+
+	/**
+	 * Sets the id of a data object. The long id is set if the data object implements {@see LongDataObject}.
+	 * 
+	 * @param dataObject the data object to set the id of
+	 * @param id the id to set
+	 * @throws ArithmeticException thrown if the id exceeds the range of int and the data object has no long id
+	 */
+	protected static void setDataObjectId(GenericDataObject dataObject, long id)
+	{
+		if (dataObject instanceof LongDataObject) ((LongDataObject) dataObject).setLongId(id);
+		else dataObject.setId(Math.toIntExact(id));
+	}
+
+	/**
+	 * Reads the data object with the given id from the DAO.
+	 * Ids exceeding the range of int can only be read from DAOs implementing {@see LongDataAccessObject}.
+	 * 
+	 * @param id the id of the data object
+	 * @return the data object or null if it does not exist
+	 * @throws DALException re-throws exceptions from the data access layer
+	 * @throws ArithmeticException thrown if the id exceeds the range of int and the DAO doesn't support long ids
+	 */
+	protected GenericDataObject getDataObject(long id) throws DALException
+	{
+		GenericDataAccessObject<?> dao = this.getDataAccessObject();
+
+		if (dao instanceof LongDataAccessObject) return ((LongDataAccessObject<?>) dao).get(id);
+
+		return dao.get(Math.toIntExact(id));
+	}
+
+	/**
+	 * Gets the data object a loaded domain object was converted from the last time.
+	 * The data object must not be changed; use a clone instead.
+	 * 
+	 * @param domainObject the domain object to get the data object for
+	 * @return the data object or null if it is not known or was evicted
+	 */
+	protected DO getLoadedDataObject(T domainObject)
+	{
+		this.lock.lock();
+
+		try
+		{
+			LoadedObject<T, DO> loadedObject = this.loadedObjects.get(getDomainObjectId(domainObject));
+
+			if ((loadedObject == null) || (loadedObject.get() != domainObject)) return null;
+
+			DO dataObject = (loadedObject.dataObject != null) ? loadedObject.dataObject.get() : null;
+
+			// The published data object is the one the domain object was loaded from as well
+			return (dataObject != null) ? dataObject : this.getPublishedDataObject(getDomainObjectId(domainObject));
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the data object a loaded domain object was converted from the last time by calling
+	 * the typed method getLoadedDataObject().
+	 * 
+	 * @param domainObject the domain object to get the data object for
+	 * @return the data object or null if it is not known or was evicted
+	 */
+	@SuppressWarnings("unchecked")
+	protected DO getLoadedDataObject(Object domainObject)
+	{
+		return this.getLoadedDataObject((T) domainObject);
+	}
+
+	/**
+	 * Gets the published data object with the given id
+	 * 
+	 * @param id the id of the data object
+	 * @return the data object or null if it was not published or was collected
+	 */
+	protected DO getPublishedDataObject(long id)
+	{
+		SoftReference<DO> reference = this.publishedDataObjects.get(id);
+
+		return (reference != null) ? reference.get() : null;
+	}
+
+	/**
+	 * Publishes persisted data objects to snapshots taken afterwards (see {@see GenericRepositoryImpl#snapshot()}).
+	 * The data objects must not be changed after they were published.
+	 * 
+	 * @param dataObjects the data objects which were loaded or saved
+	 * @param removedIds the ids of data objects which were deleted
+	 */
+	@SuppressWarnings("unchecked")
+	protected void publishDataObjects(Collection<? extends GenericDataObject> dataObjects, Collection<Long> removedIds)
+	{
+		this.lock.lock();
+
+		try
+		{
+			PersistentLongMap<SoftReference<DO>> publishedDataObjects = this.publishedDataObjects;
+
+			for (long removedId : removedIds) publishedDataObjects = publishedDataObjects.minus(removedId);
+			for (GenericDataObject dataObject : dataObjects) publishedDataObjects = publishedDataObjects.plus(getDataObjectId(dataObject), new SoftReference<DO>((DO) dataObject));
+
+			this.publishedDataObjects = publishedDataObjects;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Publishes the references of data objects again which were published before,
+	 * e.g. to undo the publication of a commit which failed
+	 * 
+	 * @param references the references by the ids of the data objects; null values remove the ids
+	 */
+	@SuppressWarnings("unchecked")
+	protected void republishDataObjects(Map<Long, ? extends SoftReference<? extends GenericDataObject>> references)
+	{
+		this.lock.lock();
+
+		try
+		{
+			PersistentLongMap<SoftReference<DO>> publishedDataObjects = this.publishedDataObjects;
+
+			for (Map.Entry<Long, ? extends SoftReference<? extends GenericDataObject>> reference : references.entrySet())
+			{
+				if (reference.getValue() != null) publishedDataObjects = publishedDataObjects.plus(reference.getKey(), (SoftReference<DO>) reference.getValue());
+				else publishedDataObjects = publishedDataObjects.minus(reference.getKey());
+			}
+
+			this.publishedDataObjects = publishedDataObjects;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Creates a detached domain object from a published data object for a snapshot.
+	 * Doesn't need the lock of the repository.
+	 * 
+	 * @param dataObject the published data object
+	 * @return the new domain object
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected T createSnapshotObject(DO dataObject) throws Exception
+	{
+		T domainObject = (T) this.applicationContext.getBean(this.getDomainObjectClass());
+
+		this.converter.convert(dataObject, domainObject);
+		this.afterAutoConversation(dataObject, domainObject);
+
+		if (dataObject instanceof VersionedDataObject) domainObject.setVersion(((VersionedDataObject) dataObject).getVersion());
+
+		setDomainObjectId(domainObject, getDataObjectId(dataObject));
+		domainObject.setState(State.Detached);
+
+		return domainObject;
+	}
+
+	/**
+	 * Puts a domain object into the identity map of the repository.
+	 * If dirty checking is enabled and the domain object is unchanged its values are captured.
+	 * 
+	 * @param domainObject the domain object to put into the identity map
+	 * @param dataObject the data object the domain object was converted from or null if there is none
+	 * @throws Exception re-throws every exception
+	 */
+	protected void putLoadedObject(T domainObject, DO dataObject) throws Exception
+	{
+		LoadedObject<T, DO> loadedObject = this.createLoadedObject(domainObject, dataObject);
+
+		this.lock.lock();
+
+		try
+		{
+			this.putIdentityMapEntry(getDomainObjectId(domainObject), loadedObject);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Creates an entry of the identity map for a domain object and captures its values if dirty checking
+	 * is enabled and the domain object is unchanged. Doesn't need the lock of the repository.
+	 * 
+	 * @param domainObject the domain object to reference
+	 * @param dataObject the data object the domain object was converted from or null if there is none
+	 * @return the new entry
+	 * @throws Exception re-throws every exception
+	 */
+	protected LoadedObject<T, DO> createLoadedObject(T domainObject, DO dataObject) throws Exception
+	{
+		LoadedObject<T, DO> loadedObject = new LoadedObject<T, DO>(domainObject, dataObject);
+
+		if (this.dirtyChecking && (domainObject.getState() == State.Unchanged)) loadedObject.snapshot = this.converter.getConvertedValues(domainObject, this.getDataObjectClass());
+
+		return loadedObject;
+	}
+
+	/**
+	 * Replaces the entry of a domain object if the domain object is the one in the identity map
+	 * 
+	 * @param domainObject the domain object whose entry to replace
+	 * @param loadedObject the new entry
+	 */
+	private void replaceLoadedObject(T domainObject, LoadedObject<T, DO> loadedObject)
+	{
+		this.lock.lock();
+
+		try
+		{
+			if (this.getCachedDomainObject(getDomainObjectId(domainObject)) == domainObject) this.putIdentityMapEntry(getDomainObjectId(domainObject), loadedObject);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the properties of a domain object which were changed since it was loaded.
+	 * The properties are identified by their index in the values returned by
+	 * {@see AutoObjectConverter#getConvertedValues(Object, Class)}.
+	 * 
+	 * @param domainObject the domain object to check
+	 * @return the indexes of the changed properties or null if they are unknown (e.g. dirty checking is disabled)
+	 * @throws Exception re-throws every exception
+	 */
+	protected BitSet getModifiedProperties(Object domainObject) throws Exception
+	{
+		if ((!this.dirtyChecking) || (!(domainObject instanceof DomainObject))) return null;
+
+		LoadedObject<T, DO> loadedObject;
+
+		this.lock.lock();
+
+		try
+		{
+			loadedObject = this.loadedObjects.get(getDomainObjectId((DomainObject) domainObject));
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+
+		if ((loadedObject == null) || (loadedObject.get() != domainObject) || (loadedObject.snapshot == null)) return null;
+
+		return this.getModifiedProperties(domainObject, loadedObject.snapshot);
+	}
+
+	/**
+	 * Compares the values of a domain object with the values which were captured.
+	 * The captured values are never changed, so they are compared without the lock.
+	 * 
+	 * @param domainObject the domain object to check
+	 * @param snapshot the captured values of the domain object
+	 * @return the indexes of the changed properties
+	 * @throws Exception re-throws every exception
+	 */
+	private BitSet getModifiedProperties(Object domainObject, Object[] snapshot) throws Exception
+	{
+		Object[] values = this.converter.getConvertedValues(domainObject, this.getDataObjectClass());
+		BitSet modifiedProperties = new BitSet(values.length);
+
+		for (int i=0; i<values.length; i++)
+		{
+			if (!Objects.deepEquals(snapshot[i], values[i])) modifiedProperties.set(i);
+		}
+
+		return modifiedProperties;
+	}
+
+	/**
+	 * Checks if a domain object was actually changed since it was loaded.
+	 * If dirty checking is disabled or the values of the domain object were not captured
+	 * the domain object is always considered as modified.
+	 * 
+	 * @param domainObject the domain object to check
+	 * @return false if the domain object has still the values it was loaded with, true otherwise
+	 * @throws Exception re-throws every exception
+	 */
+	protected boolean isModified(Object domainObject) throws Exception
+	{
+		BitSet modifiedProperties = this.getModifiedProperties(domainObject);
+
+		return (modifiedProperties == null) || (!modifiedProperties.isEmpty());
+	}
+
+	/**
+	 * Marks a domain object as unchanged after its changes were persisted without converting
+	 * the persisted data object back and captures its values again.
+	 * 
+	 * @param domainObject the domain object which was persisted
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected void resetModified(Object domainObject) throws Exception
+	{
+		if (!(domainObject instanceof DomainObject)) return;
+
+		T typedDomainObject = (T) domainObject;
+
+		typedDomainObject.setState(State.Unchanged);
+
+		this.replaceLoadedObject(typedDomainObject, this.createLoadedObject(typedDomainObject, this.getLoadedDataObject(typedDomainObject)));
+	}
+
+	/**
+	 * Marks a domain object as unchanged after its changed properties were written by a partial update
+	 * and applies them to a copy of the data object it was loaded from.
+	 * 
+	 * @param domainObject the domain object which was persisted
+	 * @param modifiedProperties the indexes of the written properties
+	 * @param changedDataObject the data object of the change set which was written
+	 * @return the data object which now matches the persisted one or null if the domain object was not loaded by the repository
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected DO afterPartialUpdate(Object domainObject, BitSet modifiedProperties, GenericDataObject changedDataObject) throws Exception
+	{
+		T typedDomainObject = (T) domainObject;
+		DO loadedDataObject = this.getLoadedDataObject(typedDomainObject);
+		DO dataObject = null;
+
+		if (changedDataObject instanceof VersionedDataObject) typedDomainObject.setVersion(((VersionedDataObject) changedDataObject).getVersion());
+
+		if (loadedDataObject != null)
+		{
+			dataObject = (DO) loadedDataObject.clone();
+
+			this.converter.convert(domainObject, dataObject, modifiedProperties);
+
+			if (dataObject instanceof VersionedDataObject) ((VersionedDataObject) dataObject).setVersion(typedDomainObject.getVersion());
+		}
+
+		typedDomainObject.setState(State.Unchanged);
+
+		this.replaceLoadedObject(typedDomainObject, this.createLoadedObject(typedDomainObject, dataObject));
+
+		return dataObject;
+	}
+
+	/**
+	 * Marks a new domain object as unchanged after it was saved without converting the saved data object back.
+	 * This is only possible if the data access object kept the id of the domain object, i.e. if it was
+	 * assigned by the id allocator.
+	 * 
+	 * @param domainObject the domain object which was persisted
+	 * @param dataObject the data object which was saved
+	 * @return true if the domain object was updated, false if it must be converted from the data object
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected boolean afterInsert(Object domainObject, GenericDataObject dataObject) throws Exception
+	{
+		T typedDomainObject = (T) domainObject;
+		long id = getDomainObjectId(typedDomainObject);
+
+		if ((id <= 0) || (id != getDataObjectId(dataObject))) return false;
+
+		if (dataObject instanceof VersionedDataObject) typedDomainObject.setVersion(((VersionedDataObject) dataObject).getVersion());
+
+		typedDomainObject.setState(State.Unchanged);
+
+		// The id didn't change, so the entry is replaced in place instead of being removed and put again
+		this.replaceLoadedObject(typedDomainObject, this.createLoadedObject(typedDomainObject, (DO) dataObject));
+
+		return true;
+	}
+
+	/**
+	 * Creates the change set of the changed properties of a domain object.
+	 * Only properties which are converted automatically are part of the change set.
+	 * The data object is created by the DAO and not read from it.
+	 * 
+	 * @param domainObject the domain object to create the change set for
+	 * @param modifiedProperties the indexes of the changed properties as returned by {@see GenericRepositoryImpl#getModifiedProperties(Object)}
+	 * @return the change set
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected DataObjectChangeSet<DO> createChangeSet(Object domainObject, BitSet modifiedProperties) throws Exception
+	{
+		DO dataObject = (DO) this.getDataAccessObject().createDataObject();
+		String[] propertyNames = this.converter.getConvertedPropertyNames(this.getDomainObjectClass(), this.getDataObjectClass());
+		Set<String> changedProperties = new HashSet<String>();
+
+		for (int i = modifiedProperties.nextSetBit(0); i >= 0; i = modifiedProperties.nextSetBit(i+1)) changedProperties.add(propertyNames[i]);
+
+		setDataObjectId(dataObject, getDomainObjectId((DomainObject) domainObject));
+
+		if (dataObject instanceof VersionedDataObject) ((VersionedDataObject) dataObject).setVersion(((DomainObject) domainObject).getVersion());
+
+		this.converter.convert(domainObject, dataObject, modifiedProperties);
+
+		return new DataObjectChangeSet<DO>(dataObject, changedProperties);
+	}
+
+	/**
+	 * Marks all loaded domain objects as modified whose values were changed since they were captured.
+	 * Domain objects whose values were not captured (e.g. because they were loaded before dirty checking
+	 * was enabled) are skipped; they must be marked as modified explicitly.
+	 * Does nothing if dirty checking is disabled.
+	 * The values of every loaded domain object are converted and compared, so every commit costs time
+	 * proportional to the number of loaded domain objects. They are compared without holding the lock
+	 * of the repository.
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	protected void detectModifiedObjects() throws Exception
+	{
+		if (!this.dirtyChecking) return;
+
+		Collection<LoadedObject<T, DO>> loadedObjects;
+
+		this.lock.lock();
+
+		try
+		{
+			loadedObjects = new ArrayList<LoadedObject<T, DO>>(this.loadedObjects.values());
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+
+		for (LoadedObject<T, DO> loadedObject : loadedObjects)
+		{
+			T domainObject = loadedObject.get();
+
+			if ((domainObject == null) || (loadedObject.snapshot == null) || (domainObject.getState() != State.Unchanged)) continue;
+			if (this.getModifiedProperties(domainObject, loadedObject.snapshot).isEmpty()) continue;
+
+			// The entry may have been replaced after it was copied, e.g. by a commit which captured the values again
+			BitSet modifiedProperties = this.getModifiedProperties(domainObject);
+
+			if ((modifiedProperties != null) && (!modifiedProperties.isEmpty())) this.setModified(domainObject);
+		}
+	}
+
+	/**
+	 * Creates a data object with the current values of a domain object without reading the data access object,
+	 * so the values can be restored later by {@see GenericRepositoryImpl#restoreDomainObject(Object, GenericDataObject, State)}.
+	 * 
+	 * @param domainObject the domain object to copy the values from
+	 * @return the new data object
+	 * @throws DataObjectNullException thrown if the DAO did not create a data object
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected DO createBeforeImage(Object domainObject) throws DataObjectNullException, Exception
+	{
+		T typedDomainObject = (T) domainObject;
+		DO dataObject = (DO) this.getDataAccessObject().createDataObject();
+
+		if (dataObject == null) throw new DataObjectNullException(this.getDataAccessObject().getClass());
+
+		this.converter.convert(typedDomainObject, dataObject);
+		this.afterAutoConversation(typedDomainObject, dataObject);
+
+		if (dataObject instanceof VersionedDataObject) ((VersionedDataObject) dataObject).setVersion(typedDomainObject.getVersion());
+
+		return dataObject;
+	}
+
+	/**
+	 * Sets the values of a domain object back to the values of a data object without changing its id.
+	 * If the domain object becomes unchanged again, its values are captured again for dirty checking.
+	 * 
+	 * @param domainObject the domain object to restore
+	 * @param beforeImage the data object with the values to restore or null to restore the persisted values
+	 * @param state the state of the domain object after it was restored
+	 * @throws IllegalStateException thrown if no before image is given and the domain object is not persisted
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected void restoreDomainObject(Object domainObject, GenericDataObject beforeImage, State state) throws IllegalStateException, Exception
+	{
+		T typedDomainObject = (T) domainObject;
+		long id = getDomainObjectId(typedDomainObject);
+		DO dataObject = (DO) ((beforeImage != null) ? beforeImage : this.getDataObject(id));
+
+		if (dataObject == null) throw new IllegalStateException();
+
+		this.lock.lock();
+
+		try
+		{
+			this.converter.convert(dataObject, typedDomainObject);
+			this.afterAutoConversation(dataObject, typedDomainObject);
+
+			if (dataObject instanceof VersionedDataObject) typedDomainObject.setVersion(((VersionedDataObject) dataObject).getVersion());
+
+			typedDomainObject.setState(state);
+
+			LoadedObject<T, DO> loadedObject = this.loadedObjects.get(id);
+
+			if ((state == State.Unchanged) && (loadedObject != null) && (loadedObject.get() == typedDomainObject)) this.putLoadedObject(typedDomainObject, dataObject);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Puts a removed domain object back into the identity map without notifying the change listeners.
+	 * A domain object which was loaded with the same id in the meantime is replaced.
+	 * 
+	 * @param domainObject the domain object which was removed
+	 * @param state the state of the domain object before it was removed
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected void restoreRemovedObject(Object domainObject, State state) throws Exception
+	{
+		this.lock.lock();
+
+		try
+		{
+			T typedDomainObject = (T) domainObject;
+
+			typedDomainObject.setState(state);
+
+			this.putLoadedObject(typedDomainObject, this.getPublishedDataObject(getDomainObjectId(typedDomainObject)));
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Gets the entry of the identity map which references a domain object
+	 *
+	 * @param domainObject the domain object to get the entry for
+	 * @return the entry or null if the domain object is not in the identity map
+	 */
+	protected LoadedObject<T, DO> getLoadedObject(DomainObject domainObject)
+	{
+		this.lock.lock();
+
+		try
+		{
+			LoadedObject<T, DO> loadedObject = this.loadedObjects.get(getDomainObjectId(domainObject));
+
+			return ((loadedObject != null) && (loadedObject.get() == domainObject)) ? loadedObject : null;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Sets the id, the version and the state of a domain object back to the ones it had before a commit
+	 * which was undone and puts its previous entry back into the identity map. The values of the domain
+	 * object are kept, so its changes can be committed again.
+	 *
+	 * @param domainObject the domain object which was committed
+	 * @param id the id of the domain object before the commit
+	 * @param version the version of the domain object before the commit
+	 * @param state the state of the domain object before the commit
+	 * @param loadedObject the entry of the domain object before the commit or null if it was not in the identity map
+	 */
+	@SuppressWarnings("unchecked")
+	protected void restoreCommittedObject(DomainObject domainObject, long id, int version, State state, LoadedObject<?, ?> loadedObject)
+	{
+		this.lock.lock();
+
+		try
+		{
+			long committedId = getDomainObjectId(domainObject);
+
+			// Persisting a new domain object may have moved its entry to the id of the data object
+			if (this.getCachedDomainObject(committedId) == domainObject) this.removeIdentityMapEntry(committedId);
+
+			setDomainObjectId(domainObject, id);
+			domainObject.setVersion(version);
+			domainObject.setState(state);
+
+			if (loadedObject != null) this.putIdentityMapEntry(id, (LoadedObject<T, DO>) loadedObject);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Makes sure the next virtual id is lower than the virtual ids of all domain objects in the repository.
+	 * Virtual ids are never reused, because callers may still reference domain objects by virtual ids
+	 * which are not in the repository anymore (e.g. because they were removed or the repository was reset).
+	 */
+	protected void resetVirtualDomainObjectId()
+	{
+		this.lock.lock();
+
+		try
+		{
+			long minVirtualId = 0;
+		
+			for (long domainObjectId : this.loadedObjects.keys()) minVirtualId = Math.min(minVirtualId, domainObjectId);
+		
+			this.lastVirtualId = Math.min(this.lastVirtualId, minVirtualId -1);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * Puts an entry into the identity map. Must be called while holding the lock of the repository.
+	 */
+	private void putIdentityMapEntry(long id, LoadedObject<T, DO> loadedObject)
+	{
+		long stamp = this.identityMapLock.writeLock();
+
+		try
+		{
+			this.loadedObjects.put(id, loadedObject);
+		}
+		finally
+		{
+			this.identityMapLock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Removes an entry from the identity map. Must be called while holding the lock of the repository.
+	 */
+	private LoadedObject<T, DO> removeIdentityMapEntry(long id)
+	{
+		long stamp = this.identityMapLock.writeLock();
+
+		try
+		{
+			return this.loadedObjects.remove(id);
+		}
+		finally
+		{
+			this.identityMapLock.unlockWrite(stamp);
+		}
+	}
+
+	/**
+	 * Gets a domain object from the cache. Must be called while holding the lock of the repository.
+	 * 
+	 * @param id the id of the domain object to get
+	 * @return the domain object or null if it was not loaded yet or was removed from cache
+	 */
+	private T getCachedDomainObject(long id)
+	{
+		LoadedObject<T, DO> refToDomainObject = this.loadedObjects.get(id);
+
+		return (refToDomainObject != null) ? refToDomainObject.get() : null;
+	}
+
+	/**
+	 * Tries to get a domain object from the cache. If it isn't found in cache
+	 * (either because it expired or was not loaded yet) it is reloaded from DAL.
+	 * The cache is read optimistically first, so hits don't lock. The data object is read
+	 * without holding the lock of the repository, so threads waiting for the DAL don't block each other.
+	 * 
+	 * @param id the id of the domain object to get/load
+	 * @return the domain object with the given id or null if it does not exist at all
+	 * @throws Exception re-throws every exception
+	 */
+	@SuppressWarnings("unchecked")
+	protected T loadDomainObject(long id) throws Exception
+	{
+		long stamp = this.identityMapLock.tryOptimisticRead();
+		LoadedObject<T, DO> refToDomainObject = this.loadedObjects.getOptimistically(id);
+		T domainObject = (refToDomainObject != null) ? refToDomainObject.get() : null;
+
+		// The entry which was read is only trusted if the identity map was not changed in the meantime
+		if ((domainObject != null) && this.identityMapLock.validate(stamp)) return domainObject;
+
+		this.lock.lock();
+
+		try
+		{
+			domainObject = this.getCachedDomainObject(id);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+
+		if (domainObject != null) return domainObject;
+
+		// The object was not loaded yet or was removed from cache; reload it
+		DO dataObject = (DO) this.getDataObject(id);
+
+		if (dataObject == null) return null;
+
+		this.lock.lock();
+
+		try
+		{
+			// Another thread may have loaded the object while the data object was read
+			domainObject = this.getCachedDomainObject(id);
+
+			if (domainObject == null)
+			{
+				// An object with the given id exists in the DAL; load it
+				domainObject = this.createObject(false);
+				domainObject = this.dataObjectToDomainObject(dataObject, domainObject);
+				
+				this.putLoadedObject(domainObject, dataObject);
+				this.publishDataObjects(Collections.singleton(dataObject), Collections.emptySet());
+			}
+
+			return domainObject;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addChangeListener(RepositoryChangeListener listener)
+	{
+		synchronized (this.changeListener)
+		{
+			if (listener != null) this.changeListener.add(listener);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public void addWeakChangeListener(RepositoryChangeListener listener)
+	{
+		synchronized (this.changeListener)
+		{
+			this.removeCollectedChangeListeners();
+
+			if (listener != null) this.weakChangeListener.add(new WeakReference<RepositoryChangeListener>(listener, this.collectedChangeListener));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void removeChangeListener(RepositoryChangeListener listener)
+	{
+		synchronized (this.changeListener)
+		{
+			if (listener == null) return;
+
+			this.changeListener.remove(listener);
+			this.weakChangeListener.removeIf(reference -> reference.get() == listener);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public T createObject() throws DomainException
+	{
+		return this.createObject(true);
+	}
+
+	/**
+	 * Creates a new detached domain object
+	 * 
+	 * @param allocateId true to assign an id of the id allocator (if set), false to assign a virtual id
+	 * (e.g. because the domain object is loaded and gets the id of its data object anyway)
+	 * @return the new domain object
+	 * @throws DomainException re-throws every exception as {@see DomainException}
+	 */
+	protected T createObject(boolean allocateId) throws DomainException
+	{
+		try
+		{
+			@SuppressWarnings("unchecked")
+			T obj = (T) this.applicationContext.getBean(this.getDomainObjectClass());
+			HiLoIdAllocator idAllocator = this.idAllocator;
+			long id;
+
+			// Ids are allocated without the lock, because reserving a block writes the file of the allocator
+			if (allocateId && (idAllocator != null)) id = idAllocator.nextId();
+			else
+			{
+				this.lock.lock();
+
+				try
+				{
+					id = this.lastVirtualId--;
+				}
+				finally
+				{
+					this.lock.unlock();
+				}
+			}
+			
+			setDomainObjectId(obj, id);
+			obj.setState(State.Detached);
+			
+			return obj;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	public void reload() throws DALException, DomainException
+	{
+		try
+		{
+			// The data objects are read before the lock is acquired, so the identity map is not locked during I/O
+			Collection<?> newDataObjects = (Collection<?>) this.getDataAccessObject().reloadAll();
+
+			this.lock.lock();
+
+			try
+			{
+				this.notifyReload();
+				
+				for (LoadedObject<T, DO> loadedObjectRef : this.loadedObjects.values())
+				{
+					T existingObject = loadedObjectRef.get();
+					
+					if (existingObject != null) existingObject.setState(State.Detached);
+				}
+		
+				PersistentLongMap<SoftReference<DO>> reloadedDataObjects = PersistentLongMap.empty();
+		
+				for (Object newObject : newDataObjects) 
+				{
+					DO newDataObject = (DO) newObject;
+					T newDomainObject = this.dataObjectToDomainObject(newDataObject, this.getCachedDomainObject(getDataObjectId(newDataObject)));
+		
+					this.putLoadedObject(newDomainObject, newDataObject);
+					
+					reloadedDataObjects = reloadedDataObjects.plus(getDataObjectId(newDataObject), new SoftReference<DO>(newDataObject));
+				}
+				
+				// Snapshots see either the state before or after reloading
+				this.publishedDataObjects = reloadedDataObjects;
+				
+				for (long existingObjectId : this.loadedObjects.keys())
+				{
+					LoadedObject<T, DO> existingObjectRef = this.loadedObjects.get(existingObjectId);
+					T existingObject = existingObjectRef.get();
+					
+					if (existingObject == null) this.removeIdentityMapEntry(existingObjectId);
+					else if (existingObject.getState() == State.Detached) this.removeIdentityMapEntry(getDomainObjectId(existingObject));
+				}
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+		}
+		catch (DALException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public T get(int id) throws DALException, DomainException
+	{
+		return this.get((long) id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public T get(long id) throws DALException, DomainException
+	{
+		try
+		{
+			T domainObject = this.loadDomainObject(id);
+			
+			return domainObject;
+		}
+		catch (DALException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The snapshot doesn't keep the data objects from being collected if memory gets low. Data objects
+	 * which were collected are read from the data access object again, so their domain objects have the
+	 * state which is persisted when they are read.
+	 */
+	public RepositorySnapshot<T> snapshot() throws DomainException
+	{
+		return new RepositorySnapshotImpl<T, DO>(this, this.publishedDataObjects);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<T> getAll() throws DALException, DomainException
+	{
+		try
+		{
+			// The data objects are read before the lock is acquired, so the identity map is not locked during I/O
+			Collection<?> newDataObjects = (Collection<?>) this.getDataAccessObject().getAll();
+
+			this.lock.lock();
+
+			try
+			{
+				for (Object newObject : newDataObjects) 
+				{
+					DO newDataObject = (DO) newObject;
+					T newDomainObject = this.dataObjectToDomainObject(newDataObject, this.getCachedDomainObject(getDataObjectId(newDataObject)));
+					
+					this.putLoadedObject(newDomainObject, newDataObject);
+				}
+				
+				this.publishDataObjects((Collection<? extends GenericDataObject>) newDataObjects, Collections.emptySet());
+				
+				Collection<T> domainObjects = new ArrayList<T>(this.loadedObjects.size());
+		
+				for (long domainObjectId : this.loadedObjects.keys())
+				{
+					T domainObject = this.getCachedDomainObject(domainObjectId);
+					
+					if (domainObject != null) domainObjects.add(domainObject);
+				}
+				
+				return domainObjects;
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+		}
+		catch (DALException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public void add(T domainObject) throws DomainException
+	{
+		this.lock.lock();
+
+		try
+		{
+			if (domainObject == null) throw new IllegalArgumentException("domainObject");
+			if ((domainObject.getState() != State.Detached) && (domainObject.getState() != State.Added)) throw new IllegalStateException();
+
+			if (!this.loadedObjects.containsKey(getDomainObjectId(domainObject)))
+			{
+				domainObject.setState(State.Added);
+			
+				this.putLoadedObject(domainObject, null);
+			
+				this.notifyObjectAdded(domainObject);
+			}
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	public void remove(T domainObject) throws DomainException
+	{
+		this.lock.lock();
+
+		try
+		{
+			if (domainObject == null) throw new IllegalArgumentException("domainObject");
+
+			if (this.loadedObjects.containsKey(getDomainObjectId(domainObject)))
+			{
+				this.removeIdentityMapEntry(getDomainObjectId(domainObject));
+			
+				if (domainObject.getState() == State.Unchanged)	domainObject.setState(State.Deleted);
+				if (domainObject.getState() == State.Modified)	domainObject.setState(State.Deleted);
+				if (domainObject.getState() == State.Added) domainObject.setState(State.Detached);
+			
+				this.notifyObjectRemoved(domainObject);
+			}
+			else
+			{
+				// The object doesn't exist in the repo anyways, so detach it.
+				domainObject.setState(State.Detached);
+			}
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void setModified(T domainObject) throws DomainException
+	{
+		try
+		{
+			if (domainObject == null) throw new IllegalArgumentException("domainObject");
+			if (domainObject.getState() != State.Unchanged) return;
+			
+			domainObject.setState(State.Modified);
+			this.notifyObjectModified(domainObject);
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	public void add(Object object) throws DomainException
+	{
+		try
+		{
+			T domainObject = (T) object;
+	
+			this.add(domainObject);
+		}
+		catch (DomainException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	public void remove(Object object) throws DomainException
+	{
+		try
+		{
+			T domainObject = (T) object;
+			
+			this.remove(domainObject);
+		}
+		catch (DomainException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@SuppressWarnings("unchecked")
+	public void setModified(Object object) throws DomainException
+	{
+		try
+		{
+			T domainObject = (T) object;
+			
+			this.setModified(domainObject);
+		}
+		catch (DomainException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void reset() throws DomainException
+	{
+		this.lock.lock();
+
+		try
+		{
+			synchronized (this.changeListener)
+			{
+				this.changeListener.clear();
+				this.weakChangeListener.clear();
+
+				long stamp = this.identityMapLock.writeLock();
+
+				try
+				{
+					this.loadedObjects.clear();
+				}
+				finally
+				{
+					this.identityMapLock.unlockWrite(stamp);
+				}
+
+				this.publishedDataObjects = PersistentLongMap.empty();
+				this.resetVirtualDomainObjectId();
+			}
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+}
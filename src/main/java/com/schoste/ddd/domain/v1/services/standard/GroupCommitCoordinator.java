@@ -0,0 +1,368 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.domain.v1.services.DataObjectChangeSet;
+import com.schoste.ddd.domain.v1.services.PartialUpdateDataAccessObject;
+import com.schoste.ddd.domain.v1.services.VersionedDataAccessObject;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Merges the writes of concurrent Units of Work (UoW) into one call of the data access object (DAO)
+ * per DAO and phase of the commit. The first write of a batch waits until the batch window elapsed or
+ * the batch reached its maximum size and then writes the data objects of all UoWs which joined the batch.
+ * Every UoW continues its commit as soon as the batch it joined was written. If the DAO rejects a batch
+ * because of a version conflict (see {@see VersionedDataAccessObject}), the writes of the batch are retried
+ * one by one, so only the conflicting writes fail.
+ * The same coordinator must be set on all UoWs whose writes should be merged
+ * (see {@see UnitOfWorkImpl#setGroupCommitCoordinator(GroupCommitCoordinator)}).
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class GroupCommitCoordinator
+{
+	/**
+	 * Phases of a commit which write data objects
+	 */
+	enum Operation { Delete, SaveNew, SaveExisting }
+
+	/**
+	 * Prepares a write right before the data objects are written (e.g. checks the versions of the data objects).
+	 * The caller guards the data objects against other writes (see {@see StripedLock}), so preparations
+	 * of disjoint data objects run in parallel.
+	 */
+	@FunctionalInterface
+	static interface Preparation
+	{
+		void prepare() throws Exception;
+	}
+
+	private static record BatchKey(GenericDataAccessObject<?> dao, Operation operation) { }
+
+	private static class Write
+	{
+		private final GenericDataObject[] dataObjects;
+		private final DataObjectChangeSet<?>[] changeSets;
+		private final Preparation preparation;
+		private final CompletableFuture<Void> result = new CompletableFuture<Void>();
+
+		private Write(GenericDataObject[] dataObjects, DataObjectChangeSet<?>[] changeSets, Preparation preparation)
+		{
+			this.dataObjects = dataObjects;
+			this.changeSets = changeSets;
+			this.preparation = preparation;
+		}
+	}
+
+	private static class Batch
+	{
+		private final List<Write> writes = new ArrayList<Write>();
+		private int size = 0;
+	}
+
+	private static final Map<GenericDataAccessObject<?>, ReentrantLock> writeLocks = Collections.synchronizedMap(new WeakHashMap<GenericDataAccessObject<?>, ReentrantLock>());
+
+	private final long batchWindow;
+	private final int maxBatchSize;
+	private final Map<BatchKey, Batch> openBatches = new HashMap<BatchKey, Batch>();
+	private final ReentrantLock batchLock = new ReentrantLock();
+	private final Condition batchClosed = this.batchLock.newCondition();
+
+	/**
+	 * Gets the lock which is held while data objects are written to a DAO. A lock is used instead of
+	 * the monitor of the DAO, so virtual threads waiting for a write don't pin their carrier threads.
+	 *
+	 * @param dao the DAO to get the lock of
+	 * @return the lock of the DAO
+	 */
+	static ReentrantLock getWriteLock(GenericDataAccessObject<?> dao)
+	{
+		return writeLocks.computeIfAbsent(dao, key -> new ReentrantLock());
+	}
+
+	/**
+	 * Prepares data objects and writes them to a DAO. Only the call of the DAO waits for other writes of the DAO.
+	 *
+	 * @param dao the DAO to write to
+	 * @param operation the phase of the commit
+	 * @param dataObjects the data objects to save or delete
+	 * @param changeSets the changed properties of data objects to update (only for existing data objects)
+	 * @param preparation the preparation of the write
+	 * @throws Exception re-throws every exception
+	 */
+	static void write(GenericDataAccessObject<?> dao, Operation operation, GenericDataObject[] dataObjects, DataObjectChangeSet<?>[] changeSets, Preparation preparation) throws Exception
+	{
+		ReentrantLock writeLock = getWriteLock(dao);
+
+		preparation.prepare();
+
+		writeLock.lock();
+
+		try
+		{
+			write(dao, operation, dataObjects, changeSets);
+		}
+		finally
+		{
+			writeLock.unlock();
+		}
+	}
+
+	private static void write(GenericDataAccessObject<?> dao, Operation operation, GenericDataObject[] dataObjects, DataObjectChangeSet<?>[] changeSets) throws Exception
+	{
+		if ((operation == Operation.SaveExisting) && (changeSets.length > 0)) update(dao, changeSets);
+
+		write(dao, operation, dataObjects);
+	}
+
+	/**
+	 * Saves or deletes data objects. Existing data objects are only written if their versions match
+	 * if the DAO supports it.
+	 */
+	private static void write(GenericDataAccessObject<?> dao, Operation operation, GenericDataObject[] dataObjects) throws Exception
+	{
+		switch (operation)
+		{
+			case Delete:
+				if (dao instanceof VersionedDataAccessObject) ((VersionedDataAccessObject<?>) dao).deleteIfUnchanged(dataObjects);
+				else dao.delete(dataObjects);
+				break;
+
+			case SaveNew:
+				dao.save(dataObjects);
+				break;
+
+			case SaveExisting:
+				if (dao instanceof VersionedDataAccessObject) ((VersionedDataAccessObject<?>) dao).saveIfUnchanged(dataObjects);
+				else dao.save(dataObjects);
+				break;
+		}
+	}
+
+	private static void update(GenericDataAccessObject<?> dao, DataObjectChangeSet<?>[] changeSets) throws Exception
+	{
+		if (dao instanceof VersionedDataAccessObject) ((VersionedDataAccessObject<?>) dao).updateIfUnchanged(changeSets);
+		else ((PartialUpdateDataAccessObject<?>) dao).update(changeSets);
+	}
+
+	/**
+	 * Writes the change sets or the data objects of several writes at once. If the DAO rejects them because of a
+	 * version conflict, nothing was written and the writes are retried one by one. Writes which fail are completed.
+	 *
+	 * @return the writes which were written
+	 */
+	private static List<Write> write(GenericDataAccessObject<?> dao, Operation operation, List<Write> writes, boolean changeSets) throws Exception
+	{
+		List<GenericDataObject> mergedDataObjects = new ArrayList<GenericDataObject>();
+		List<DataObjectChangeSet<?>> mergedChangeSets = new ArrayList<DataObjectChangeSet<?>>();
+
+		for (Write write : writes)
+		{
+			mergedDataObjects.addAll(Arrays.asList(write.dataObjects));
+			mergedChangeSets.addAll(Arrays.asList(write.changeSets));
+		}
+
+		try
+		{
+			if (!changeSets) write(dao, operation, mergedDataObjects.toArray(new GenericDataObject[mergedDataObjects.size()]));
+			else if (!mergedChangeSets.isEmpty()) update(dao, mergedChangeSets.toArray(new DataObjectChangeSet<?>[mergedChangeSets.size()]));
+
+			return writes;
+		}
+		catch (ConcurrencyConflictException e)
+		{
+			if (writes.size() == 1) throw e;
+		}
+
+		List<Write> writtenWrites = new ArrayList<Write>(writes.size());
+
+		for (Write write : writes)
+		{
+			try
+			{
+				if (!changeSets) write(dao, operation, write.dataObjects);
+				else if (write.changeSets.length > 0) update(dao, write.changeSets);
+
+				writtenWrites.add(write);
+			}
+			catch (ConcurrencyConflictException e)
+			{
+				write.result.completeExceptionally(e);
+			}
+		}
+
+		return writtenWrites;
+	}
+
+	private static void write(GenericDataAccessObject<?> dao, Operation operation, Batch batch)
+	{
+		List<Write> preparedWrites = new ArrayList<Write>(batch.writes.size());
+
+		// A write which cannot be prepared fails on its own
+		for (Write write : batch.writes)
+		{
+			try
+			{
+				write.preparation.prepare();
+
+				preparedWrites.add(write);
+			}
+			catch (Exception e)
+			{
+				write.result.completeExceptionally(e);
+			}
+		}
+
+		ReentrantLock writeLock = getWriteLock(dao);
+
+		writeLock.lock();
+
+		try
+		{
+			List<Write> writtenWrites = preparedWrites;
+
+			if (!writtenWrites.isEmpty() && (operation == Operation.SaveExisting)) writtenWrites = write(dao, operation, writtenWrites, true);
+			if (!writtenWrites.isEmpty()) writtenWrites = write(dao, operation, writtenWrites, false);
+
+			for (Write write : writtenWrites) write.result.complete(null);
+		}
+		catch (Throwable e)
+		{
+			for (Write write : preparedWrites) write.result.completeExceptionally(e);
+		}
+		finally
+		{
+			writeLock.unlock();
+		}
+	}
+
+	/**
+	 * Creates a new coordinator
+	 *
+	 * @param batchWindow the time in milliseconds the first write of a batch waits for other writes to join
+	 * @param maxBatchSize the number of data objects after which a batch is written without waiting any longer
+	 * @throws IllegalArgumentException thrown if the window is negative or the size is not positive
+	 */
+	public GroupCommitCoordinator(long batchWindow, int maxBatchSize)
+	{
+		if (batchWindow < 0) throw new IllegalArgumentException("batchWindow");
+		if (maxBatchSize < 1) throw new IllegalArgumentException("maxBatchSize");
+
+		this.batchWindow = batchWindow;
+		this.maxBatchSize = maxBatchSize;
+	}
+
+	/**
+	 * Gets the time the first write of a batch waits for other writes to join
+	 *
+	 * @return the time in milliseconds
+	 */
+	public long getBatchWindow() { return this.batchWindow; }
+
+	/**
+	 * Gets the number of data objects after which a batch is written without waiting any longer
+	 *
+	 * @return the number of data objects
+	 */
+	public int getMaxBatchSize() { return this.maxBatchSize; }
+
+	/**
+	 * Writes data objects to a DAO together with the data objects of the other UoWs which write to the
+	 * same DAO in the same phase at about the same time. Returns after the data objects were written.
+	 *
+	 * @param dao the DAO to write to
+	 * @param operation the phase of the commit
+	 * @param dataObjects the data objects to save or delete
+	 * @param changeSets the changed properties of data objects to update (only for existing data objects)
+	 * @param preparation the preparation of the write
+	 * @throws Exception re-throws every exception of the preparation or the DAO
+	 */
+	void submit(GenericDataAccessObject<?> dao, Operation operation, GenericDataObject[] dataObjects, DataObjectChangeSet<?>[] changeSets, Preparation preparation) throws Exception
+	{
+		BatchKey key = new BatchKey(dao, operation);
+		Write write = new Write(dataObjects, changeSets, preparation);
+		Batch batch;
+		boolean isLeader;
+
+		this.batchLock.lock();
+
+		try
+		{
+			batch = this.openBatches.get(key);
+			isLeader = (batch == null);
+
+			if (isLeader)
+			{
+				batch = new Batch();
+				this.openBatches.put(key, batch);
+			}
+
+			batch.writes.add(write);
+			batch.size += dataObjects.length + changeSets.length;
+
+			// A full batch is closed, so the leader stops waiting
+			if (batch.size >= this.maxBatchSize)
+			{
+				this.openBatches.remove(key);
+				this.batchClosed.signalAll();
+			}
+		}
+		finally
+		{
+			this.batchLock.unlock();
+		}
+
+		if (isLeader)
+		{
+			boolean interrupted = false;
+
+			this.batchLock.lock();
+
+			try
+			{
+				long remaining = TimeUnit.MILLISECONDS.toNanos(this.batchWindow);
+
+				while ((this.openBatches.get(key) == batch) && (remaining > 0)) remaining = this.batchClosed.awaitNanos(remaining);
+			}
+			catch (InterruptedException e)
+			{
+				// The batch is written anyway because the other UoWs wait for it
+				interrupted = true;
+			}
+			finally
+			{
+				this.openBatches.remove(key, batch);
+				this.batchLock.unlock();
+			}
+
+			write(dao, operation, batch);
+
+			if (interrupted) Thread.currentThread().interrupt();
+		}
+
+		try
+		{
+			write.result.get();
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+
+			throw e;
+		}
+	}
+}
@@ -0,0 +1,145 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Allocates final ids for new domain objects in blocks (hi/lo). The first id of the next free
+ * block is persisted in a local file, so ids are never handed out twice, even across restarts.
+ * Ids within a reserved block are handed out without I/O; the file is only written (and forced
+ * to disk) when a new block is reserved. Ids of a block which is not used up are lost when the
+ * allocator is closed.
+ * Processes sharing the file reserve blocks under a file lock. Within a process only one allocator
+ * may be opened per file. The allocator must own the ids of the data access objects it is used for,
+ * i.e. the data access objects must not generate ids of that range themselves.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class HiLoIdAllocator implements Closeable
+{
+	private final FileChannel channel;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final int blockSize;
+	private final long firstId;
+	private long nextId = 0;
+	private long blockEnd = 0;
+
+	/**
+	 * Opens the allocator. A new file is created if it doesn't exist.
+	 *
+	 * @param path the path of the file which stores the next free block
+	 * @param blockSize the number of ids which are reserved at once
+	 * @throws IllegalArgumentException thrown if path is null or blockSize is not positive
+	 * @throws IOException thrown if the file cannot be opened
+	 */
+	public HiLoIdAllocator(Path path, int blockSize) throws IllegalArgumentException, IOException
+	{
+		this(path, blockSize, 1);
+	}
+
+	/**
+	 * Opens the allocator. A new file is created if it doesn't exist.
+	 *
+	 * @param path the path of the file which stores the next free block
+	 * @param blockSize the number of ids which are reserved at once
+	 * @param firstId the first id to allocate if the file is new, e.g. to skip the ids of existing data objects
+	 * @throws IllegalArgumentException thrown if path is null or blockSize or firstId is not positive
+	 * @throws IOException thrown if the file cannot be opened
+	 */
+	public HiLoIdAllocator(Path path, int blockSize, long firstId) throws IllegalArgumentException, IOException
+	{
+		if (path == null) throw new IllegalArgumentException("path");
+		if (blockSize < 1) throw new IllegalArgumentException("blockSize");
+		if (firstId < 1) throw new IllegalArgumentException("firstId");
+
+		this.blockSize = blockSize;
+		this.firstId = firstId;
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Gets the number of ids which are reserved at once
+	 *
+	 * @return the block size
+	 */
+	public int getBlockSize() { return this.blockSize; }
+
+	/**
+	 * Allocates the next id
+	 *
+	 * @return a positive id which was not allocated before
+	 * @throws IOException thrown if a new block cannot be reserved
+	 */
+	public long nextId() throws IOException
+	{
+		this.lock.lock();
+
+		try
+		{
+			if (this.nextId >= this.blockEnd) this.reserveBlock();
+
+			return this.nextId++;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Reserves the next free block and persists the first id of the block after it
+	 *
+	 * @throws IOException thrown if the file cannot be read or written
+	 */
+	private void reserveBlock() throws IOException
+	{
+		FileLock fileLock = this.channel.lock();
+
+		try
+		{
+			ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+			long blockStart = this.firstId;
+
+			if (this.channel.size() >= Long.BYTES)
+			{
+				while (buffer.hasRemaining()) this.channel.read(buffer, buffer.position());
+
+				blockStart = buffer.flip().getLong();
+			}
+
+			long nextBlockStart = Math.addExact(blockStart, this.blockSize);
+
+			buffer.clear().putLong(nextBlockStart).flip();
+
+			while (buffer.hasRemaining()) this.channel.write(buffer, buffer.position());
+
+			// The block is only handed out when it cannot be reserved again after a crash
+			this.channel.force(false);
+
+			this.nextId = blockStart;
+			this.blockEnd = nextBlockStart;
+		}
+		finally
+		{
+			fileLock.release();
+		}
+	}
+
+	/**
+	 * Closes the file. The remaining ids of the current block are lost.
+	 *
+	 * @throws IOException thrown if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+}
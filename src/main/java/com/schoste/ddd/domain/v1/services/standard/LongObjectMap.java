@@ -0,0 +1,268 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Map from primitive long keys to objects which doesn't box its keys.
+ * Entries are stored in two arrays using open addressing with linear probing.
+ * Null values are not supported. The map is not thread safe, but values can be read optimistically
+ * while it is changed (see {@see LongObjectMap#getOptimistically(long)}).
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <V> the class of the values
+ */
+public class LongObjectMap<V>
+{
+	private static final int MIN_CAPACITY = 16;
+
+	private long[] keys;
+	private Object[] values;
+	private int size = 0;
+
+	private static int hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+
+		return (int) (h ^ (h >>> 32));
+	}
+
+	private int indexOf(long key)
+	{
+		int mask = this.keys.length -1;
+
+		for (int i = hash(key) & mask; this.values[i] != null; i = (i+1) & mask)
+		{
+			if (this.keys[i] == key) return i;
+		}
+
+		return -1;
+	}
+
+	private void resize(int capacity)
+	{
+		long[] oldKeys = this.keys;
+		Object[] oldValues = this.values;
+		int mask = capacity -1;
+
+		this.keys = new long[capacity];
+		this.values = new Object[capacity];
+
+		for (int i=0; i<oldValues.length; i++)
+		{
+			if (oldValues[i] == null) continue;
+
+			int index = hash(oldKeys[i]) & mask;
+
+			while (this.values[index] != null) index = (index+1) & mask;
+
+			this.keys[index] = oldKeys[i];
+			this.values[index] = oldValues[i];
+		}
+	}
+
+	/**
+	 * Creates a new empty map
+	 */
+	public LongObjectMap()
+	{
+		this.keys = new long[MIN_CAPACITY];
+		this.values = new Object[MIN_CAPACITY];
+	}
+
+	/**
+	 * Gets the number of entries
+	 *
+	 * @return the number of entries
+	 */
+	public int size() { return this.size; }
+
+	/**
+	 * Checks if the map has no entries
+	 *
+	 * @return true if the map has no entries
+	 */
+	public boolean isEmpty() { return (this.size == 0); }
+
+	/**
+	 * Checks if the map has an entry for the given key
+	 *
+	 * @param key the key to look for
+	 * @return true if there is an entry for the key
+	 */
+	public boolean containsKey(long key) { return (this.indexOf(key) >= 0); }
+
+	/**
+	 * Gets the value of the given key
+	 *
+	 * @param key the key to get the value of
+	 * @return the value or null if there is no entry for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		int index = this.indexOf(key);
+
+		return (index >= 0) ? (V) this.values[index] : null;
+	}
+
+	/**
+	 * Gets the value of the given key while the map may be changed by another thread. The result may be wrong
+	 * then, so it must be validated afterwards, e.g. by {@see java.util.concurrent.locks.StampedLock#validate(long)}.
+	 * Unlike {@see LongObjectMap#get(long)} the method neither throws nor loops forever if it sees a map
+	 * which is changed halfway.
+	 *
+	 * @param key the key to get the value of
+	 * @return the value or null if there is no entry for the key (or the map was changed concurrently)
+	 */
+	@SuppressWarnings("unchecked")
+	public V getOptimistically(long key)
+	{
+		long[] keys = this.keys;
+		Object[] values = this.values;
+
+		// The arrays may stem from different resizes; both lengths are powers of two
+		int length = Math.min(keys.length, values.length);
+		int mask = length -1;
+
+		for (int i = hash(key) & mask, probes = 0; probes < length; i = (i+1) & mask, probes++)
+		{
+			Object value = values[i];
+
+			if (value == null) return null;
+			if (keys[i] == key) return (V) value;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Sets the value of the given key
+	 *
+	 * @param key the key to set the value of
+	 * @param value the value to set
+	 * @return the previous value of the key or null if there was none
+	 * @throws IllegalArgumentException thrown if value is null
+	 */
+	@SuppressWarnings("unchecked")
+	public V put(long key, V value)
+	{
+		if (value == null) throw new IllegalArgumentException("value");
+
+		// Keep the load factor at 0.5 at most
+		if ((this.size +1) * 2 > this.keys.length) this.resize(this.keys.length * 2);
+
+		int mask = this.keys.length -1;
+		int index = hash(key) & mask;
+
+		while (this.values[index] != null)
+		{
+			if (this.keys[index] == key)
+			{
+				V oldValue = (V) this.values[index];
+
+				this.values[index] = value;
+
+				return oldValue;
+			}
+
+			index = (index+1) & mask;
+		}
+
+		this.keys[index] = key;
+		this.values[index] = value;
+		this.size++;
+
+		return null;
+	}
+
+	/**
+	 * Removes the entry of the given key
+	 *
+	 * @param key the key of the entry to remove
+	 * @return the removed value or null if there was no entry for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V remove(long key)
+	{
+		int index = this.indexOf(key);
+
+		if (index < 0) return null;
+
+		V oldValue = (V) this.values[index];
+		int mask = this.keys.length -1;
+
+		this.values[index] = null;
+		this.size--;
+
+		// Move following entries of the same probe sequence into the gap
+		for (int i = (index+1) & mask; this.values[i] != null; i = (i+1) & mask)
+		{
+			int home = hash(this.keys[i]) & mask;
+
+			if (((i - home) & mask) >= ((i - index) & mask))
+			{
+				this.keys[index] = this.keys[i];
+				this.values[index] = this.values[i];
+				this.values[i] = null;
+
+				index = i;
+			}
+		}
+
+		return oldValue;
+	}
+
+	/**
+	 * Removes all entries
+	 */
+	public void clear()
+	{
+		if (this.keys.length > MIN_CAPACITY)
+		{
+			this.keys = new long[MIN_CAPACITY];
+			this.values = new Object[MIN_CAPACITY];
+		}
+		else Arrays.fill(this.values, null);
+
+		this.size = 0;
+	}
+
+	/**
+	 * Gets a copy of all keys
+	 *
+	 * @return the keys of all entries
+	 */
+	public long[] keys()
+	{
+		long[] keys = new long[this.size];
+		int index = 0;
+
+		for (int i=0; i<this.values.length; i++)
+		{
+			if (this.values[i] != null) keys[index++] = this.keys[i];
+		}
+
+		return keys;
+	}
+
+	/**
+	 * Gets a copy of all values
+	 *
+	 * @return the values of all entries
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<V> values()
+	{
+		Collection<V> values = new ArrayList<V>(this.size);
+
+		for (Object value : this.values)
+		{
+			if (value != null) values.add((V) value);
+		}
+
+		return values;
+	}
+}
@@ -0,0 +1,305 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Immutable map from primitive long keys to objects.
+ * Changing the map creates a new map which shares all unchanged parts with the old one
+ * (hash array mapped trie), so old versions of the map can be read without locking while
+ * new versions are created. Null values are not supported.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <V> the class of the values
+ */
+public final class PersistentLongMap<V>
+{
+	private static final int BITS = 5;
+	private static final int MASK = (1 << BITS) -1;
+
+	private static final PersistentLongMap<?> EMPTY = new PersistentLongMap<Object>(null, 0);
+
+	private static final class Leaf
+	{
+		private final long key;
+		private final Object value;
+
+		private Leaf(long key, Object value)
+		{
+			this.key = key;
+			this.value = value;
+		}
+	}
+
+	private static final class Node
+	{
+		private final int bitmap;
+		private final Object[] children;
+
+		private Node(int bitmap, Object[] children)
+		{
+			this.bitmap = bitmap;
+			this.children = children;
+		}
+	}
+
+	private final Node root;
+	private final int size;
+
+	/**
+	 * Spreads the bits of the key. The function is a bijection, so different keys never
+	 * share the same path through the trie.
+	 */
+	private static long hash(long key)
+	{
+		long h = key * 0x9E3779B97F4A7C15L;
+
+		return h ^ (h >>> 32);
+	}
+
+	private static int bit(long hash, int shift)
+	{
+		return 1 << ((int) (hash >>> shift) & MASK);
+	}
+
+	private static int index(int bitmap, int bit)
+	{
+		return Integer.bitCount(bitmap & (bit -1));
+	}
+
+	private static Node merge(Leaf leaf1, Leaf leaf2, int shift)
+	{
+		int bit1 = bit(hash(leaf1.key), shift);
+		int bit2 = bit(hash(leaf2.key), shift);
+
+		if (bit1 == bit2) return new Node(bit1, new Object[] { merge(leaf1, leaf2, shift + BITS) });
+		if (Integer.compareUnsigned(bit1, bit2) < 0) return new Node(bit1 | bit2, new Object[] { leaf1, leaf2 });
+
+		return new Node(bit1 | bit2, new Object[] { leaf2, leaf1 });
+	}
+
+	private static Node plus(Node node, long hash, int shift, Leaf leaf, boolean[] added)
+	{
+		int bit = bit(hash, shift);
+		int index = index(node.bitmap, bit);
+
+		if ((node.bitmap & bit) == 0)
+		{
+			Object[] children = new Object[node.children.length +1];
+
+			System.arraycopy(node.children, 0, children, 0, index);
+			System.arraycopy(node.children, index, children, index +1, node.children.length - index);
+			children[index] = leaf;
+			added[0] = true;
+
+			return new Node(node.bitmap | bit, children);
+		}
+
+		Object child = node.children[index];
+		Object newChild;
+
+		if (child instanceof Node) newChild = plus((Node) child, hash, shift + BITS, leaf, added);
+		else if (((Leaf) child).key == leaf.key) newChild = leaf;
+		else
+		{
+			newChild = merge((Leaf) child, leaf, shift + BITS);
+			added[0] = true;
+		}
+
+		Object[] children = node.children.clone();
+
+		children[index] = newChild;
+
+		return new Node(node.bitmap, children);
+	}
+
+	/**
+	 * Removes the key from the node.
+	 *
+	 * @return the node itself if the key was not found, null if the node became empty,
+	 * a leaf if only a leaf remained or the new node
+	 */
+	private static Object minus(Node node, long hash, int shift, long key)
+	{
+		int bit = bit(hash, shift);
+
+		if ((node.bitmap & bit) == 0) return node;
+
+		int index = index(node.bitmap, bit);
+		Object child = node.children[index];
+		Object newChild;
+
+		if (child instanceof Node) newChild = minus((Node) child, hash, shift + BITS, key);
+		else newChild = (((Leaf) child).key == key) ? null : child;
+
+		if (newChild == child) return node;
+
+		if (newChild == null)
+		{
+			if (node.children.length == 1) return null;
+
+			Object[] children = new Object[node.children.length -1];
+
+			System.arraycopy(node.children, 0, children, 0, index);
+			System.arraycopy(node.children, index +1, children, index, children.length - index);
+
+			// A single leaf can take the place of its node
+			if ((children.length == 1) && (children[0] instanceof Leaf)) return children[0];
+
+			return new Node(node.bitmap & ~bit, children);
+		}
+
+		if ((node.children.length == 1) && (newChild instanceof Leaf)) return newChild;
+
+		Object[] children = node.children.clone();
+
+		children[index] = newChild;
+
+		return new Node(node.bitmap, children);
+	}
+
+	private static void collect(Node node, Collection<Object> values)
+	{
+		for (Object child : node.children)
+		{
+			if (child instanceof Node) collect((Node) child, values);
+			else values.add(((Leaf) child).value);
+		}
+	}
+
+	private static int collectKeys(Node node, long[] keys, int index)
+	{
+		for (Object child : node.children)
+		{
+			if (child instanceof Node) index = collectKeys((Node) child, keys, index);
+			else keys[index++] = ((Leaf) child).key;
+		}
+
+		return index;
+	}
+
+	private PersistentLongMap(Node root, int size)
+	{
+		this.root = root;
+		this.size = size;
+	}
+
+	/**
+	 * Gets the empty map
+	 *
+	 * @param <V> the class of the values
+	 * @return the empty map
+	 */
+	@SuppressWarnings("unchecked")
+	public static <V> PersistentLongMap<V> empty()
+	{
+		return (PersistentLongMap<V>) EMPTY;
+	}
+
+	/**
+	 * Gets the number of entries
+	 *
+	 * @return the number of entries
+	 */
+	public int size() { return this.size; }
+
+	/**
+	 * Gets the value of the given key
+	 *
+	 * @param key the key to get the value of
+	 * @return the value or null if there is no entry for the key
+	 */
+	@SuppressWarnings("unchecked")
+	public V get(long key)
+	{
+		long hash = hash(key);
+		Node node = this.root;
+
+		for (int shift = 0; node != null; shift += BITS)
+		{
+			int bit = bit(hash, shift);
+
+			if ((node.bitmap & bit) == 0) return null;
+
+			Object child = node.children[index(node.bitmap, bit)];
+
+			if (child instanceof Leaf) return (((Leaf) child).key == key) ? (V) ((Leaf) child).value : null;
+
+			node = (Node) child;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Creates a map which contains the entries of this map and the given entry
+	 *
+	 * @param key the key of the entry
+	 * @param value the value of the entry
+	 * @return the new map
+	 * @throws IllegalArgumentException thrown if value is null
+	 */
+	public PersistentLongMap<V> plus(long key, V value)
+	{
+		if (value == null) throw new IllegalArgumentException("value");
+
+		Leaf leaf = new Leaf(key, value);
+
+		if (this.root == null) return new PersistentLongMap<V>(new Node(bit(hash(key), 0), new Object[] { leaf }), 1);
+
+		boolean[] added = new boolean[1];
+		Node root = plus(this.root, hash(key), 0, leaf, added);
+
+		return new PersistentLongMap<V>(root, added[0] ? this.size +1 : this.size);
+	}
+
+	/**
+	 * Creates a map which contains the entries of this map except the entry of the given key
+	 *
+	 * @param key the key of the entry to leave out
+	 * @return the new map or this map if it has no entry for the key
+	 */
+	public PersistentLongMap<V> minus(long key)
+	{
+		if (this.root == null) return this;
+
+		long hash = hash(key);
+		Object root = minus(this.root, hash, 0, key);
+
+		if (root == this.root) return this;
+		if (root == null) return empty();
+		if (root instanceof Leaf) return new PersistentLongMap<V>(new Node(bit(hash(((Leaf) root).key), 0), new Object[] { root }), this.size -1);
+
+		return new PersistentLongMap<V>((Node) root, this.size -1);
+	}
+
+	/**
+	 * Gets all keys
+	 *
+	 * @return the keys of all entries
+	 */
+	public long[] keys()
+	{
+		long[] keys = new long[this.size];
+
+		if (this.root != null) collectKeys(this.root, keys, 0);
+
+		return keys;
+	}
+
+	/**
+	 * Gets all values
+	 *
+	 * @return the values of all entries
+	 */
+	@SuppressWarnings("unchecked")
+	public Collection<V> values()
+	{
+		Collection<Object> values = new ArrayList<Object>(this.size);
+
+		if (this.root != null) collect(this.root, values);
+
+		return (Collection<V>) values;
+	}
+}
@@ -0,0 +1,102 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.models.DomainObject;
+import com.schoste.ddd.domain.v1.services.RepositorySnapshot;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+
+/**
+ * Implementation of repository snapshots on top of the published data objects of a repository.
+ * Data objects which were collected since they were published are read from the data access object again.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <T> the domain object class
+ * @param <DO> the data object class
+ */
+class RepositorySnapshotImpl<T extends DomainObject, DO extends GenericDataObject> implements RepositorySnapshot<T>
+{
+	private final GenericRepositoryImpl<T, DO> repository;
+	private final PersistentLongMap<SoftReference<DO>> dataObjects;
+
+	public RepositorySnapshotImpl(GenericRepositoryImpl<T, DO> repository, PersistentLongMap<SoftReference<DO>> dataObjects)
+	{
+		this.repository = repository;
+		this.dataObjects = dataObjects;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public int size()
+	{
+		return this.dataObjects.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public T get(long id) throws DomainException
+	{
+		try
+		{
+			SoftReference<DO> reference = this.dataObjects.get(id);
+			DO dataObject = (reference != null) ? this.getDataObject(id, reference) : null;
+
+			return (dataObject != null) ? this.repository.createSnapshotObject(dataObject) : null;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public Collection<T> getAll() throws DomainException
+	{
+		try
+		{
+			Collection<T> domainObjects = new ArrayList<T>(this.dataObjects.size());
+
+			for (long id : this.dataObjects.keys())
+			{
+				DO dataObject = this.getDataObject(id, this.dataObjects.get(id));
+
+				if (dataObject != null) domainObjects.add(this.repository.createSnapshotObject(dataObject));
+			}
+
+			return domainObjects;
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * Gets a published data object or reads it again if it was collected.
+	 * The data object which is read reflects the state persisted at the time of reading.
+	 *
+	 * @param id the id of the data object
+	 * @param reference the reference to the published data object
+	 * @return the data object or null if it was deleted in the meantime
+	 * @throws DALException re-throws exceptions from the data access layer
+	 */
+	@SuppressWarnings("unchecked")
+	private DO getDataObject(long id, SoftReference<DO> reference) throws DALException
+	{
+		DO dataObject = reference.get();
+
+		return (dataObject != null) ? dataObject : (DO) this.repository.getDataObject(id);
+	}
+}
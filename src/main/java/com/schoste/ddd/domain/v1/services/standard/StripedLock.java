@@ -0,0 +1,111 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed number of locks (stripes) which guard ids. Every id maps to one stripe, so operations
+ * on disjoint ids usually proceed in parallel while operations on the same id are serialized.
+ * The stripes of several ids are always acquired in ascending order, so threads locking
+ * overlapping sets of ids cannot deadlock.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+class StripedLock
+{
+	/**
+	 * Stripes which were acquired together and are released together
+	 */
+	static final class Stripes
+	{
+		private final StripedLock stripedLock;
+		private final int[] indexes;
+
+		private Stripes(StripedLock stripedLock, int[] indexes)
+		{
+			this.stripedLock = stripedLock;
+			this.indexes = indexes;
+		}
+
+		/**
+		 * Releases the stripes in the reverse order they were acquired
+		 */
+		void unlock()
+		{
+			for (int i=this.indexes.length -1; i>=0; i--) this.stripedLock.stripes[this.indexes[i]].unlock();
+		}
+	}
+
+	private final ReentrantLock[] stripes;
+
+	/**
+	 * Creates new stripes
+	 *
+	 * @param stripes the number of stripes; rounded up to the next power of two
+	 * @throws IllegalArgumentException thrown if stripes is not positive
+	 */
+	StripedLock(int stripes) throws IllegalArgumentException
+	{
+		if (stripes < 1) throw new IllegalArgumentException("stripes");
+
+		int count = 1;
+
+		while (count < stripes) count <<= 1;
+
+		this.stripes = new ReentrantLock[count];
+
+		for (int i=0; i<this.stripes.length; i++) this.stripes[i] = new ReentrantLock();
+	}
+
+	/**
+	 * Gets the number of stripes
+	 *
+	 * @return the number of stripes
+	 */
+	int getStripeCount() { return this.stripes.length; }
+
+	/**
+	 * Gets the stripe which guards an id
+	 *
+	 * @param id the id
+	 * @return the index of the stripe
+	 */
+	int indexOf(long id)
+	{
+		long h = id * 0x9E3779B97F4A7C15L;
+
+		return (int) (h ^ (h >>> 32)) & (this.stripes.length -1);
+	}
+
+	/**
+	 * Acquires the stripes of the given ids in ascending order. Each stripe is acquired once,
+	 * even if several ids map to it.
+	 *
+	 * @param ids the ids to lock
+	 * @return the acquired stripes, which must be unlocked to release them
+	 */
+	Stripes lock(Collection<Long> ids)
+	{
+		int[] indexes = new int[ids.size()];
+		int count = 0;
+
+		for (long id : ids) indexes[count++] = this.indexOf(id);
+
+		Arrays.sort(indexes);
+
+		int distinct = 0;
+
+		for (int i=0; i<count; i++)
+		{
+			if ((distinct == 0) || (indexes[distinct -1] != indexes[i])) indexes[distinct++] = indexes[i];
+		}
+
+		int[] acquired = Arrays.copyOf(indexes, distinct);
+
+		for (int index : acquired) this.stripes[index].lock();
+
+		return new Stripes(this, acquired);
+	}
+}
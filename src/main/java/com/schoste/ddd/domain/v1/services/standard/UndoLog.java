@@ -0,0 +1,206 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+
+/**
+ * Log of the changes a Unit of Work (UoW) tracked since its last commit, in the order they were made.
+ * The log is used to undo the changes without reloading the repositories. Positions in the log
+ * can be named (savepoints), so only the changes made after a savepoint can be undone.
+ * Positions are sequence numbers of the entries, so they stay valid when entries are removed.
+ * The log is not thread-safe; the UoW guards it by the monitor of its change logs.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+class UndoLog
+{
+	/**
+	 * Kinds of changes which can be undone
+	 */
+	enum Kind { Added, Removed, Modified }
+
+	/**
+	 * Change of a single object
+	 */
+	static class Entry
+	{
+		private final Kind kind;
+		private final GenericRepositoryImpl<?,?> repository;
+		private final Object object;
+		private final State state;
+		private final GenericDataObject beforeImage;
+		private long sequence;
+
+		/**
+		 * Creates a new entry
+		 *
+		 * @param kind the kind of the change
+		 * @param repository the repository the object belongs to
+		 * @param object the changed object
+		 * @param state the state of the object before the change
+		 * @param beforeImage the data object with the values of the object before the change (only for modifications)
+		 * or null if the values must be read from the data access object
+		 */
+		Entry(Kind kind, GenericRepositoryImpl<?,?> repository, Object object, State state, GenericDataObject beforeImage)
+		{
+			this.kind = kind;
+			this.repository = repository;
+			this.object = object;
+			this.state = state;
+			this.beforeImage = beforeImage;
+		}
+
+		Kind getKind() { return this.kind; }
+
+		GenericRepositoryImpl<?,?> getRepository() { return this.repository; }
+
+		Object getObject() { return this.object; }
+
+		State getState() { return this.state; }
+
+		GenericDataObject getBeforeImage() { return this.beforeImage; }
+	}
+
+	private final List<Entry> entries = new ArrayList<Entry>();
+	private final Map<String, Long> savepoints = new LinkedHashMap<String, Long>();
+	private long nextSequence = 0;
+
+	/**
+	 * Gets the current end of the log. Positions don't change when entries are removed.
+	 *
+	 * @return the position the next entry will be logged at
+	 */
+	long getPosition() { return this.nextSequence; }
+
+	/**
+	 * Appends an entry to the log
+	 *
+	 * @param entry the entry to append
+	 */
+	void add(Entry entry)
+	{
+		entry.sequence = this.nextSequence++;
+
+		this.entries.add(entry);
+	}
+
+	/**
+	 * Names the current end of the log. An existing savepoint of the same name is replaced.
+	 *
+	 * @param name the name of the savepoint
+	 * @throws IllegalArgumentException thrown if name is null
+	 */
+	void setSavepoint(String name) throws IllegalArgumentException
+	{
+		if (name == null) throw new IllegalArgumentException("name");
+
+		this.savepoints.remove(name);
+		this.savepoints.put(name, this.nextSequence);
+	}
+
+	/**
+	 * Gets the position of a savepoint
+	 *
+	 * @param name the name of the savepoint
+	 * @return the position of the end of the log when the savepoint was set
+	 * @throws IllegalArgumentException thrown if there is no savepoint of the given name
+	 */
+	long getSavepoint(String name) throws IllegalArgumentException
+	{
+		Long position = this.savepoints.get(name);
+
+		if (position == null) throw new IllegalArgumentException("name");
+
+		return position;
+	}
+
+	/**
+	 * Removes a savepoint without changing the entries
+	 *
+	 * @param name the name of the savepoint
+	 * @throws IllegalArgumentException thrown if there is no savepoint of the given name
+	 */
+	void releaseSavepoint(String name) throws IllegalArgumentException
+	{
+		if (this.savepoints.remove(name) == null) throw new IllegalArgumentException("name");
+	}
+
+	/**
+	 * Gets the entries which were logged at or after the given position
+	 *
+	 * @param position the position of the first entry to get
+	 * @return a copy of the entries in the order they were logged
+	 */
+	List<Entry> getEntries(long position)
+	{
+		return new ArrayList<Entry>(this.entries.subList(this.indexOf(position), this.entries.size()));
+	}
+
+	/**
+	 * Removes the entries which were logged at or after the given position and the savepoints set after it
+	 *
+	 * @param position the position of the first entry to remove
+	 */
+	void truncate(long position)
+	{
+		this.entries.subList(this.indexOf(position), this.entries.size()).clear();
+		this.savepoints.values().removeIf(savepoint -> savepoint > position);
+	}
+
+	/**
+	 * Removes the entries which were logged before the given position, e.g. because their changes
+	 * were committed. Savepoints set before the position are removed as well.
+	 *
+	 * @param position the position of the first entry to keep
+	 */
+	void discard(long position)
+	{
+		this.entries.subList(0, this.indexOf(position)).clear();
+		this.savepoints.values().removeIf(savepoint -> savepoint < position);
+	}
+
+	/**
+	 * Removes all entries of a repository, e.g. because the repository was reloaded
+	 *
+	 * @param repository the repository whose entries to remove
+	 */
+	void remove(GenericRepositoryImpl<?,?> repository)
+	{
+		this.entries.removeIf(entry -> entry.repository == repository);
+	}
+
+	/**
+	 * Removes all entries and savepoints
+	 */
+	void clear()
+	{
+		this.entries.clear();
+		this.savepoints.clear();
+	}
+
+	/**
+	 * Gets the index of the first entry which was logged at or after the given position
+	 */
+	private int indexOf(long position)
+	{
+		int low = 0;
+		int high = this.entries.size();
+
+		// The entries are sorted by their sequence numbers
+		while (low < high)
+		{
+			int middle = (low + high) >>> 1;
+
+			if (this.entries.get(middle).sequence < position) low = middle +1;
+			else high = middle;
+		}
+
+		return low;
+	}
+}
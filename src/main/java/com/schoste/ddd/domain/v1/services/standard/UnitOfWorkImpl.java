@@ -1,456 +1,1717 @@
-package com.schoste.ddd.domain.v1.services.standard;
-
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-
-import com.schoste.ddd.domain.v1.exceptions.DomainException;
-import com.schoste.ddd.domain.v1.models.DomainObject;
-import com.schoste.ddd.domain.v1.models.DomainObject.State;
-import com.schoste.ddd.domain.v1.services.GenericRepository;
-import com.schoste.ddd.domain.v1.services.UnitOfWork;
-import com.schoste.ddd.domain.v1.services.UnitOfWorkListener;
-import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
-import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
-import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
-
-/**
- * Implementation of the UOW interface
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- */
-public class UnitOfWorkImpl implements UnitOfWork
-{
-	private Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> changeLogs;
-	private Set<UnitOfWorkListener> listners = new HashSet<UnitOfWorkListener>();
-
-	private void notifyListenersAfterDelete(Collection<Object> objs)
-	{
-		for (UnitOfWorkListener listener : this.listners)
-		{
-			try
-			{
-				listener.afterDelete(objs);
-			}
-			catch (Exception e)
-			{
-				e.printStackTrace(System.err);
-			}
-		}
-	}
-
-	private void deleteDomainObjects(GenericRepositoryImpl<?,?> repository) throws Exception
-	{
-		GenericDataAccessObject<?> dao = repository.getDataAccessObject();
-		RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-		Collection<Object> objectsToRemove = changeLog.getObjectsToRemove();
-
-		synchronized (objectsToRemove)
-		{
-			GenericDataObject[] dataObjects = new GenericDataObject[objectsToRemove.size()];
-			Map<Integer, Object> dataObjectsToObjectsToRemove = new HashMap<>(objectsToRemove.size());
-			int index=0;
-
-			for (Object objToRemove : objectsToRemove)
-			{
-				GenericDataObject dataObject = repository.domainObjectToDataObject(objToRemove);
-				
-				dataObjects[index++] = dataObject;
-				dataObjectsToObjectsToRemove.put(System.identityHashCode(dataObject), objToRemove);
-			}
-
-			dao.delete(dataObjects);
-
-			for (Object objToRemove : objectsToRemove)
-			{
-				if (objToRemove instanceof DomainObject) ((DomainObject) objToRemove).setState(State.Detached);
-			}
-
-			this.notifyListenersAfterDelete(objectsToRemove);
-
-			objectsToRemove.clear();
-		}
-	}
-
-	private void notifyListenersAfterPersistNew(Collection<Object> objs)
-	{
-		for (UnitOfWorkListener listener : this.listners)
-		{
-			try
-			{
-				listener.afterPersistNew(objs);
-			}
-			catch (Exception e)
-			{
-				e.printStackTrace(System.err);
-			}
-		}
-	}
-
-	private void persistNewDomainObjects(GenericRepositoryImpl<?,?> repository) throws Exception
-	{
-		GenericDataAccessObject<?> dao = repository.getDataAccessObject();
-		RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-		Collection<Object> objectsToPersist = changeLog.getObjectsToAdd();
-
-		synchronized (objectsToPersist)
-		{
-			GenericDataObject[] dataObjects = new GenericDataObject[objectsToPersist.size()];
-			Map<Integer, Object> dataObjectsToObjectsToPersist = new HashMap<>(objectsToPersist.size());
-			int index=0;
-
-			for (Object objToPersist : objectsToPersist)
-			{
-				GenericDataObject dataObject = repository.domainObjectToDataObject(objToPersist);
-				
-				dataObjects[index++] = dataObject;
-				dataObjectsToObjectsToPersist.put(System.identityHashCode(dataObject), objToPersist);
-			}
-
-			dao.save(dataObjects);
-
-			// update the domain object in case the data object changed
-			for (GenericDataObject dataObject : dataObjects) repository.dataObjectToDomainObject(dataObject, dataObjectsToObjectsToPersist.get(System.identityHashCode(dataObject)));
-
-			this.notifyListenersAfterPersistNew(objectsToPersist);
-
-			objectsToPersist.clear();
-		}
-	}
-
-	private void notifyListenersAfterPersistExisting(Collection<Object> objs)
-	{
-		for (UnitOfWorkListener listener : this.listners)
-		{
-			try
-			{
-				listener.afterPersistExisting(objs);
-			}
-			catch (Exception e)
-			{
-				e.printStackTrace(System.err);
-			}
-		}
-	}
-
-	private void persistExistingDomainObjects(GenericRepositoryImpl<?,?> repository) throws Exception
-	{
-		GenericDataAccessObject<?> dao = repository.getDataAccessObject();
-		RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-		Collection<Object> objectsToPersist = changeLog.getObjectsToUpdate();
-
-		synchronized (objectsToPersist)
-		{
-			GenericDataObject[] dataObjects = new GenericDataObject[objectsToPersist.size()];
-			Map<Integer, Object> dataObjectsToObjectsToPersist = new HashMap<>(objectsToPersist.size());
-			int index=0;
-
-			for (Object objToPersist : objectsToPersist)
-			{
-				GenericDataObject dataObject = repository.domainObjectToDataObject(objToPersist);
-				
-				dataObjects[index++] = dataObject;
-				dataObjectsToObjectsToPersist.put(System.identityHashCode(dataObject), objToPersist);
-			}
-
-			dao.save(dataObjects);
-
-			// update the domain object in case the data object changed
-			for (GenericDataObject dataObject : dataObjects) repository.dataObjectToDomainObject(dataObject, dataObjectsToObjectsToPersist.get(System.identityHashCode(dataObject)));
-
-			this.notifyListenersAfterPersistExisting(objectsToPersist);
-
-			objectsToPersist.clear();
-		}
-	}
-
-	/**
-	 * Creates a new instance of the Unit of Work (UoW) for a given repository.
-	 * 
-	 * @param repository the repository the UoW is created for.
-	 */
-	public UnitOfWorkImpl(GenericRepositoryImpl<?,?> repository)
-	{
-		this(Arrays.asList(new GenericRepositoryImpl<?,?>[] { repository }));
-	}
-	
-	/**
-	 * Creates a new instance of the Unit of Work (UoW) for given repositories.
-	 * 
-	 * @param repositories the repositories the UoW is created for. Pass the repositories in the order in which they should be committed / rolled back
-	 */
-	public UnitOfWorkImpl(List<GenericRepositoryImpl<?,?>> repositories)
-	{
-		if (repositories == null) return;
-		
-		// LinkedHashMap is used here to ensure the sort order when enumerating repositories
-		this.changeLogs = new LinkedHashMap<GenericRepositoryImpl<?,?>, RepositoryChangeLog>(repositories.size());
-		
-		for (GenericRepositoryImpl<?,?> repository : repositories)
-		{
-			this.changeLogs.put(repository, new RepositoryChangeLog());
-			
-			repository.addChangeListener(this);
-		}
-	}
-	
-	/**
-	 * {@inheritDoc}
-	 */
-	public void commit() throws DALException, DomainException 
-	{
-		try
-		{
-			//TODO: encapsulate in transaction
-			for (GenericRepositoryImpl<?,?> repository : this.changeLogs.keySet())
-			{					
-				this.deleteDomainObjects(repository);
-				this.persistNewDomainObjects(repository);
-				this.persistExistingDomainObjects(repository);
-				
-				repository.resetVirtualDomainObjectId();
-			}
-		}
-		catch (DALException e)
-		{
-			throw e;
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	private void notifyListenersAfterRollback(Collection<Object> objs)
-	{
-		for (UnitOfWorkListener listener : this.listners)
-		{
-			try
-			{
-				listener.afterRollback(objs);
-			}
-			catch (Exception e)
-			{
-				e.printStackTrace(System.err);
-			}
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public void rollback() throws DomainException
-	{
-		try
-		{
-			Collection<Object> objectsToRollBack = new ArrayList<>();
-
-			for (GenericRepositoryImpl<?,?> repository : this.changeLogs.keySet())
-			{
-				RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-	
-				synchronized (changeLog.getObjectsToRemove())
-				{
-					for (Object objToRemove : changeLog.getObjectsToRemove()) repository.add(objToRemove);
-
-					objectsToRollBack.addAll(changeLog.getObjectsToRemove());
-
-					changeLog.getObjectsToRemove().clear();
-				}
-				
-				synchronized (changeLog.getObjectsToAdd())
-				{
-					for (Object objToAdd : changeLog.getObjectsToAdd()) repository.remove(objToAdd);
-					
-					objectsToRollBack.addAll(changeLog.getObjectsToAdd());
-
-					changeLog.getObjectsToAdd().clear();
-				}
-			}
-
-			this.notifyListenersAfterRollback(objectsToRollBack);
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	private void notifyListenersAfterReload(Collection<Object> objs)
-	{
-		for (UnitOfWorkListener listener : this.listners)
-		{
-			try
-			{
-				listener.afterReload(objs);
-			}
-			catch (Exception e)
-			{
-				e.printStackTrace(System.err);
-			}
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public void onReload(GenericRepository<?,?> repository) throws DomainException
-	{
-		try
-		{
-			if (!this.changeLogs.containsKey(repository)) return;
-			
-			RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-			Collection<Object> detachedObjects = new ArrayList<>();
-			
-			synchronized (changeLog.getObjectsToRemove())
-			{
-				for (Object objToRemove : changeLog.getObjectsToRemove())
-				{
-					if (objToRemove instanceof DomainObject) ((DomainObject) objToRemove).setState(State.Detached);
-				}
-
-				detachedObjects.addAll(changeLog.getObjectsToRemove());
-				changeLog.getObjectsToRemove().clear();
-			}
-			
-			synchronized (changeLog.getObjectsToAdd())
-			{
-				for (Object objToAdd : changeLog.getObjectsToAdd())
-				{
-					if (objToAdd instanceof DomainObject) ((DomainObject) objToAdd).setState(State.Detached);
-				}
-
-				detachedObjects.addAll(changeLog.getObjectsToAdd());
-				changeLog.getObjectsToAdd().clear();
-			}
-			
-			synchronized (changeLog.getObjectsToUpdate())
-			{
-				changeLog.getObjectsToUpdate().clear();
-			}
-
-			this.notifyListenersAfterReload(detachedObjects);
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public void onObjectAdded(GenericRepository<?,?> repository, Object obj) throws DomainException 
-	{
-		try
-		{
-			if (!this.changeLogs.containsKey(repository)) return;
-			
-			RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-			
-			synchronized (changeLog.getObjectsToAdd())
-			{
-				changeLog.getObjectsToAdd().add(obj);
-			}
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public void onObjectRemoved(GenericRepository<?,?> repository, Object obj) throws DomainException 
-	{
-		try
-		{
-			if (!this.changeLogs.containsKey(repository)) return;
-			
-			RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-			
-			synchronized (changeLog.getObjectsToUpdate()) { changeLog.getObjectsToUpdate().remove(obj); }
-			synchronized (changeLog.getObjectsToAdd()) { changeLog.getObjectsToAdd().remove(obj); }
-			
-			// Only mark objects for deletion if they were persisted already
-			if ((obj instanceof DomainObject) && (((DomainObject) obj).getId() > 0))
-			{
-				synchronized (changeLog.getObjectsToRemove()) { changeLog.getObjectsToRemove().add(obj); }
-			}
-		}
-		catch (Exception e)
-		{
-			throw new DomainException(e);
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void onObjectModified(GenericRepository<?, ?> repository, Object obj) throws DomainException
-	{
-		try
-		{
-			if (!this.changeLogs.containsKey(repository)) return;
-			
-			RepositoryChangeLog changeLog = this.changeLogs.get(repository);
-			
-			synchronized (changeLog.getObjectsToUpdate()) { changeLog.getObjectsToUpdate().add(obj); }
-		}
-		catch (Exception e)
-		{
-			 throw new DomainException(e);
-		}		
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	public void close() throws IOException 
-	{
-		try
-		{
-			this.rollback();
-			
-			for (GenericRepository<?,?> repository : this.changeLogs.keySet()) repository.removeChangeListener(this);
-			
-			this.changeLogs.clear();
-		}
-		catch (Exception e)
-		{
-			System.err.println(e.getMessage());
-		}
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void addListener(UnitOfWorkListener listener)
-	{
-		if (listener == null) throw new IllegalArgumentException("listener");
-
-		this.listners.add(listener);
-	}
-
-	/**
-	 * {@inheritDoc}
-	 */
-	@Override
-	public void removeListener(UnitOfWorkListener listener)
-	{
-		if (listener == null) throw new IllegalArgumentException("listener");
-
-		this.listners.remove(listener);
-	}
-}
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.models.DomainObject;
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+import com.schoste.ddd.domain.v1.services.DataObjectChangeSet;
+import com.schoste.ddd.domain.v1.services.GenericRepository;
+import com.schoste.ddd.domain.v1.services.PartialUpdateDataAccessObject;
+import com.schoste.ddd.domain.v1.services.UnitOfWork;
+import com.schoste.ddd.domain.v1.services.UnitOfWorkListener;
+import com.schoste.ddd.domain.v1.services.VersionedDataAccessObject;
+import com.schoste.ddd.domain.v1.services.VersionedDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Implementation of the UOW interface
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+public class UnitOfWorkImpl implements UnitOfWork
+{
+	private static final int PIPELINE_CAPACITY = 1;
+
+	private Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> changeLogs;
+	private Map<GenericRepositoryImpl<?,?>, Set<GenericRepositoryImpl<?,?>>> dependencies = new HashMap<>();
+	private Set<UnitOfWorkListener> listners = new HashSet<UnitOfWorkListener>();
+	private boolean parallelCommit = false;
+	private int commitChunkSize = 0;
+	private long targetChunkDuration = 0;
+	private boolean pipelinedCommit = false;
+	private WriteAheadLog writeAheadLog = null;
+	private GroupCommitCoordinator groupCommitCoordinator = null;
+	private CompletableFuture<Void> lastCommit = CompletableFuture.completedFuture(null);
+	private final UndoLog undoLog = new UndoLog();
+	private AutoFlushPolicy autoFlushPolicy = null;
+	private long pendingBytes = 0;
+	private long firstPendingChange = 0;
+	private boolean autoFlushing = false;
+	private boolean autoFlushSuspended = false;
+	private UnitOfWorkLeakDetector.Tracker leakTracker = null;
+
+	/**
+	 * A domain object as it was before a logged commit wrote it
+	 */
+	private static class WrittenObject
+	{
+		private final DomainObject domainObject;
+		private final Collection<Object> changes;
+		private final long id;
+		private final int version;
+		private final State state;
+		private final GenericRepositoryImpl.LoadedObject<?,?> loadedObject;
+
+		private WrittenObject(GenericRepositoryImpl<?,?> repository, DomainObject domainObject, Collection<Object> changes)
+		{
+			this.domainObject = domainObject;
+			this.changes = changes;
+			this.id = GenericRepositoryImpl.getDomainObjectId(domainObject);
+			this.version = domainObject.getVersion();
+			this.state = domainObject.getState();
+			this.loadedObject = repository.getLoadedObject(domainObject);
+		}
+	}
+
+	/**
+	 * State of the commit of a single repository
+	 */
+	private static class RepositoryCommit
+	{
+		private final GenericRepositoryImpl<?,?> repository;
+		private final RepositoryChangeLog changeLog;
+		private final Collection<Long> deletedIds = new ArrayList<Long>();
+		private final Collection<GenericDataObject> savedDataObjects = new ArrayList<GenericDataObject>();
+		private final List<WrittenObject> writtenObjects = new ArrayList<WrittenObject>();
+		private final Map<Long, SoftReference<? extends GenericDataObject>> publishedBeforeImages = new HashMap<Long, SoftReference<? extends GenericDataObject>>();
+		private final int totalObjects;
+		private final WriteAheadLog writeAheadLog;
+		private final WriteAheadLog.Transaction transaction;
+		private int committedObjects = 0;
+
+		/**
+		 * Adjusted by the thread which writes the chunks and read by the converter of a pipelined commit,
+		 * which sizes the next chunk by the last size written. Only the writing thread changes it.
+		 */
+		private volatile int chunkSize;
+
+		private RepositoryCommit(GenericRepositoryImpl<?,?> repository, RepositoryChangeLog changeLog, int chunkSize, WriteAheadLog writeAheadLog, WriteAheadLog.Transaction transaction)
+		{
+			this.repository = repository;
+			this.changeLog = changeLog;
+			this.totalObjects = changeLog.getObjectsToRemove().size() + changeLog.getObjectsToAdd().size() + changeLog.getObjectsToUpdate().size();
+			this.chunkSize = chunkSize;
+			this.writeAheadLog = writeAheadLog;
+			this.transaction = transaction;
+		}
+
+		/**
+		 * Logs the persisted data objects of the given ids before they are changed
+		 */
+		private void logBeforeImages(Collection<Long> ids) throws Exception
+		{
+			if (this.transaction == null) return;
+
+			Collection<GenericDataObject> beforeImages = new ArrayList<GenericDataObject>(ids.size());
+
+			for (long id : ids)
+			{
+				GenericDataObject beforeImage = this.repository.getDataObject(id);
+
+				if (beforeImage != null) beforeImages.add(beforeImage);
+			}
+
+			this.writeAheadLog.logBeforeImages(this.transaction, this.repository, beforeImages.toArray(new GenericDataObject[beforeImages.size()]));
+		}
+
+		/**
+		 * Logs the new data objects which have an id and were not logged yet
+		 */
+		private void logInserted(GenericDataObject[] dataObjects, boolean[] logged) throws Exception
+		{
+			if (this.transaction == null) return;
+
+			Collection<GenericDataObject> insertedDataObjects = new ArrayList<GenericDataObject>(dataObjects.length);
+
+			for (int i=0; i<dataObjects.length; i++)
+			{
+				if (logged[i] || (GenericRepositoryImpl.getDataObjectId(dataObjects[i]) <= 0)) continue;
+
+				insertedDataObjects.add(dataObjects[i]);
+				logged[i] = true;
+			}
+
+			this.writeAheadLog.logInserted(this.transaction, this.repository, insertedDataObjects.toArray(new GenericDataObject[insertedDataObjects.size()]));
+		}
+
+		/**
+		 * Remembers the domain objects of a chunk which was written before the commit changes them,
+		 * so they can be restored if the logged commit is undone
+		 */
+		private void written(Collection<Object> objects, Collection<Object> changes)
+		{
+			if (this.transaction == null) return;
+
+			for (Object obj : objects)
+			{
+				if (obj instanceof DomainObject) this.writtenObjects.add(new WrittenObject(this.repository, (DomainObject) obj, changes));
+			}
+		}
+
+		private void publish()
+		{
+			if (this.transaction != null)
+			{
+				for (long id : this.deletedIds) this.rememberPublished(id);
+				for (GenericDataObject dataObject : this.savedDataObjects) this.rememberPublished(GenericRepositoryImpl.getDataObjectId(dataObject));
+			}
+
+			this.repository.publishDataObjects(this.savedDataObjects, this.deletedIds);
+			this.savedDataObjects.clear();
+			this.deletedIds.clear();
+		}
+
+		/**
+		 * Remembers the published data object of an id before the commit publishes it the first time
+		 */
+		private void rememberPublished(long id)
+		{
+			if (!this.publishedBeforeImages.containsKey(id)) this.publishedBeforeImages.put(id, this.repository.publishedDataObjects.get(id));
+		}
+
+		/**
+		 * Sets the written domain objects and the published data objects back to the state before the commit
+		 * and tracks the domain objects in the change log again
+		 */
+		private void restore()
+		{
+			for (int i=this.writtenObjects.size() -1; i>=0; i--)
+			{
+				WrittenObject writtenObject = this.writtenObjects.get(i);
+
+				this.repository.restoreCommittedObject(writtenObject.domainObject, writtenObject.id, writtenObject.version, writtenObject.state, writtenObject.loadedObject);
+				writtenObject.changes.add(writtenObject.domainObject);
+			}
+
+			this.repository.republishDataObjects(this.publishedBeforeImages);
+		}
+	}
+
+	/**
+	 * Chunk of the change log of a repository which was converted to data objects but not written yet
+	 */
+	private static class ConvertedChunk
+	{
+		private static final ConvertedChunk END = new ConvertedChunk(Collections.emptyList());
+
+		private final Collection<Object> objects;
+		private final Collection<Object> modifiedObjects;
+		private final Collection<Object> objectsToUpdate = new ArrayList<Object>();
+		private final Collection<BitSet> propertiesToUpdate = new ArrayList<BitSet>();
+		private final Collection<DataObjectChangeSet<?>> changeSets = new ArrayList<DataObjectChangeSet<?>>();
+		private GenericDataObject[] dataObjects;
+		private Map<GenericDataObject, Object> dataObjectsToObjects;
+		private Exception exception;
+
+		private ConvertedChunk(Collection<Object> objects)
+		{
+			this.objects = objects;
+			this.modifiedObjects = new ArrayList<Object>(objects.size());
+		}
+
+		private void convert(GenericRepositoryImpl<?,?> repository, Collection<Object> objects) throws Exception
+		{
+			this.dataObjects = new GenericDataObject[objects.size()];
+			this.dataObjectsToObjects = new IdentityHashMap<>(objects.size());
+
+			int index=0;
+
+			for (Object obj : objects)
+			{
+				GenericDataObject dataObject = repository.domainObjectToDataObject(obj);
+
+				this.dataObjects[index++] = dataObject;
+				this.dataObjectsToObjects.put(dataObject, obj);
+			}
+		}
+
+		private Object getObject(GenericDataObject dataObject)
+		{
+			return this.dataObjectsToObjects.get(dataObject);
+		}
+
+		/**
+		 * Replaces the data object of a conflict reported by the data access object with its domain object
+		 */
+		private ConcurrencyConflictException toDomainConflict(ConcurrencyConflictException e)
+		{
+			Object obj = (e.getDomainObject() instanceof GenericDataObject) ? this.getObject((GenericDataObject) e.getDomainObject()) : null;
+
+			return (obj != null) ? new ConcurrencyConflictException(obj, e.getExpectedVersion(), e.getPersistedVersion()) : e;
+		}
+	}
+
+	/**
+	 * Converts and writes the chunks of the change log of a repository
+	 */
+	private static interface ChunkCommitter
+	{
+		ConvertedChunk convert(Collection<Object> chunk) throws Exception;
+
+		void write(ConvertedChunk chunk) throws Exception;
+	}
+
+	private void notifyListenersAfterDelete(Collection<Object> objs)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.afterDelete(objs);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	/**
+	 * Compares the version of a domain object with the version of the data object it was loaded from.
+	 * The data access object is only read if that data object is not known anymore. Data access objects
+	 * which compare the versions when they write the data objects are not checked beforehand.
+	 */
+	private static void checkVersion(GenericRepositoryImpl<?,?> repository, Object obj, GenericDataObject dataObject) throws Exception
+	{
+		if (!(dataObject instanceof VersionedDataObject)) return;
+		if (!(obj instanceof DomainObject)) return;
+		if (repository.getDataAccessObject() instanceof VersionedDataAccessObject) return;
+
+		DomainObject domainObject = (DomainObject) obj;
+		GenericDataObject persistedDataObject = repository.getLoadedDataObject(obj);
+
+		if (persistedDataObject == null) persistedDataObject = repository.getDataObject(GenericRepositoryImpl.getDomainObjectId(domainObject));
+
+		int persistedVersion = (persistedDataObject instanceof VersionedDataObject) ? ((VersionedDataObject) persistedDataObject).getVersion() : 0;
+
+		if (persistedVersion != domainObject.getVersion()) throw new ConcurrencyConflictException(obj, domainObject.getVersion(), persistedVersion);
+	}
+
+	private static Collection<Long> getDataObjectIds(Collection<GenericDataObject> dataObjects)
+	{
+		Collection<Long> ids = new ArrayList<Long>(dataObjects.size());
+
+		for (GenericDataObject dataObject : dataObjects) ids.add(GenericRepositoryImpl.getDataObjectId(dataObject));
+
+		return ids;
+	}
+
+	private static void incrementVersion(GenericDataObject dataObject)
+	{
+		if (dataObject instanceof VersionedDataObject) ((VersionedDataObject) dataObject).setVersion(((VersionedDataObject) dataObject).getVersion() +1);
+	}
+
+	private void notifyListenersAfterCommitChunk(GenericRepository<?,?> repository, int committedObjects, int totalObjects)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.afterCommitChunk(repository, committedObjects, totalObjects);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	private void writeChunk(RepositoryCommit commit, Collection<Object> objects, ConvertedChunk chunk, ChunkCommitter committer) throws Exception
+	{
+		committer.write(chunk);
+
+		// The change log finds the objects by reference, although writing new objects changed their ids
+		for (Object obj : chunk.objects) objects.remove(obj);
+	}
+
+	private void writeDataObjects(GenericDataAccessObject<?> dao, GroupCommitCoordinator.Operation operation, GenericDataObject[] dataObjects, DataObjectChangeSet<?>[] changeSets, GroupCommitCoordinator.Preparation preparation) throws Exception
+	{
+		if (this.groupCommitCoordinator != null) this.groupCommitCoordinator.submit(dao, operation, dataObjects, changeSets, preparation);
+		else GroupCommitCoordinator.write(dao, operation, dataObjects, changeSets, preparation);
+	}
+
+	private void afterChunkWritten(RepositoryCommit commit, ConvertedChunk chunk, long duration)
+	{
+		commit.committedObjects += chunk.objects.size();
+
+		// The data objects of a chunk are released before the next one is converted
+		commit.publish();
+
+		this.notifyListenersAfterCommitChunk(commit.repository, commit.committedObjects, commit.totalObjects);
+
+		if ((this.targetChunkDuration > 0) && (duration > 0))
+		{
+			// Scale the chunk size towards the target duration, but grow by a factor of two at most
+			int chunkSize = commit.chunkSize;
+			double adjustedChunkSize = (double) chunkSize * TimeUnit.MILLISECONDS.toNanos(this.targetChunkDuration) / duration;
+
+			commit.chunkSize = (int) Math.max(1, Math.min(adjustedChunkSize, Math.min((long) chunkSize * 2, Integer.MAX_VALUE)));
+		}
+	}
+
+	private static void convertChunks(RepositoryCommit commit, Object[] pendingObjects, ChunkCommitter committer, BlockingQueue<ConvertedChunk> convertedChunks) throws InterruptedException
+	{
+		try
+		{
+			for (int start=0; start<pendingObjects.length;)
+			{
+				int end = (int) Math.min(pendingObjects.length, (long) start + commit.chunkSize);
+
+				ConvertedChunk chunk = committer.convert(new ArrayList<Object>(Arrays.asList(pendingObjects).subList(start, end)));
+
+				// The chunk references the objects until it is written
+				Arrays.fill(pendingObjects, start, end, null);
+				convertedChunks.put(chunk);
+
+				start = end;
+			}
+
+			convertedChunks.put(ConvertedChunk.END);
+		}
+		catch (InterruptedException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			ConvertedChunk failedChunk = new ConvertedChunk(Collections.emptyList());
+
+			failedChunk.exception = e;
+			convertedChunks.put(failedChunk);
+		}
+	}
+
+	private void commitInPipeline(RepositoryCommit commit, Collection<Object> objects, Object[] pendingObjects, ChunkCommitter committer) throws Exception
+	{
+		BlockingQueue<ConvertedChunk> convertedChunks = new ArrayBlockingQueue<ConvertedChunk>(PIPELINE_CAPACITY);
+
+		// Closing the executor waits until the converter stopped
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+		{
+			Future<?> converter = executor.submit(() ->
+			{
+				convertChunks(commit, pendingObjects, committer, convertedChunks);
+				return null;
+			});
+
+			try
+			{
+				for (ConvertedChunk chunk = convertedChunks.take(); chunk != ConvertedChunk.END; chunk = convertedChunks.take())
+				{
+					if (chunk.exception != null) throw chunk.exception;
+
+					long startTime = System.nanoTime();
+
+					this.writeChunk(commit, objects, chunk, committer);
+					this.afterChunkWritten(commit, chunk, System.nanoTime() - startTime);
+				}
+			}
+			catch (Exception e)
+			{
+				converter.cancel(true);
+
+				throw e;
+			}
+		}
+	}
+
+	private void commitInChunks(RepositoryCommit commit, Collection<Object> objects, ChunkCommitter committer) throws Exception
+	{
+		if (objects.isEmpty()) return;
+
+		if (commit.chunkSize <= 0)
+		{
+			committer.write(committer.convert(objects));
+
+			commit.committedObjects += objects.size();
+			objects.clear();
+
+			this.notifyListenersAfterCommitChunk(commit.repository, commit.committedObjects, commit.totalObjects);
+			return;
+		}
+
+		Object[] pendingObjects = objects.toArray();
+
+		if (this.pipelinedCommit)
+		{
+			this.commitInPipeline(commit, objects, pendingObjects, committer);
+			return;
+		}
+
+		for (int start=0; start<pendingObjects.length;)
+		{
+			int end = (int) Math.min(pendingObjects.length, (long) start + commit.chunkSize);
+			long startTime = System.nanoTime();
+			ConvertedChunk chunk = committer.convert(new ArrayList<Object>(Arrays.asList(pendingObjects).subList(start, end)));
+
+			this.writeChunk(commit, objects, chunk, committer);
+
+			Arrays.fill(pendingObjects, start, end, null);
+			start = end;
+
+			this.afterChunkWritten(commit, chunk, System.nanoTime() - startTime);
+		}
+	}
+
+	private void deleteDomainObjects(RepositoryCommit commit) throws Exception
+	{
+		Collection<Object> objectsToRemove = commit.changeLog.getObjectsToRemove();
+
+		this.commitInChunks(commit, objectsToRemove, new ChunkCommitter()
+		{
+			public ConvertedChunk convert(Collection<Object> chunk) throws Exception
+			{
+				ConvertedChunk convertedChunk = new ConvertedChunk(chunk);
+
+				convertedChunk.convert(commit.repository, chunk);
+
+				return convertedChunk;
+			}
+
+			public void write(ConvertedChunk chunk) throws Exception { deleteChunk(commit, chunk); }
+		});
+	}
+
+	private void deleteChunk(RepositoryCommit commit, ConvertedChunk chunk) throws Exception
+	{
+		GenericRepositoryImpl<?,?> repository = commit.repository;
+		GenericDataAccessObject<?> dao = repository.getDataAccessObject();
+
+		Collection<Long> ids = getDataObjectIds(Arrays.asList(chunk.dataObjects));
+
+		// Check versions while no other Unit of Work can save the same data objects
+		StripedLock.Stripes stripes = repository.commitLocks.lock(ids);
+
+		try
+		{
+			this.writeDataObjects(dao, GroupCommitCoordinator.Operation.Delete, chunk.dataObjects, new DataObjectChangeSet<?>[0], () ->
+			{
+				for (GenericDataObject dataObject : chunk.dataObjects) checkVersion(repository, chunk.getObject(dataObject), dataObject);
+
+				commit.logBeforeImages(ids);
+			});
+		}
+		catch (ConcurrencyConflictException e)
+		{
+			throw chunk.toDomainConflict(e);
+		}
+		finally
+		{
+			stripes.unlock();
+		}
+
+		commit.written(chunk.objects, commit.changeLog.getObjectsToRemove());
+
+		for (Object objToRemove : chunk.objects)
+		{
+			if (!(objToRemove instanceof DomainObject)) continue;
+
+			((DomainObject) objToRemove).setState(State.Detached);
+			commit.deletedIds.add(GenericRepositoryImpl.getDomainObjectId((DomainObject) objToRemove));
+		}
+
+		this.notifyListenersAfterDelete(chunk.objects);
+	}
+
+	private void notifyListenersAfterPersistNew(Collection<Object> objs)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.afterPersistNew(objs);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	private void persistNewDomainObjects(RepositoryCommit commit) throws Exception
+	{
+		Collection<Object> objectsToPersist = commit.changeLog.getObjectsToAdd();
+
+		this.commitInChunks(commit, objectsToPersist, new ChunkCommitter()
+		{
+			public ConvertedChunk convert(Collection<Object> chunk) throws Exception
+			{
+				ConvertedChunk convertedChunk = new ConvertedChunk(chunk);
+
+				convertedChunk.convert(commit.repository, chunk);
+
+				return convertedChunk;
+			}
+
+			public void write(ConvertedChunk chunk) throws Exception { persistNewChunk(commit, chunk); }
+		});
+	}
+
+	private void persistNewChunk(RepositoryCommit commit, ConvertedChunk chunk) throws Exception
+	{
+		GenericRepositoryImpl<?,?> repository = commit.repository;
+		GenericDataAccessObject<?> dao = repository.getDataAccessObject();
+
+		boolean[] logged = new boolean[chunk.dataObjects.length];
+
+		this.writeDataObjects(dao, GroupCommitCoordinator.Operation.SaveNew, chunk.dataObjects, new DataObjectChangeSet<?>[0], () ->
+		{
+			for (GenericDataObject dataObject : chunk.dataObjects) incrementVersion(dataObject);
+
+			// Data objects with allocated ids are logged before they are written, so a crash during the write can be undone
+			commit.logInserted(chunk.dataObjects, logged);
+		});
+
+		// Ids assigned by the data access object are only known after the write
+		commit.logInserted(chunk.dataObjects, logged);
+		commit.written(chunk.objects, commit.changeLog.getObjectsToAdd());
+		commit.savedDataObjects.addAll(Arrays.asList(chunk.dataObjects));
+
+		for (GenericDataObject dataObject : chunk.dataObjects)
+		{
+			Object objToPersist = chunk.getObject(dataObject);
+
+			// update the domain object in case the data object got another id than the allocated one
+			if (!repository.afterInsert(objToPersist, dataObject)) repository.dataObjectToDomainObject(dataObject, objToPersist);
+		}
+
+		this.notifyListenersAfterPersistNew(chunk.objects);
+	}
+
+	private void notifyListenersAfterPersistExisting(Collection<Object> objs)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.afterPersistExisting(objs);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	private void persistExistingDomainObjects(RepositoryCommit commit) throws Exception
+	{
+		Collection<Object> objectsToPersist = commit.changeLog.getObjectsToUpdate();
+
+		this.commitInChunks(commit, objectsToPersist, new ChunkCommitter()
+		{
+			public ConvertedChunk convert(Collection<Object> chunk) throws Exception { return convertExistingChunk(commit, chunk); }
+
+			public void write(ConvertedChunk chunk) throws Exception { persistExistingChunk(commit, chunk); }
+		});
+	}
+
+	private static ConvertedChunk convertExistingChunk(RepositoryCommit commit, Collection<Object> objectsToPersist) throws Exception
+	{
+		GenericRepositoryImpl<?,?> repository = commit.repository;
+		GenericDataAccessObject<?> dao = repository.getDataAccessObject();
+		ConvertedChunk chunk = new ConvertedChunk(objectsToPersist);
+		Collection<Object> objectsToSave = new ArrayList<Object>(objectsToPersist.size());
+
+		for (Object objToPersist : objectsToPersist)
+		{
+			BitSet modifiedProperties = repository.getModifiedProperties(objToPersist);
+
+			// Objects which were marked as modified but still have their loaded values need not be saved
+			if ((modifiedProperties != null) && (modifiedProperties.isEmpty()))
+			{
+				repository.resetModified(objToPersist);
+				continue;
+			}
+
+			chunk.modifiedObjects.add(objToPersist);
+
+			// Only write the changed properties if they are known and the DAO supports it
+			if ((modifiedProperties != null) && (dao instanceof PartialUpdateDataAccessObject))
+			{
+				chunk.changeSets.add(repository.createChangeSet(objToPersist, modifiedProperties));
+				chunk.objectsToUpdate.add(objToPersist);
+				chunk.propertiesToUpdate.add(modifiedProperties);
+			}
+			else objectsToSave.add(objToPersist);
+		}
+
+		chunk.convert(repository, objectsToSave);
+
+		Iterator<Object> objectToUpdate = chunk.objectsToUpdate.iterator();
+
+		// Conflicts reported by the data access object reference the data objects of the change sets as well
+		for (DataObjectChangeSet<?> changeSet : chunk.changeSets) chunk.dataObjectsToObjects.put(changeSet.getDataObject(), objectToUpdate.next());
+
+		return chunk;
+	}
+
+	private void persistExistingChunk(RepositoryCommit commit, ConvertedChunk chunk) throws Exception
+	{
+		GenericRepositoryImpl<?,?> repository = commit.repository;
+		GenericDataAccessObject<?> dao = repository.getDataAccessObject();
+
+		Collection<Long> ids = getDataObjectIds(Arrays.asList(chunk.dataObjects));
+
+		for (DataObjectChangeSet<?> changeSet : chunk.changeSets) ids.add(changeSet.getId());
+
+		// Check versions while no other Unit of Work can save the same data objects
+		StripedLock.Stripes stripes = repository.commitLocks.lock(ids);
+
+		try
+		{
+			this.writeDataObjects(dao, GroupCommitCoordinator.Operation.SaveExisting, chunk.dataObjects, chunk.changeSets.toArray(new DataObjectChangeSet<?>[chunk.changeSets.size()]), () ->
+			{
+				Iterator<Object> objectToUpdate = chunk.objectsToUpdate.iterator();
+
+				for (DataObjectChangeSet<?> changeSet : chunk.changeSets) checkVersion(repository, objectToUpdate.next(), changeSet.getDataObject());
+				for (GenericDataObject dataObject : chunk.dataObjects) checkVersion(repository, chunk.getObject(dataObject), dataObject);
+
+				commit.logBeforeImages(ids);
+
+				for (DataObjectChangeSet<?> changeSet : chunk.changeSets) incrementVersion(changeSet.getDataObject());
+				for (GenericDataObject dataObject : chunk.dataObjects) incrementVersion(dataObject);
+			});
+		}
+		catch (ConcurrencyConflictException e)
+		{
+			throw chunk.toDomainConflict(e);
+		}
+		finally
+		{
+			stripes.unlock();
+		}
+
+		commit.written(chunk.modifiedObjects, commit.changeLog.getObjectsToUpdate());
+		commit.savedDataObjects.addAll(Arrays.asList(chunk.dataObjects));
+
+		// update the domain object in case the data object changed
+		for (GenericDataObject dataObject : chunk.dataObjects) repository.dataObjectToDomainObject(dataObject, chunk.getObject(dataObject));
+
+		Iterator<DataObjectChangeSet<?>> changeSet = chunk.changeSets.iterator();
+		Iterator<BitSet> updatedProperties = chunk.propertiesToUpdate.iterator();
+
+		for (Object objToUpdate : chunk.objectsToUpdate)
+		{
+			GenericDataObject dataObject = repository.afterPartialUpdate(objToUpdate, updatedProperties.next(), changeSet.next().getDataObject());
+
+			if (dataObject != null) commit.savedDataObjects.add(dataObject);
+		}
+
+		this.notifyListenersAfterPersistExisting(chunk.modifiedObjects);
+	}
+
+	/**
+	 * Creates a new instance of the Unit of Work (UoW) for a given repository.
+	 * 
+	 * @param repository the repository the UoW is created for.
+	 */
+	public UnitOfWorkImpl(GenericRepositoryImpl<?,?> repository)
+	{
+		this(Arrays.asList(new GenericRepositoryImpl<?,?>[] { repository }));
+	}
+	
+	/**
+	 * Creates a new instance of the Unit of Work (UoW) for given repositories.
+	 * The UoW is registered weakly at the repositories, so a UoW which is not closed stops
+	 * tracking changes when it is garbage collected (see {@see UnitOfWorkLeakDetector}).
+	 * 
+	 * @param repositories the repositories the UoW is created for. Pass the repositories in the order in which they should be committed / rolled back
+	 */
+	public UnitOfWorkImpl(List<GenericRepositoryImpl<?,?>> repositories)
+	{
+		if (repositories == null) return;
+		
+		// LinkedHashMap is used here to ensure the sort order when enumerating repositories
+		this.changeLogs = new LinkedHashMap<GenericRepositoryImpl<?,?>, RepositoryChangeLog>(repositories.size());
+		
+		for (GenericRepositoryImpl<?,?> repository : repositories)
+		{
+			this.changeLogs.put(repository, new RepositoryChangeLog());
+			
+			// A UoW which is not closed must not stay in the repositories forever
+			repository.addWeakChangeListener(this);
+		}
+
+		this.leakTracker = UnitOfWorkLeakDetector.created(this);
+	}
+	
+	private void commitRepository(RepositoryCommit commit) throws Exception
+	{
+		// The frozen change log belongs to this commit only, so it is not locked while the data access objects are called
+		try
+		{
+			this.deleteDomainObjects(commit);
+			this.persistNewDomainObjects(commit);
+			this.persistExistingDomainObjects(commit);
+		}
+		finally
+		{
+			// Snapshots see the changes of a repository all at once unless it is committed in chunks
+			commit.publish();
+		}
+		
+		commit.repository.resetVirtualDomainObjectId();
+	}
+
+	private CompletableFuture<Void> scheduleCommit(GenericRepositoryImpl<?,?> repository, Map<GenericRepositoryImpl<?,?>, RepositoryCommit> repositoryCommits, Map<GenericRepositoryImpl<?,?>, CompletableFuture<Void>> commits, ExecutorService executor)
+	{
+		CompletableFuture<Void> commit = commits.get(repository);
+
+		if (commit != null) return commit;
+
+		Set<GenericRepositoryImpl<?,?>> dependencies = this.dependencies.getOrDefault(repository, Collections.emptySet());
+		CompletableFuture<?>[] dependencyCommits = new CompletableFuture<?>[dependencies.size()];
+		int index=0;
+
+		for (GenericRepositoryImpl<?,?> dependency : dependencies) dependencyCommits[index++] = this.scheduleCommit(dependency, repositoryCommits, commits, executor);
+
+		// The commit only starts if the commits of all dependencies succeeded
+		commit = CompletableFuture.allOf(dependencyCommits).thenRunAsync(() ->
+		{
+			try
+			{
+				this.commitRepository(repositoryCommits.get(repository));
+			}
+			catch (Exception e)
+			{
+				throw new CompletionException(e);
+			}
+		}, executor);
+
+		commits.put(repository, commit);
+
+		return commit;
+	}
+
+	private void commitRepositoriesInParallel(Map<GenericRepositoryImpl<?,?>, RepositoryCommit> repositoryCommits) throws Exception
+	{
+		Map<GenericRepositoryImpl<?,?>, CompletableFuture<Void>> commits = new HashMap<>(repositoryCommits.size());
+
+		// Closing the executor waits until all commits completed, including the ones which still run after another one failed
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+		{
+			for (GenericRepositoryImpl<?,?> repository : repositoryCommits.keySet()) this.scheduleCommit(repository, repositoryCommits, commits, executor);
+
+			CompletableFuture.allOf(commits.values().toArray(new CompletableFuture<?>[commits.size()])).join();
+		}
+		catch (CompletionException e)
+		{
+			if (e.getCause() instanceof Exception) throw (Exception) e.getCause();
+
+			throw e;
+		}
+	}
+
+	private boolean dependsOn(GenericRepositoryImpl<?,?> repository, GenericRepositoryImpl<?,?> dependency)
+	{
+		for (GenericRepositoryImpl<?,?> directDependency : this.dependencies.getOrDefault(repository, Collections.emptySet()))
+		{
+			if ((directDependency == dependency) || this.dependsOn(directDependency, dependency)) return true;
+		}
+
+		return false;
+	}
+
+	/**
+	 * Gets if repositories are committed concurrently
+	 * 
+	 * @return true if repositories are committed concurrently
+	 */
+	public boolean isParallelCommit() { return this.parallelCommit; }
+
+	/**
+	 * Sets if repositories are committed concurrently on virtual threads.
+	 * If enabled, the order in which the repositories were passed to the UoW is ignored
+	 * and only the dependencies declared by {@see UnitOfWorkImpl#addDependency(GenericRepository, GenericRepository)}
+	 * are respected. Listeners may be called concurrently then.
+	 * 
+	 * @param parallelCommit true to commit repositories concurrently
+	 */
+	public void setParallelCommit(boolean parallelCommit) { this.parallelCommit = parallelCommit; }
+
+	/**
+	 * Gets the maximum number of objects which are written to the data access object at once
+	 * 
+	 * @return the size of the chunks or 0 if all changes of a repository are written at once
+	 */
+	public int getCommitChunkSize() { return this.commitChunkSize; }
+
+	/**
+	 * Sets the maximum number of objects which are written to the data access object at once.
+	 * If set, the changes of a repository are converted and written in chunks of this size, so the
+	 * memory used by a commit stays bounded. Snapshots of the repository see the changes of every chunk
+	 * as soon as it was written then and a failed commit leaves the chunks which were written already
+	 * persisted. By default all changes of a repository are written at once.
+	 * 
+	 * @param commitChunkSize the size of the chunks or 0 to write all changes at once
+	 * @throws IllegalArgumentException thrown if the size is negative
+	 */
+	public void setCommitChunkSize(int commitChunkSize)
+	{
+		if (commitChunkSize < 0) throw new IllegalArgumentException("commitChunkSize");
+
+		this.commitChunkSize = commitChunkSize;
+	}
+
+	/**
+	 * Gets the duration which writing a chunk should take
+	 * 
+	 * @return the duration in milliseconds or 0 if the size of the chunks is fixed
+	 */
+	public long getTargetChunkDuration() { return this.targetChunkDuration; }
+
+	/**
+	 * Sets the duration which writing a chunk should take. If set, the size of the chunks starts with
+	 * {@see UnitOfWorkImpl#getCommitChunkSize()} and is adapted to the observed latency of the data access object
+	 * after every chunk. Only regarded if a chunk size is set.
+	 * 
+	 * @param targetChunkDuration the duration in milliseconds or 0 to keep the size of the chunks fixed
+	 * @throws IllegalArgumentException thrown if the duration is negative
+	 */
+	public void setTargetChunkDuration(long targetChunkDuration)
+	{
+		if (targetChunkDuration < 0) throw new IllegalArgumentException("targetChunkDuration");
+
+		this.targetChunkDuration = targetChunkDuration;
+	}
+
+	/**
+	 * Gets if chunks are converted while the previous chunk is written
+	 * 
+	 * @return true if chunks are converted while the previous chunk is written
+	 */
+	public boolean isPipelinedCommit() { return this.pipelinedCommit; }
+
+	/**
+	 * Sets if chunks are converted while the previous chunk is written. If enabled, a virtual thread
+	 * converts the domain objects of the next chunks to data objects and hands them to the thread
+	 * which commits the repository through a bounded queue. The deletions, new objects and existing
+	 * objects of a repository are still committed one after another. Only regarded if a chunk size is set
+	 * (see {@see UnitOfWorkImpl#setCommitChunkSize(int)}).
+	 * 
+	 * @param pipelinedCommit true to convert chunks while the previous chunk is written
+	 */
+	public void setPipelinedCommit(boolean pipelinedCommit) { this.pipelinedCommit = pipelinedCommit; }
+
+	/**
+	 * Gets the log which makes commits atomic
+	 * 
+	 * @return the write-ahead log or null if commits are not logged
+	 */
+	public WriteAheadLog getWriteAheadLog() { return this.writeAheadLog; }
+
+	/**
+	 * Sets the log which makes commits atomic. If set, a commit which fails undoes the changes it
+	 * already wrote to the data access objects of all repositories and sets the written domain objects
+	 * back to their state before the commit, so their changes remain in the UoW. The same log can be
+	 * shared by several UoWs.
+	 * 
+	 * @param writeAheadLog the write-ahead log or null to not log commits
+	 */
+	public void setWriteAheadLog(WriteAheadLog writeAheadLog) { this.writeAheadLog = writeAheadLog; }
+
+	/**
+	 * Gets the coordinator which merges the writes of concurrent UoWs
+	 * 
+	 * @return the coordinator or null if the UoW writes on its own
+	 */
+	public GroupCommitCoordinator getGroupCommitCoordinator() { return this.groupCommitCoordinator; }
+
+	/**
+	 * Sets the coordinator which merges the writes of concurrent UoWs. If set, the data objects of
+	 * a commit are written together with the data objects of other UoWs using the same coordinator,
+	 * so many small commits cause few calls of the data access objects. A commit waits up to the
+	 * batch window of the coordinator for other commits to join.
+	 * 
+	 * @param groupCommitCoordinator the coordinator or null to write on its own
+	 */
+	public void setGroupCommitCoordinator(GroupCommitCoordinator groupCommitCoordinator) { this.groupCommitCoordinator = groupCommitCoordinator; }
+
+	/**
+	 * Gets the limits of the pending changes after which the UoW commits on its own
+	 * 
+	 * @return the policy or null if the UoW commits only when asked to
+	 */
+	public AutoFlushPolicy getAutoFlushPolicy() { return this.autoFlushPolicy; }
+
+	/**
+	 * Sets the limits of the pending changes after which the UoW commits on its own, so long-running
+	 * jobs don't accumulate changes until their final commit. The limits are checked whenever a change
+	 * is tracked. The UoW commits like {@see UnitOfWorkImpl#commitAsync()} and doesn't start another
+	 * automatic commit before the previous one completed. If an automatic commit fails, the UoW
+	 * stops committing on its own until it is committed or rolled back explicitly.
+	 * 
+	 * @param autoFlushPolicy the policy or null to commit only when asked to
+	 */
+	public void setAutoFlushPolicy(AutoFlushPolicy autoFlushPolicy)
+	{
+		synchronized (this.changeLogs) { this.autoFlushPolicy = autoFlushPolicy; }
+	}
+
+	/**
+	 * Declares that the changes of one repository must be committed after the changes of another
+	 * repository were committed successfully (e.g. because its data objects reference the other ones).
+	 * Only regarded if repositories are committed concurrently.
+	 * 
+	 * @param repository the repository which must be committed later
+	 * @param dependency the repository which must be committed first
+	 * @throws IllegalArgumentException thrown if a repository is not tracked by the UoW or the dependency would create a cycle
+	 */
+	public synchronized void addDependency(GenericRepository<?,?> repository, GenericRepository<?,?> dependency)
+	{
+		if ((repository == null) || (!this.changeLogs.containsKey(repository))) throw new IllegalArgumentException("repository");
+		if ((dependency == null) || (!this.changeLogs.containsKey(dependency))) throw new IllegalArgumentException("dependency");
+		if ((repository == dependency) || this.dependsOn((GenericRepositoryImpl<?,?>) dependency, (GenericRepositoryImpl<?,?>) repository)) throw new IllegalArgumentException("dependency");
+
+		this.dependencies.computeIfAbsent((GenericRepositoryImpl<?,?>) repository, r -> new HashSet<>()).add((GenericRepositoryImpl<?,?>) dependency);
+	}
+
+	private void rollbackTransaction(WriteAheadLog.Transaction transaction, Collection<RepositoryCommit> repositoryCommits) throws Exception
+	{
+		this.writeAheadLog.rollback(transaction);
+
+		// The written domain objects go back into the frozen change logs, so their changes remain in the UoW
+		for (RepositoryCommit commit : repositoryCommits) commit.restore();
+	}
+
+	private void notifyListenersAfterCommit(Exception exception)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.afterCommit(exception);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	private void notifyListenersBeforeAutoFlush(int pendingObjects, long pendingBytes)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.beforeAutoFlush(pendingObjects, pendingBytes);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	/**
+	 * Adds a change to the estimated size and age of the pending changes. Must be called while holding the monitor of the change logs.
+	 */
+	private void trackPendingChange(Object obj)
+	{
+		if (this.autoFlushPolicy == null) return;
+		if (this.pendingBytes == 0) this.firstPendingChange = System.nanoTime();
+
+		this.pendingBytes += this.autoFlushPolicy.estimateSize(obj);
+	}
+
+	/**
+	 * Commits the pending changes asynchronously if they exceed the limits of the auto-flush policy.
+	 * Must not be called while holding the monitor of the change logs.
+	 */
+	private void autoFlushIfNeeded()
+	{
+		int pendingObjects = 0;
+		long pendingBytes;
+
+		synchronized (this.changeLogs)
+		{
+			if ((this.autoFlushPolicy == null) || this.autoFlushing || this.autoFlushSuspended) return;
+
+			for (RepositoryChangeLog changeLog : this.changeLogs.values())
+			{
+				pendingObjects += changeLog.getObjectsToRemove().size() + changeLog.getObjectsToAdd().size() + changeLog.getObjectsToUpdate().size();
+			}
+
+			// Changes which were undone in the meantime are not pending anymore
+			if (pendingObjects == 0) this.pendingBytes = 0;
+
+			long age = (this.pendingBytes > 0) ? TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.firstPendingChange) : 0;
+
+			if ((pendingObjects == 0) || !this.autoFlushPolicy.isExceeded(pendingObjects, this.pendingBytes, age)) return;
+
+			// Committing tracks changes as well, which must not start another commit
+			this.autoFlushing = true;
+			pendingBytes = this.pendingBytes;
+		}
+
+		this.notifyListenersBeforeAutoFlush(pendingObjects, pendingBytes);
+
+		try
+		{
+			this.commitAsync().whenComplete((result, exception) ->
+			{
+				synchronized (this.changeLogs)
+				{
+					this.autoFlushing = false;
+
+					if (exception != null) this.autoFlushSuspended = true;
+				}
+			});
+		}
+		catch (Exception e)
+		{
+			synchronized (this.changeLogs)
+			{
+				this.autoFlushing = false;
+				this.autoFlushSuspended = true;
+			}
+
+			e.printStackTrace(System.err);
+		}
+	}
+
+	private void commit(Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> changeLogs) throws Exception
+	{
+		WriteAheadLog.Transaction transaction = (this.writeAheadLog != null) ? this.writeAheadLog.begin() : null;
+		Map<GenericRepositoryImpl<?,?>, RepositoryCommit> repositoryCommits = new LinkedHashMap<GenericRepositoryImpl<?,?>, RepositoryCommit>(changeLogs.size());
+
+		for (GenericRepositoryImpl<?,?> repository : changeLogs.keySet()) repositoryCommits.put(repository, new RepositoryCommit(repository, changeLogs.get(repository), this.commitChunkSize, this.writeAheadLog, transaction));
+
+		try
+		{
+			if (this.parallelCommit) this.commitRepositoriesInParallel(repositoryCommits);
+			else for (RepositoryCommit commit : repositoryCommits.values()) this.commitRepository(commit);
+		}
+		catch (Exception e)
+		{
+			if (transaction != null) this.rollbackTransaction(transaction, repositoryCommits.values());
+
+			throw e;
+		}
+
+		if (transaction != null) this.writeAheadLog.commit(transaction);
+	}
+
+	private void commitChangeLogs(Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> changeLogs, long undoPosition) throws DALException, DomainException
+	{
+		Exception exception = null;
+
+		try
+		{
+			this.commit(changeLogs);
+
+			// The committed changes cannot be undone anymore
+			synchronized (this.changeLogs) { this.undoLog.discard(undoPosition); }
+		}
+		catch (DALException e)
+		{
+			exception = e;
+
+			throw e;
+		}
+		catch (ConcurrencyConflictException e)
+		{
+			exception = e;
+
+			throw e;
+		}
+		catch (Exception e)
+		{
+			DomainException domainException = new DomainException(e);
+
+			exception = domainException;
+
+			throw domainException;
+		}
+		finally
+		{
+			// The changes which were not committed are tracked by the UoW again
+			if (exception != null) this.unfreezeChangeLogs(changeLogs);
+
+			this.notifyListenersAfterCommit(exception);
+		}
+	}
+
+	private void detectModifiedObjects() throws DomainException
+	{
+		try
+		{
+			// Mark objects which were changed without calling setModified
+			for (GenericRepositoryImpl<?,?> repository : this.changeLogs.keySet()) repository.detectModifiedObjects();
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	private Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> freezeChangeLogs()
+	{
+		synchronized (this.changeLogs)
+		{
+			Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> frozenChangeLogs = new LinkedHashMap<GenericRepositoryImpl<?,?>, RepositoryChangeLog>(this.changeLogs);
+
+			for (GenericRepositoryImpl<?,?> repository : this.changeLogs.keySet()) this.changeLogs.put(repository, new RepositoryChangeLog());
+
+			this.pendingBytes = 0;
+
+			return frozenChangeLogs;
+		}
+	}
+
+	private void unfreezeChangeLogs(Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> frozenChangeLogs)
+	{
+		synchronized (this.changeLogs)
+		{
+			for (GenericRepositoryImpl<?,?> repository : frozenChangeLogs.keySet())
+			{
+				RepositoryChangeLog frozenChangeLog = frozenChangeLogs.get(repository);
+				RepositoryChangeLog changeLog = this.changeLogs.get(repository);
+
+				if (changeLog == null) continue;
+
+				// Changes made after the commit started take precedence
+				for (Object obj : frozenChangeLog.getObjectsToRemove())
+				{
+					if ((!changeLog.getObjectsToAdd().contains(obj)) && changeLog.getObjectsToRemove().add(obj)) this.trackPendingChange(obj);
+				}
+
+				for (Object obj : frozenChangeLog.getObjectsToAdd())
+				{
+					if ((!changeLog.getObjectsToRemove().contains(obj)) && changeLog.getObjectsToAdd().add(obj)) this.trackPendingChange(obj);
+				}
+
+				for (Object obj : frozenChangeLog.getObjectsToUpdate())
+				{
+					if ((!changeLog.getObjectsToRemove().contains(obj)) && changeLog.getObjectsToUpdate().add(obj)) this.trackPendingChange(obj);
+				}
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void commit() throws DALException, DomainException 
+	{
+		CompletableFuture<Void> commit = new CompletableFuture<Void>();
+		CompletableFuture<Void> previousCommit;
+		Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> frozenChangeLogs;
+		long undoPosition;
+
+		this.detectModifiedObjects();
+
+		synchronized (this.changeLogs)
+		{
+			frozenChangeLogs = this.freezeChangeLogs();
+			undoPosition = this.undoLog.getPosition();
+			previousCommit = this.lastCommit;
+			this.autoFlushSuspended = false;
+			this.lastCommit = commit;
+		}
+
+		try
+		{
+			// Commits of the UoW are executed in the order they were started
+			previousCommit.handle((result, exception) -> null).join();
+
+			this.commitChangeLogs(frozenChangeLogs, undoPosition);
+		}
+		finally
+		{
+			commit.complete(null);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The commit is executed on a virtual thread which notifies the listeners as well.
+	 */
+	public CompletableFuture<Void> commitAsync() throws DomainException
+	{
+		this.detectModifiedObjects();
+
+		synchronized (this.changeLogs)
+		{
+			Map<GenericRepositoryImpl<?,?>, RepositoryChangeLog> frozenChangeLogs = this.freezeChangeLogs();
+			long undoPosition = this.undoLog.getPosition();
+
+			// Commits of the UoW are executed in the order they were started
+			CompletableFuture<Void> commit = this.lastCommit.handle((result, exception) -> (Void) null).thenRunAsync(() ->
+			{
+				try
+				{
+					this.commitChangeLogs(frozenChangeLogs, undoPosition);
+				}
+				catch (Exception e)
+				{
+					throw new CompletionException(e);
+				}
+			}, command -> Thread.ofVirtual().start(command));
+
+			this.lastCommit = commit;
+
+			return commit;
+		}
+	}
+
+	private void notifyListenersAfterRollback(Collection<Object> objs)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.afterRollback(objs);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	/**
+	 * Undoes a single change if the object still has the state the change left it in
+	 */
+	private void undo(UndoLog.Entry entry) throws Exception
+	{
+		GenericRepositoryImpl<?,?> repository = entry.getRepository();
+		DomainObject obj = (DomainObject) entry.getObject();
+
+		switch (entry.getKind())
+		{
+			case Added:
+				// The repository notifies the UoW which removes the object from the change log
+				if (obj.getState() == State.Added) repository.remove(obj);
+				break;
+
+			case Removed:
+				if (entry.getState() == State.Added)
+				{
+					if ((obj.getState() == State.Detached) && (!GenericRepositoryImpl.isPersisted(obj))) repository.add(obj);
+				}
+				else if (obj.getState() == State.Deleted)
+				{
+					repository.restoreRemovedObject(obj, entry.getState());
+
+					synchronized (this.changeLogs)
+					{
+						RepositoryChangeLog changeLog = this.changeLogs.get(repository);
+
+						synchronized (changeLog.getObjectsToRemove()) { changeLog.getObjectsToRemove().remove(obj); }
+
+						if (entry.getState() == State.Modified)
+						{
+							synchronized (changeLog.getObjectsToUpdate()) { changeLog.getObjectsToUpdate().add(obj); }
+						}
+					}
+				}
+				break;
+
+			case Modified:
+				// Objects which were committed or removed since they were changed are not restored
+				State pendingState = (entry.getState() == State.Unchanged) ? State.Modified : entry.getState();
+
+				if (obj.getState() != pendingState) break;
+
+				repository.restoreDomainObject(obj, entry.getBeforeImage(), entry.getState());
+
+				if (entry.getState() == State.Unchanged)
+				{
+					synchronized (this.changeLogs)
+					{
+						RepositoryChangeLog changeLog = this.changeLogs.get(repository);
+
+						synchronized (changeLog.getObjectsToUpdate()) { changeLog.getObjectsToUpdate().remove(obj); }
+					}
+				}
+				break;
+		}
+	}
+
+	/**
+	 * Waits until the commits which were started before are completed. Afterwards the changes of these
+	 * commits were either discarded from the undo log or remain in the UoW because the commit failed.
+	 */
+	private void awaitCommits()
+	{
+		CompletableFuture<Void> lastCommit;
+
+		synchronized (this.changeLogs) { lastCommit = this.lastCommit; }
+
+		lastCommit.handle((result, exception) -> (Void) null).join();
+	}
+
+	/**
+	 * Undoes the changes which were logged at or after the given position in the reverse order they were made
+	 */
+	private void rollback(long position) throws DomainException
+	{
+		try
+		{
+			List<UndoLog.Entry> entries;
+			Set<Object> objectsToRollBack = RepositoryChangeLog.createObjectSet();
+			Collection<Object> rolledBackObjects = new ArrayList<>();
+
+			synchronized (this.changeLogs) { entries = this.undoLog.getEntries(position); }
+
+			for (int i=entries.size() -1; i>=0; i--)
+			{
+				UndoLog.Entry entry = entries.get(i);
+
+				this.undo(entry);
+
+				if (objectsToRollBack.add(entry.getObject())) rolledBackObjects.add(entry.getObject());
+			}
+
+			// Undoing the changes logged changes as well, which are removed together with the undone ones
+			synchronized (this.changeLogs) { this.undoLog.truncate(position); }
+
+			this.notifyListenersAfterRollback(rolledBackObjects);
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * Only the objects which were changed are restored; the repositories are not reloaded.
+	 * Commits which are in progress are awaited, so the changes they persist are not restored.
+	 */
+	public void rollback() throws DomainException
+	{
+		this.awaitCommits();
+
+		synchronized (this.changeLogs) { this.autoFlushSuspended = false; }
+
+		this.rollback(0);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * The values of the objects which are added or modified when the savepoint is set are copied,
+	 * so setting a savepoint costs one conversion per pending object.
+	 */
+	public void setSavepoint(String name) throws IllegalArgumentException, DomainException
+	{
+		if (name == null) throw new IllegalArgumentException("name");
+
+		try
+		{
+			Map<GenericRepositoryImpl<?,?>, Collection<Object>> pendingObjects = new LinkedHashMap<GenericRepositoryImpl<?,?>, Collection<Object>>();
+			Collection<UndoLog.Entry> entries = new ArrayList<UndoLog.Entry>();
+
+			synchronized (this.changeLogs)
+			{
+				for (GenericRepositoryImpl<?,?> repository : this.changeLogs.keySet())
+				{
+					RepositoryChangeLog changeLog = this.changeLogs.get(repository);
+					Collection<Object> objs = new ArrayList<Object>();
+
+					synchronized (changeLog.getObjectsToAdd()) { objs.addAll(changeLog.getObjectsToAdd()); }
+					synchronized (changeLog.getObjectsToUpdate()) { objs.addAll(changeLog.getObjectsToUpdate()); }
+
+					pendingObjects.put(repository, objs);
+				}
+			}
+
+			// Further changes of pending objects are not notified, so their current values are logged
+			for (GenericRepositoryImpl<?,?> repository : pendingObjects.keySet())
+			{
+				for (Object obj : pendingObjects.get(repository))
+				{
+					entries.add(new UndoLog.Entry(UndoLog.Kind.Modified, repository, obj, ((DomainObject) obj).getState(), repository.createBeforeImage(obj)));
+				}
+			}
+
+			synchronized (this.changeLogs)
+			{
+				// The values are restored when rolling back to the savepoint, so they are logged after it
+				this.undoLog.setSavepoint(name);
+
+				for (UndoLog.Entry entry : entries) this.undoLog.add(entry);
+			}
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void rollbackToSavepoint(String name) throws IllegalArgumentException, DomainException
+	{
+		long position;
+
+		// Savepoints are released if a commit in progress persists the changes made before them
+		this.awaitCommits();
+
+		synchronized (this.changeLogs) { position = this.undoLog.getSavepoint(name); }
+
+		this.rollback(position);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void releaseSavepoint(String name) throws IllegalArgumentException
+	{
+		synchronized (this.changeLogs) { this.undoLog.releaseSavepoint(name); }
+	}
+
+	private void notifyListenersAfterReload(Collection<Object> objs)
+	{
+		for (UnitOfWorkListener listener : this.listners)
+		{
+			try
+			{
+				listener.afterReload(objs);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onReload(GenericRepository<?,?> repository) throws DomainException
+	{
+		try
+		{
+			RepositoryChangeLog changeLog;
+
+			synchronized (this.changeLogs)
+			{
+				changeLog = this.changeLogs.get(repository);
+
+				// The objects of the repository were replaced, so their changes cannot be undone anymore
+				if (changeLog != null) this.undoLog.remove((GenericRepositoryImpl<?,?>) repository);
+			}
+
+			if (changeLog == null) return;
+
+			Collection<Object> detachedObjects = new ArrayList<>();
+			
+			synchronized (changeLog.getObjectsToRemove())
+			{
+				for (Object objToRemove : changeLog.getObjectsToRemove())
+				{
+					if (objToRemove instanceof DomainObject) ((DomainObject) objToRemove).setState(State.Detached);
+				}
+
+				detachedObjects.addAll(changeLog.getObjectsToRemove());
+				changeLog.getObjectsToRemove().clear();
+			}
+			
+			synchronized (changeLog.getObjectsToAdd())
+			{
+				for (Object objToAdd : changeLog.getObjectsToAdd())
+				{
+					if (objToAdd instanceof DomainObject) ((DomainObject) objToAdd).setState(State.Detached);
+				}
+
+				detachedObjects.addAll(changeLog.getObjectsToAdd());
+				changeLog.getObjectsToAdd().clear();
+			}
+			
+			synchronized (changeLog.getObjectsToUpdate())
+			{
+				changeLog.getObjectsToUpdate().clear();
+			}
+
+			this.notifyListenersAfterReload(detachedObjects);
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onObjectAdded(GenericRepository<?,?> repository, Object obj) throws DomainException 
+	{
+		try
+		{
+			// The change log must not be frozen by a commit in the meantime
+			synchronized (this.changeLogs)
+			{
+				RepositoryChangeLog changeLog = this.changeLogs.get(repository);
+
+				if (changeLog == null) return;
+
+				synchronized (changeLog.getObjectsToAdd())
+				{
+					changeLog.getObjectsToAdd().add(obj);
+				}
+
+				this.undoLog.add(new UndoLog.Entry(UndoLog.Kind.Added, (GenericRepositoryImpl<?,?>) repository, obj, State.Detached, null));
+				this.trackPendingChange(obj);
+			}
+
+			this.autoFlushIfNeeded();
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void onObjectRemoved(GenericRepository<?,?> repository, Object obj) throws DomainException 
+	{
+		try
+		{
+			// The change log must not be frozen by a commit in the meantime
+			synchronized (this.changeLogs)
+			{
+				RepositoryChangeLog changeLog = this.changeLogs.get(repository);
+
+				if (changeLog == null) return;
+
+				boolean wasModified;
+
+				synchronized (changeLog.getObjectsToUpdate()) { wasModified = changeLog.getObjectsToUpdate().remove(obj); }
+				synchronized (changeLog.getObjectsToAdd()) { changeLog.getObjectsToAdd().remove(obj); }
+
+				// Only mark objects for deletion if they were persisted already
+				if ((obj instanceof DomainObject) && GenericRepositoryImpl.isPersisted((DomainObject) obj))
+				{
+					synchronized (changeLog.getObjectsToRemove()) { changeLog.getObjectsToRemove().add(obj); }
+				}
+
+				if (obj instanceof DomainObject)
+				{
+					// Removing detaches added objects and deletes all others
+					State state = (((DomainObject) obj).getState() == State.Detached) ? State.Added : (wasModified ? State.Modified : State.Unchanged);
+
+					this.undoLog.add(new UndoLog.Entry(UndoLog.Kind.Removed, (GenericRepositoryImpl<?,?>) repository, obj, state, null));
+				}
+
+				this.trackPendingChange(obj);
+			}
+
+			this.autoFlushIfNeeded();
+		}
+		catch (Exception e)
+		{
+			throw new DomainException(e);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void onObjectModified(GenericRepository<?, ?> repository, Object obj) throws DomainException
+	{
+		try
+		{
+			// The object is modified for the first time, so the data object it was loaded from has its previous values
+			GenericDataObject beforeImage = (repository instanceof GenericRepositoryImpl) ? ((GenericRepositoryImpl<?,?>) repository).getLoadedDataObject(obj) : null;
+
+			// The change log must not be frozen by a commit in the meantime
+			synchronized (this.changeLogs)
+			{
+				RepositoryChangeLog changeLog = this.changeLogs.get(repository);
+
+				if (changeLog == null) return;
+
+				synchronized (changeLog.getObjectsToUpdate()) { changeLog.getObjectsToUpdate().add(obj); }
+
+				if (obj instanceof DomainObject) this.undoLog.add(new UndoLog.Entry(UndoLog.Kind.Modified, (GenericRepositoryImpl<?,?>) repository, obj, State.Unchanged, beforeImage));
+
+				this.trackPendingChange(obj);
+			}
+
+			this.autoFlushIfNeeded();
+		}
+		catch (Exception e)
+		{
+			 throw new DomainException(e);
+		}		
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void close() throws IOException 
+	{
+		try
+		{
+			this.rollback();
+			
+			for (GenericRepository<?,?> repository : this.changeLogs.keySet()) repository.removeChangeListener(this);
+			
+			this.changeLogs.clear();
+			this.undoLog.clear();
+		}
+		catch (Exception e)
+		{
+			System.err.println(e.getMessage());
+		}
+		finally
+		{
+			UnitOfWorkLeakDetector.closed(this.leakTracker);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addListener(UnitOfWorkListener listener)
+	{
+		if (listener == null) throw new IllegalArgumentException("listener");
+
+		this.listners.add(listener);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void removeListener(UnitOfWorkListener listener)
+	{
+		if (listener == null) throw new IllegalArgumentException("listener");
+
+		this.listners.remove(listener);
+	}
+}
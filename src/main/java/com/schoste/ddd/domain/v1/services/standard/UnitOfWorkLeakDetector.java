@@ -0,0 +1,165 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import com.schoste.ddd.domain.v1.services.UnitOfWork;
+
+/**
+ * Reports Units of Work (UoW) which were garbage collected without being closed.
+ * Only every n-th UoW is tracked (sampling), because tracking captures the stack of the
+ * thread which creates the UoW. Leaks are reported to the reporter with the stack at
+ * the creation of the UoW whenever a UoW is created or {@see UnitOfWorkLeakDetector#reportLeaks()}
+ * is called. Tracking is disabled by default.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public final class UnitOfWorkLeakDetector
+{
+	/**
+	 * Weak reference to a tracked UoW which remembers where the UoW was created
+	 */
+	static final class Tracker extends WeakReference<UnitOfWork>
+	{
+		private final Throwable creationStack;
+
+		private Tracker(UnitOfWork uow, ReferenceQueue<UnitOfWork> queue)
+		{
+			super(uow, queue);
+
+			this.creationStack = new Throwable(String.format("%s was not closed; it was created at", uow.getClass().getName()));
+		}
+	}
+
+	private static final ReferenceQueue<UnitOfWork> collectedUnitsOfWork = new ReferenceQueue<UnitOfWork>();
+	private static final Set<Tracker> trackers = ConcurrentHashMap.newKeySet();
+	private static final AtomicLong createdUnitsOfWork = new AtomicLong();
+
+	private static volatile int samplingInterval = 0;
+	private static volatile Consumer<Throwable> reporter = creationStack -> creationStack.printStackTrace(System.err);
+
+	private UnitOfWorkLeakDetector() { }
+
+	/**
+	 * Gets how many UoWs are created per tracked UoW
+	 *
+	 * @return the number of UoWs or zero if tracking is disabled
+	 */
+	public static int getSamplingInterval() { return samplingInterval; }
+
+	/**
+	 * Sets how many UoWs are created per tracked UoW. 1 tracks every UoW.
+	 *
+	 * @param samplingInterval the number of UoWs or zero to disable tracking
+	 * @throws IllegalArgumentException thrown if samplingInterval is negative
+	 */
+	public static void setSamplingInterval(int samplingInterval)
+	{
+		if (samplingInterval < 0) throw new IllegalArgumentException("samplingInterval");
+
+		UnitOfWorkLeakDetector.samplingInterval = samplingInterval;
+	}
+
+	/**
+	 * Sets the consumer of leaks. The leaks are printed to the standard error stream by default.
+	 *
+	 * @param reporter the consumer of the stacks at the creation of leaked UoWs
+	 * @throws IllegalArgumentException thrown if reporter is null
+	 */
+	public static void setReporter(Consumer<Throwable> reporter)
+	{
+		if (reporter == null) throw new IllegalArgumentException("reporter");
+
+		UnitOfWorkLeakDetector.reporter = reporter;
+	}
+
+	/**
+	 * Gets where the tracked UoWs were created which were neither closed nor garbage collected yet
+	 *
+	 * @return the stacks at the creation of the UoWs
+	 */
+	public static Collection<Throwable> getUnclosedUnitsOfWork()
+	{
+		Collection<Throwable> creationStacks = new ArrayList<Throwable>();
+
+		for (Tracker tracker : trackers)
+		{
+			if (tracker.get() != null) creationStacks.add(tracker.creationStack);
+		}
+
+		return creationStacks;
+	}
+
+	/**
+	 * Reports the tracked UoWs which were garbage collected without being closed
+	 *
+	 * @return the number of leaks which were reported
+	 */
+	public static int reportLeaks()
+	{
+		int leaks = 0;
+
+		for (Reference<? extends UnitOfWork> collected; (collected = collectedUnitsOfWork.poll()) != null; )
+		{
+			Tracker tracker = (Tracker) collected;
+
+			// Trackers of closed UoWs were removed and cleared, so they are never enqueued
+			if (!trackers.remove(tracker)) continue;
+
+			leaks++;
+
+			try
+			{
+				reporter.accept(tracker.creationStack);
+			}
+			catch (Exception e)
+			{
+				e.printStackTrace(System.err);
+			}
+		}
+
+		return leaks;
+	}
+
+	/**
+	 * Starts tracking a new UoW if it is sampled and reports the leaks found so far
+	 *
+	 * @param uow the new UoW
+	 * @return the tracker to pass to {@see UnitOfWorkLeakDetector#closed(Tracker)} or null if the UoW is not tracked
+	 */
+	static Tracker created(UnitOfWork uow)
+	{
+		reportLeaks();
+
+		int interval = samplingInterval;
+
+		if ((interval == 0) || ((createdUnitsOfWork.getAndIncrement() % interval) != 0)) return null;
+
+		Tracker tracker = new Tracker(uow, collectedUnitsOfWork);
+
+		trackers.add(tracker);
+
+		return tracker;
+	}
+
+	/**
+	 * Stops tracking a UoW because it was closed
+	 *
+	 * @param tracker the tracker returned by {@see UnitOfWorkLeakDetector#created(UnitOfWork)} or null
+	 */
+	static void closed(Tracker tracker)
+	{
+		if (tracker == null) return;
+
+		trackers.remove(tracker);
+		tracker.clear();
+	}
+}
@@ -0,0 +1,122 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.concurrent.Callable;
+
+import com.schoste.ddd.domain.v1.services.UnitOfWork;
+
+/**
+ * Binds a Unit of Work (UoW) to a region of code, so it doesn't have to be passed to every service.
+ * Threads started within the region (e.g. virtual threads of an executor created in the region)
+ * inherit the binding, so work which fans out stays attributed to the same UoW. The binding ends
+ * for the inherited threads as well when the region ends, so pooled threads which were started
+ * within the region don't keep the UoW (or a reference to it) for tasks submitted later.
+ * While a UoW is bound, repositories which it tracks notify only this UoW of changed objects and not
+ * the other UoWs tracking the same repository (see {@see GenericRepositoryImpl}). Reloads are still
+ * reported to all UoWs.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public final class UnitOfWorkScope
+{
+	/**
+	 * Binding of a region which threads started within the region share. The UoW is cleared when the region ends.
+	 */
+	private static final class Binding
+	{
+		private final Binding parent;
+		private volatile UnitOfWork unitOfWork;
+
+		private Binding(Binding parent, UnitOfWork unitOfWork)
+		{
+			this.parent = parent;
+			this.unitOfWork = unitOfWork;
+		}
+	}
+
+	private static final InheritableThreadLocal<Binding> currentBinding = new InheritableThreadLocal<Binding>();
+
+	private UnitOfWorkScope() { }
+
+	/**
+	 * Gets the UoW which is bound to the current thread
+	 *
+	 * @return the UoW of the innermost region which didn't end yet or null if no UoW is bound
+	 */
+	public static UnitOfWork current()
+	{
+		for (Binding binding = currentBinding.get(); binding != null; binding = binding.parent)
+		{
+			UnitOfWork unitOfWork = binding.unitOfWork;
+
+			if (unitOfWork != null) return unitOfWork;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Executes a task while the given UoW is bound. The previous binding is restored afterwards.
+	 *
+	 * @param <R> the type of the result
+	 * @param uow the UoW to bind
+	 * @param task the task to execute
+	 * @return the result of the task
+	 * @throws IllegalArgumentException thrown if uow or task is null
+	 * @throws Exception re-throws every exception of the task
+	 */
+	public static <R> R call(UnitOfWork uow, Callable<R> task) throws IllegalArgumentException, Exception
+	{
+		if (uow == null) throw new IllegalArgumentException("uow");
+		if (task == null) throw new IllegalArgumentException("task");
+
+		Binding previousBinding = currentBinding.get();
+		Binding binding = new Binding(previousBinding, uow);
+
+		currentBinding.set(binding);
+
+		try
+		{
+			return task.call();
+		}
+		finally
+		{
+			// Threads which inherited the binding see the end of the region as well
+			binding.unitOfWork = null;
+
+			if (previousBinding != null) currentBinding.set(previousBinding);
+			else currentBinding.remove();
+		}
+	}
+
+	/**
+	 * Executes a task while the given UoW is bound. The previous binding is restored afterwards.
+	 *
+	 * @param uow the UoW to bind
+	 * @param task the task to execute
+	 * @throws IllegalArgumentException thrown if uow or task is null
+	 */
+	public static void run(UnitOfWork uow, Runnable task) throws IllegalArgumentException
+	{
+		if (task == null) throw new IllegalArgumentException("task");
+
+		try
+		{
+			call(uow, () ->
+			{
+				task.run();
+
+				return null;
+			});
+		}
+		catch (RuntimeException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			// A runnable cannot throw checked exceptions
+			throw new IllegalStateException(e);
+		}
+	}
+}
@@ -0,0 +1,463 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Local, append-only log which makes the commits of Units of Work (UoW) atomic.
+ * Before a UoW changes a data object it logs the persisted data object (before image) and
+ * after it saved a new data object it logs the new data object. The records are forced to
+ * disk in groups, so concurrent UoWs share the cost of the forces.
+ * If a commit fails, its changes are undone from the log. Commits which were interrupted
+ * (e.g. by a crash) are undone by {@see WriteAheadLog#recover(Collection)}.
+ * The log is truncated whenever no commit is in progress.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class WriteAheadLog implements Closeable
+{
+	private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+
+	/**
+	 * Types of the log records
+	 */
+	enum RecordType { Begin, BeforeImage, Inserted, Commit, Rollback }
+
+	/**
+	 * Record of the log
+	 */
+	static class Record implements Serializable
+	{
+		private static final long serialVersionUID = -2751832542961047309L;
+
+		private final RecordType type;
+		private final String transactionId;
+		private final String dataObjectClass;
+		private final GenericDataObject[] dataObjects;
+
+		Record(RecordType type, String transactionId, String dataObjectClass, GenericDataObject[] dataObjects)
+		{
+			this.type = type;
+			this.transactionId = transactionId;
+			this.dataObjectClass = dataObjectClass;
+			this.dataObjects = dataObjects;
+		}
+	}
+
+	/**
+	 * Commit of a UoW which is logged
+	 */
+	static class Transaction
+	{
+		private final String id = UUID.randomUUID().toString();
+		private final Set<GenericRepositoryImpl<?,?>> repositories = Collections.synchronizedSet(new HashSet<GenericRepositoryImpl<?,?>>());
+
+		/**
+		 * Gets the repositories whose data objects were logged
+		 *
+		 * @return the repositories whose data objects were logged
+		 */
+		Collection<GenericRepositoryImpl<?,?>> getRepositories()
+		{
+			synchronized (this.repositories) { return new ArrayList<GenericRepositoryImpl<?,?>>(this.repositories); }
+		}
+	}
+
+	private final FileChannel channel;
+	private final ReentrantLock lock = new ReentrantLock();
+	private final ReentrantLock forceLock = new ReentrantLock();
+	private long appendedBytes = 0;
+	private long forcedBytes = 0;
+	private int activeTransactions = 0;
+
+	private static byte[] serialize(Record record) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(record);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static Record deserialize(byte[] bytes) throws IOException, ClassNotFoundException
+	{
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)))
+		{
+			return (Record) in.readObject();
+		}
+	}
+
+	/**
+	 * Opens the log. A new log file is created if it doesn't exist.
+	 *
+	 * @param path the path of the log file
+	 * @throws IOException thrown if the log file cannot be opened
+	 */
+	public WriteAheadLog(Path path) throws IOException
+	{
+		if (path == null) throw new IllegalArgumentException("path");
+
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Appends a record to the end of the log
+	 *
+	 * @param record the record to append
+	 * @return the number of bytes which must be forced to disk for the record to be durable
+	 * @throws IOException thrown if the record cannot be written
+	 */
+	private long append(Record record) throws IOException
+	{
+		byte[] bytes = serialize(record);
+		CRC32 checksum = new CRC32();
+		ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + bytes.length);
+
+		checksum.update(bytes);
+		buffer.putInt(bytes.length).putLong(checksum.getValue()).put(bytes).flip();
+
+		this.lock.lock();
+
+		try
+		{
+			long position = this.channel.size();
+
+			while (buffer.hasRemaining()) position += this.channel.write(buffer, position);
+
+			this.appendedBytes += buffer.limit();
+
+			return this.appendedBytes;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Forces the log to disk up to the given number of appended bytes at least.
+	 * A thread which forces the log makes the records of all threads waiting for it durable as well.
+	 *
+	 * @param bytes the number of bytes which must be durable
+	 * @throws IOException thrown if the log cannot be forced
+	 */
+	private void force(long bytes) throws IOException
+	{
+		this.forceLock.lock();
+
+		try
+		{
+			if (this.forcedBytes >= bytes) return;
+
+			long appendedBytes;
+
+			this.lock.lock();
+
+			try
+			{
+				appendedBytes = this.appendedBytes;
+			}
+			finally
+			{
+				this.lock.unlock();
+			}
+
+			this.channel.force(false);
+			this.forcedBytes = appendedBytes;
+		}
+		finally
+		{
+			this.forceLock.unlock();
+		}
+	}
+
+	/**
+	 * Reads all records which were appended completely
+	 *
+	 * @return the records in the order they were appended
+	 * @throws IOException thrown if the log cannot be read
+	 */
+	private List<Record> readRecords() throws IOException
+	{
+		List<Record> records = new ArrayList<Record>();
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		long position = 0;
+		long size = this.channel.size();
+
+		while (position + HEADER_SIZE <= size)
+		{
+			header.clear();
+
+			while (header.hasRemaining()) this.channel.read(header, position + header.position());
+
+			header.flip();
+
+			int length = header.getInt();
+			long expectedChecksum = header.getLong();
+
+			// A record which was not appended completely ends the log
+			if ((length < 0) || (position + HEADER_SIZE + length > size)) break;
+
+			ByteBuffer bytes = ByteBuffer.allocate(length);
+
+			while (bytes.hasRemaining()) this.channel.read(bytes, position + HEADER_SIZE + bytes.position());
+
+			CRC32 checksum = new CRC32();
+
+			checksum.update(bytes.array());
+
+			if (checksum.getValue() != expectedChecksum) break;
+
+			try
+			{
+				records.add(deserialize(bytes.array()));
+			}
+			catch (ClassNotFoundException e)
+			{
+				throw new IOException(e);
+			}
+
+			position += HEADER_SIZE + length;
+		}
+
+		return records;
+	}
+
+	/**
+	 * Undoes the changes of the given transactions by restoring the before images and deleting
+	 * the inserted data objects in the reverse order of the log
+	 */
+	private static void undo(List<Record> records, Set<String> transactionIds, Map<String, GenericDataAccessObject<?>> dataAccessObjects) throws Exception
+	{
+		for (int i=records.size() -1; i>=0; i--)
+		{
+			Record record = records.get(i);
+
+			if (!transactionIds.contains(record.transactionId)) continue;
+			if ((record.type != RecordType.BeforeImage) && (record.type != RecordType.Inserted)) continue;
+
+			GenericDataAccessObject<?> dao = dataAccessObjects.get(record.dataObjectClass);
+
+			if (dao == null) throw new IllegalStateException(record.dataObjectClass);
+
+			ReentrantLock writeLock = GroupCommitCoordinator.getWriteLock(dao);
+
+			writeLock.lock();
+
+			try
+			{
+				if (record.type == RecordType.BeforeImage) dao.save(record.dataObjects);
+				else dao.delete(record.dataObjects);
+			}
+			finally
+			{
+				writeLock.unlock();
+			}
+		}
+	}
+
+	private static Map<String, GenericDataAccessObject<?>> getDataAccessObjects(Collection<? extends GenericRepositoryImpl<?,?>> repositories) throws Exception
+	{
+		Map<String, GenericDataAccessObject<?>> dataAccessObjects = new HashMap<String, GenericDataAccessObject<?>>(repositories.size());
+
+		for (GenericRepositoryImpl<?,?> repository : repositories) dataAccessObjects.put(repository.getDataObjectClass().getName(), repository.getDataAccessObject());
+
+		return dataAccessObjects;
+	}
+
+	private void endTransaction() throws IOException
+	{
+		this.lock.lock();
+
+		try
+		{
+			// Nothing in the log is needed anymore if no commit is in progress
+			if (--this.activeTransactions == 0) this.channel.truncate(0);
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Starts logging a commit
+	 *
+	 * @return the logged commit
+	 * @throws IOException thrown if the log cannot be written
+	 */
+	Transaction begin() throws IOException
+	{
+		Transaction transaction = new Transaction();
+
+		this.lock.lock();
+
+		try
+		{
+			this.activeTransactions++;
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+
+		this.append(new Record(RecordType.Begin, transaction.id, null, null));
+
+		return transaction;
+	}
+
+	/**
+	 * Logs the data objects as they are persisted before they are changed and makes the record durable.
+	 * Must be called before the data objects are saved or deleted.
+	 *
+	 * @param transaction the logged commit
+	 * @param repository the repository the data objects belong to
+	 * @param beforeImages the persisted data objects
+	 * @throws Exception re-throws every exception
+	 */
+	void logBeforeImages(Transaction transaction, GenericRepositoryImpl<?,?> repository, GenericDataObject[] beforeImages) throws Exception
+	{
+		if (beforeImages.length == 0) return;
+
+		transaction.repositories.add(repository);
+		this.force(this.append(new Record(RecordType.BeforeImage, transaction.id, repository.getDataObjectClass().getName(), beforeImages)));
+	}
+
+	/**
+	 * Logs data objects which are saved for the first time and makes the record durable.
+	 * Should be called before the data objects are saved, which is only possible if their ids are
+	 * known in advance (e.g. allocated by a {@see HiLoIdAllocator}). Data objects which get their ids
+	 * from the data access object can only be logged after they were saved, so a crash in between
+	 * leaves them persisted.
+	 *
+	 * @param transaction the logged commit
+	 * @param repository the repository the data objects belong to
+	 * @param dataObjects the new data objects
+	 * @throws Exception re-throws every exception
+	 */
+	void logInserted(Transaction transaction, GenericRepositoryImpl<?,?> repository, GenericDataObject[] dataObjects) throws Exception
+	{
+		if (dataObjects.length == 0) return;
+
+		transaction.repositories.add(repository);
+		this.force(this.append(new Record(RecordType.Inserted, transaction.id, repository.getDataObjectClass().getName(), dataObjects)));
+	}
+
+	/**
+	 * Marks a logged commit as complete
+	 *
+	 * @param transaction the logged commit
+	 * @throws IOException thrown if the log cannot be written
+	 */
+	void commit(Transaction transaction) throws IOException
+	{
+		this.force(this.append(new Record(RecordType.Commit, transaction.id, null, null)));
+		this.endTransaction();
+	}
+
+	/**
+	 * Undoes the changes of a logged commit which failed
+	 *
+	 * @param transaction the logged commit
+	 * @throws Exception re-throws every exception
+	 */
+	void rollback(Transaction transaction) throws Exception
+	{
+		List<Record> records;
+
+		this.lock.lock();
+
+		try
+		{
+			records = this.readRecords();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+
+		undo(records, Collections.singleton(transaction.id), getDataAccessObjects(transaction.getRepositories()));
+
+		this.force(this.append(new Record(RecordType.Rollback, transaction.id, null, null)));
+		this.endTransaction();
+	}
+
+	/**
+	 * Undoes the changes of all commits which are incomplete in the log, e.g. because the
+	 * application stopped during the commit. Must be called before the repositories are used.
+	 *
+	 * @param repositories the repositories which may have been changed by the commits
+	 * @return the number of commits which were undone
+	 * @throws IllegalStateException thrown if a commit changed a repository which was not passed
+	 * @throws Exception re-throws every exception
+	 */
+	public int recover(Collection<? extends GenericRepositoryImpl<?,?>> repositories) throws IllegalStateException, Exception
+	{
+		if (repositories == null) throw new IllegalArgumentException("repositories");
+
+		this.lock.lock();
+
+		try
+		{
+			if (this.activeTransactions > 0) throw new IllegalStateException();
+
+			List<Record> records = this.readRecords();
+			Set<String> incompleteTransactionIds = new HashSet<String>();
+
+			for (Record record : records)
+			{
+				if ((record.type == RecordType.Commit) || (record.type == RecordType.Rollback)) incompleteTransactionIds.remove(record.transactionId);
+				else incompleteTransactionIds.add(record.transactionId);
+			}
+
+			undo(records, incompleteTransactionIds, getDataAccessObjects(repositories));
+
+			this.channel.truncate(0);
+			this.channel.force(false);
+
+			return incompleteTransactionIds.size();
+		}
+		finally
+		{
+			this.lock.unlock();
+		}
+	}
+
+	/**
+	 * Closes the log file
+	 *
+	 * @throws IOException thrown if the log file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.channel.close();
+	}
+}
@@ -1,6 +1,6 @@
-/**
- * Standard implementation of repositories and depending services
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- */
+/**
+ * Standard implementation of repositories and depending services
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
 package com.schoste.ddd.domain.v1.services.standard;
\ No newline at end of file
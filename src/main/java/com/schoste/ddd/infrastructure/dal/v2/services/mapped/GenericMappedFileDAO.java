@@ -0,0 +1,470 @@
+package com.schoste.ddd.infrastructure.dal.v2.services.mapped;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.zip.CRC32;
+
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.domain.v1.services.VersionedDataAccessObject;
+import com.schoste.ddd.domain.v1.services.VersionedDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+
+/**
+ * Data access object which stores the data objects as serialized records in a single, memory-mapped file.
+ * Saving or deleting a data object appends a record; an in-memory index maps the ids to the offsets of
+ * their latest records. Reading a data object therefore decodes a record from the mapped memory and
+ * {@see GenericMappedFileDAO#getAll()} scans the mapped memory sequentially.
+ * Reads proceed concurrently; saves and deletes are serialized and force the appended records to disk.
+ * Versioned saves and deletes compare the persisted versions while holding the same lock as the write.
+ * The index is rebuilt when the file is opened. Records which were only partially written (e.g. because
+ * of a crash) are detected by their checksum and overwritten by the next save.
+ * Records which were superseded or deleted are not reclaimed, so the file only grows. Its size is
+ * limited to 2 GB, because the file is mapped as a single buffer.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param <DO> the data object class
+ */
+public abstract class GenericMappedFileDAO<DO extends GenericDataObject> implements VersionedDataAccessObject<DO>, Closeable
+{
+	private static final int HEADER_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES;
+	private static final int TOMBSTONE = -1;
+	private static final int DEFAULT_CAPACITY = 1 << 20;
+
+	protected final File file;
+
+	private final FileChannel channel;
+	private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+	private final Map<Integer, Integer> offsets = new HashMap<Integer, Integer>();
+	private MappedByteBuffer buffer;
+	private int end = 0;
+	private int maxId = 0;
+
+	private static byte[] serialize(GenericDataObject dataObject) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(dataObject);
+		}
+
+		return bytes.toByteArray();
+	}
+
+	private static Object deserialize(byte[] bytes) throws IOException, ClassNotFoundException
+	{
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)))
+		{
+			return in.readObject();
+		}
+	}
+
+	/**
+	 * Opens the file of the data access object. A new file is created if it doesn't exist.
+	 *
+	 * @param storagePath the path of the file
+	 * @throws IllegalArgumentException thrown if storagePath is null
+	 * @throws IllegalStateException thrown if the file exceeds the maximum size
+	 * @throws IOException thrown if the file cannot be opened or mapped
+	 */
+	public GenericMappedFileDAO(String storagePath) throws IllegalArgumentException, IllegalStateException, IOException
+	{
+		this(storagePath, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Opens the file of the data access object. A new file is created if it doesn't exist.
+	 *
+	 * @param storagePath the path of the file
+	 * @param initialCapacity the number of bytes to map initially; the mapping grows when it is full
+	 * @throws IllegalArgumentException thrown if storagePath is null or initialCapacity is smaller than a record header
+	 * @throws IllegalStateException thrown if the file exceeds the maximum size
+	 * @throws IOException thrown if the file cannot be opened or mapped
+	 */
+	public GenericMappedFileDAO(String storagePath, int initialCapacity) throws IllegalArgumentException, IllegalStateException, IOException
+	{
+		if (storagePath == null) throw new IllegalArgumentException("storagePath");
+		if (initialCapacity < HEADER_SIZE) throw new IllegalArgumentException("initialCapacity");
+
+		this.file = new File(storagePath);
+
+		File dir = this.file.getAbsoluteFile().getParentFile();
+
+		if (dir != null) dir.mkdirs();
+
+		this.channel = FileChannel.open(this.file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+		if (this.channel.size() > Integer.MAX_VALUE)
+		{
+			this.channel.close();
+
+			throw new IllegalStateException(String.format("%s exceeds the maximum size", this.file));
+		}
+
+		this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(initialCapacity, this.channel.size()));
+
+		this.recover();
+	}
+
+	/**
+	 * Rebuilds the index by scanning the records up to the first one which is missing or incomplete
+	 */
+	private void recover()
+	{
+		int position = 0;
+
+		while (this.buffer.capacity() - position >= HEADER_SIZE)
+		{
+			int length = this.buffer.getInt(position);
+			int id = this.buffer.getInt(position + Integer.BYTES);
+			long checksum = this.buffer.getLong(position + Integer.BYTES + Integer.BYTES);
+
+			// The mapped memory after the last record is zeroed
+			if ((length == 0) || (length < TOMBSTONE)) break;
+
+			int payloadLength = Math.max(length, 0);
+
+			if (payloadLength > this.buffer.capacity() - position - HEADER_SIZE) break;
+			if (checksum != this.checksum(id, position + HEADER_SIZE, payloadLength)) break;
+
+			if (length == TOMBSTONE) this.offsets.remove(id);
+			else this.offsets.put(id, position);
+
+			this.maxId = Math.max(this.maxId, id);
+
+			position += HEADER_SIZE + payloadLength;
+		}
+
+		this.end = position;
+	}
+
+	/**
+	 * Computes the checksum of a record from its id and its payload
+	 */
+	private long checksum(int id, int payloadOffset, int payloadLength)
+	{
+		CRC32 crc = new CRC32();
+
+		crc.update(ByteBuffer.allocate(Integer.BYTES).putInt(0, id));
+		crc.update(this.buffer.slice(payloadOffset, payloadLength));
+
+		return crc.getValue();
+	}
+
+	/**
+	 * Decodes the data object of the record at the given offset. Must be called while holding the read or write lock.
+	 */
+	@SuppressWarnings("unchecked")
+	private DO read(int offset) throws IOException, ClassNotFoundException
+	{
+		byte[] payload = new byte[this.buffer.getInt(offset)];
+
+		this.buffer.get(offset + HEADER_SIZE, payload);
+
+		return (DO) deserialize(payload);
+	}
+
+	/**
+	 * Appends a record to the end of the file. Must be called while holding the write lock.
+	 *
+	 * @param id the id of the data object
+	 * @param payload the serialized data object or null to append a tombstone
+	 * @return the offset of the record
+	 * @throws DALException thrown if the file would exceed the maximum size
+	 * @throws IOException thrown if the file cannot be mapped
+	 */
+	private int append(int id, byte[] payload) throws DALException, IOException
+	{
+		int payloadLength = (payload != null) ? payload.length : 0;
+		long recordEnd = (long) this.end + HEADER_SIZE + payloadLength;
+
+		if (recordEnd > Integer.MAX_VALUE) throw new DALException(String.format("%s exceeds the maximum size", this.file));
+
+		if (recordEnd > this.buffer.capacity())
+		{
+			long capacity = Math.min(Integer.MAX_VALUE, Math.max(2L * this.buffer.capacity(), recordEnd));
+
+			this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+		}
+
+		int offset = this.end;
+
+		if (payload != null) this.buffer.put(offset + HEADER_SIZE, payload);
+
+		this.buffer.putLong(offset + Integer.BYTES + Integer.BYTES, this.checksum(id, offset + HEADER_SIZE, payloadLength));
+		this.buffer.putInt(offset + Integer.BYTES, id);
+		this.buffer.putInt(offset, (payload != null) ? payloadLength : TOMBSTONE);
+
+		this.end = (int) recordEnd;
+
+		return offset;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public DO get(int id) throws DALException
+	{
+		this.lock.readLock().lock();
+
+		try
+		{
+			Integer offset = this.offsets.get(id);
+
+			return (offset != null) ? this.read(offset) : null;
+		}
+		catch (Exception e)
+		{
+			throw new DALException(e);
+		}
+		finally
+		{
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<DO> getAll() throws DALException
+	{
+		this.lock.readLock().lock();
+
+		try
+		{
+			Collection<DO> dataObjects = new ArrayList<DO>(this.offsets.size());
+
+			// The records are scanned in file order; only the latest record of every id is decoded
+			for (int position = 0; position < this.end;)
+			{
+				int length = this.buffer.getInt(position);
+				Integer offset = this.offsets.get(this.buffer.getInt(position + Integer.BYTES));
+
+				if ((offset != null) && (offset == position)) dataObjects.add(this.read(position));
+
+				position += HEADER_SIZE + Math.max(length, 0);
+			}
+
+			return dataObjects;
+		}
+		catch (Exception e)
+		{
+			throw new DALException(e);
+		}
+		finally
+		{
+			this.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public Collection<DO> reloadAll() throws DALException
+	{
+		return this.getAll();
+	}
+
+	/**
+	 * Compares the persisted versions of data objects with the expected ones. Must be called while holding the write lock.
+	 *
+	 * @param dataObjects the data objects to check
+	 * @param versionIncrement the difference between the versions of the data objects and the expected persisted versions
+	 * @throws ConcurrencyConflictException thrown if a persisted version doesn't match
+	 */
+	private void checkVersions(GenericDataObject[] dataObjects, int versionIncrement) throws ConcurrencyConflictException, IOException, ClassNotFoundException
+	{
+		for (GenericDataObject dataObject : dataObjects)
+		{
+			if (!(dataObject instanceof VersionedDataObject)) continue;
+
+			Integer offset = this.offsets.get(dataObject.getId());
+			DO persistedDataObject = (offset != null) ? this.read(offset) : null;
+			int expectedVersion = ((VersionedDataObject) dataObject).getVersion() - versionIncrement;
+			int persistedVersion = (persistedDataObject instanceof VersionedDataObject) ? ((VersionedDataObject) persistedDataObject).getVersion() : 0;
+
+			if ((persistedDataObject == null) || (persistedVersion != expectedVersion)) throw new ConcurrencyConflictException(dataObject, expectedVersion, persistedVersion);
+		}
+	}
+
+	/**
+	 * Appends the records of saved data objects and forces them to disk. Must be called while holding the write lock.
+	 */
+	private void write(GenericDataObject[] dataObjects) throws DALException, IOException
+	{
+		int start = this.end;
+
+		for (GenericDataObject dataObject : dataObjects)
+		{
+			if (dataObject.getId() <= 0) dataObject.setId(++this.maxId);
+			else this.maxId = Math.max(this.maxId, dataObject.getId());
+
+			this.offsets.put(dataObject.getId(), this.append(dataObject.getId(), serialize(dataObject)));
+		}
+
+		this.buffer.force(start, this.end - start);
+	}
+
+	/**
+	 * Appends the tombstones of deleted data objects and forces them to disk. Must be called while holding the write lock.
+	 */
+	private void erase(GenericDataObject[] dataObjects) throws DALException, IOException
+	{
+		int start = this.end;
+
+		for (GenericDataObject dataObject : dataObjects)
+		{
+			if (this.offsets.remove(dataObject.getId()) != null) this.append(dataObject.getId(), null);
+		}
+
+		this.buffer.force(start, this.end - start);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Data objects without an id get the next id after the highest one ever saved.
+	 */
+	public void save(GenericDataObject[] dataObjects) throws DALException
+	{
+		this.lock.writeLock().lock();
+
+		try
+		{
+			this.write(dataObjects);
+		}
+		catch (DALException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DALException(e);
+		}
+		finally
+		{
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void saveIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException
+	{
+		this.lock.writeLock().lock();
+
+		try
+		{
+			this.checkVersions(dataObjects, 1);
+			this.write(dataObjects);
+		}
+		catch (ConcurrencyConflictException e)
+		{
+			throw e;
+		}
+		catch (DALException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DALException(e);
+		}
+		finally
+		{
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void delete(GenericDataObject[] dataObjects) throws DALException
+	{
+		this.lock.writeLock().lock();
+
+		try
+		{
+			this.erase(dataObjects);
+		}
+		catch (DALException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DALException(e);
+		}
+		finally
+		{
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void deleteIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException
+	{
+		this.lock.writeLock().lock();
+
+		try
+		{
+			this.checkVersions(dataObjects, 0);
+			this.erase(dataObjects);
+		}
+		catch (ConcurrencyConflictException e)
+		{
+			throw e;
+		}
+		catch (DALException e)
+		{
+			throw e;
+		}
+		catch (Exception e)
+		{
+			throw new DALException(e);
+		}
+		finally
+		{
+			this.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Closes the file. The mapped memory is released when it is garbage collected.
+	 *
+	 * @throws IOException thrown if the file cannot be closed
+	 */
+	@Override
+	public void close() throws IOException
+	{
+		this.lock.writeLock().lock();
+
+		try
+		{
+			this.channel.close();
+		}
+		finally
+		{
+			this.lock.writeLock().unlock();
+		}
+	}
+}
@@ -0,0 +1,6 @@
+/**
+ * Data access objects which store data objects in memory-mapped files
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ */
+package com.schoste.ddd.infrastructure.dal.v2.services.mapped;
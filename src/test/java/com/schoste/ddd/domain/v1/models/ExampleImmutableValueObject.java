@@ -0,0 +1,34 @@
+package com.schoste.ddd.domain.v1.models;
+
+import com.schoste.ddd.domain.v1.annotations.AutoSet;
+
+/**
+ * Example of an immutable value object which is created by its annotated constructor
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class ExampleImmutableValueObject
+{
+	private final String name;
+
+	/**
+	 * Creates a new instance of the value object
+	 * 
+	 * @param name the name of the value object
+	 */
+	public ExampleImmutableValueObject(@AutoSet(methodName = "getName") String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Gets the name of the value object
+	 * 
+	 * @return a String
+	 */
+	public String getName()
+	{
+		return this.name;
+	}
+}
@@ -0,0 +1,16 @@
+package com.schoste.ddd.domain.v1.models;
+
+import com.schoste.ddd.domain.v1.annotations.AutoSet;
+
+/**
+ * Example of an immutable read-only projection which is created by its canonical constructor
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ * @param property1 an example property
+ * @param secondProperty an example property which is obtained by another getter
+ */
+public record ExampleProjection(String property1, @AutoSet(methodName = "getProperty2") String secondProperty)
+{
+
+}
@@ -0,0 +1,81 @@
+package com.schoste.ddd.domain.v1.models;
+
+import java.util.List;
+
+import com.schoste.ddd.domain.v1.annotations.AutoSet;
+
+/**
+ * Example value object which is nested in other objects and references other value objects
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class ExampleValueObject
+{
+	private String name;
+	private ExampleValueObject parent;
+	private List<ExampleValueObject> children;
+
+	/**
+	 * Gets the name of the value object
+	 * 
+	 * @return a String
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Sets the name of the value object
+	 * 
+	 * @param name a String
+	 */
+	@AutoSet
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Gets the parent of the value object
+	 * 
+	 * @return the parent or null
+	 */
+	public ExampleValueObject getParent()
+	{
+		return parent;
+	}
+
+	/**
+	 * Sets the parent of the value object
+	 * 
+	 * @param parent the parent or null
+	 */
+	@AutoSet(targetClass = ExampleValueObject.class)
+	public void setParent(ExampleValueObject parent)
+	{
+		this.parent = parent;
+	}
+
+	/**
+	 * Gets the children of the value object
+	 * 
+	 * @return a list of value objects
+	 */
+	public List<ExampleValueObject> getChildren()
+	{
+		return children;
+	}
+
+	/**
+	 * Sets the children of the value object
+	 * 
+	 * @param children a list of value objects
+	 */
+	@AutoSet(targetClass = ExampleValueObject.class)
+	public void setChildren(List<ExampleValueObject> children)
+	{
+		this.children = children;
+	}
+}
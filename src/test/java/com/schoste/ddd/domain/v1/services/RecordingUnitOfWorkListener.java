@@ -0,0 +1,143 @@
+package com.schoste.ddd.domain.v1.services;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Listener which records the notifications of a UoW, so tests can assert them afterwards.
+ * The notifications may be recorded by other threads than the one which asserts them.
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class RecordingUnitOfWorkListener implements UnitOfWorkListener
+{
+	private final List<String> phases = Collections.synchronizedList(new ArrayList<String>());
+	private final List<Object> persistedNewObjects = Collections.synchronizedList(new ArrayList<Object>());
+	private final List<Integer> persistedNewChunkSizes = Collections.synchronizedList(new ArrayList<Integer>());
+	private final List<Object> persistedExistingObjects = Collections.synchronizedList(new ArrayList<Object>());
+	private final List<GenericRepository<?,?>> committedRepositories = Collections.synchronizedList(new ArrayList<GenericRepository<?,?>>());
+	private final List<Integer> committedObjects = Collections.synchronizedList(new ArrayList<Integer>());
+	private final List<Integer> totalObjects = Collections.synchronizedList(new ArrayList<Integer>());
+	private final List<Exception> commitExceptions = Collections.synchronizedList(new ArrayList<Exception>());
+	private final List<Integer> autoFlushedObjects = Collections.synchronizedList(new ArrayList<Integer>());
+
+	/**
+	 * Gets the phases ("new", "existing" or "delete") in the order their objects were written
+	 *
+	 * @return the recorded phases
+	 */
+	public List<String> getPhases() { return this.phases; }
+
+	/**
+	 * Gets the new objects which were persisted
+	 *
+	 * @return the recorded objects
+	 */
+	public List<Object> getPersistedNewObjects() { return this.persistedNewObjects; }
+
+	/**
+	 * Gets the number of new objects of every notification about persisted new objects
+	 *
+	 * @return the recorded numbers of objects
+	 */
+	public List<Integer> getPersistedNewChunkSizes() { return this.persistedNewChunkSizes; }
+
+	/**
+	 * Gets the existing objects which were persisted
+	 *
+	 * @return the recorded objects
+	 */
+	public List<Object> getPersistedExistingObjects() { return this.persistedExistingObjects; }
+
+	/**
+	 * Gets the repository of every committed chunk
+	 *
+	 * @return the recorded repositories
+	 */
+	public List<GenericRepository<?,?>> getCommittedRepositories() { return this.committedRepositories; }
+
+	/**
+	 * Gets the number of objects which were committed after every chunk
+	 *
+	 * @return the recorded numbers of objects
+	 */
+	public List<Integer> getCommittedObjects() { return this.committedObjects; }
+
+	/**
+	 * Gets the total number of objects to commit reported with every chunk
+	 *
+	 * @return the recorded numbers of objects
+	 */
+	public List<Integer> getTotalObjects() { return this.totalObjects; }
+
+	/**
+	 * Gets the exceptions of all completed commits, null for commits which succeeded
+	 *
+	 * @return the recorded exceptions
+	 */
+	public List<Exception> getCommitExceptions() { return this.commitExceptions; }
+
+	/**
+	 * Gets the number of pending objects of every automatic commit
+	 *
+	 * @return the recorded numbers of objects
+	 */
+	public List<Integer> getAutoFlushedObjects() { return this.autoFlushedObjects; }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterRollback(Collection<Object> objs) { }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterPersistNew(Collection<Object> objs)
+	{
+		this.phases.add("new");
+		this.persistedNewObjects.addAll(objs);
+		this.persistedNewChunkSizes.add(objs.size());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterPersistExisting(Collection<Object> objs)
+	{
+		this.phases.add("existing");
+		this.persistedExistingObjects.addAll(objs);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterDelete(Collection<Object> objs) { this.phases.add("delete"); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterReload(Collection<Object> objs) { }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterCommitChunk(GenericRepository<?,?> repository, int committedObjects, int totalObjects)
+	{
+		this.committedRepositories.add(repository);
+		this.committedObjects.add(committedObjects);
+		this.totalObjects.add(totalObjects);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void afterCommit(Exception exception) { this.commitExceptions.add(exception); }
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public void beforeAutoFlush(int pendingObjects, long pendingBytes) { this.autoFlushedObjects.add(pendingObjects); }
+}
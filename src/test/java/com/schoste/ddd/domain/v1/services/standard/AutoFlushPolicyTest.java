@@ -0,0 +1,90 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
+import com.schoste.ddd.domain.v1.services.RecordingUnitOfWorkListener;
+import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
+
+/**
+ * Tests of the AutoFlushPolicy class and the automatic commits of the UnitOfWorkImpl class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+@ContextConfiguration(locations = { "file:src/test/resources/unittest-beans.xml" })
+@RunWith(SpringJUnit4ClassRunner.class)
+public class AutoFlushPolicyTest
+{
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private ExampleDAO dao;
+
+	/**
+	 * Ensures that a limit of 0 is disabled and that reaching a limit exceeds the policy
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testIsExceeded() throws Exception
+	{
+		Assert.assertFalse(new AutoFlushPolicy(0, 0, 0).isExceeded(10, 1024, 1000));
+		Assert.assertTrue(new AutoFlushPolicy(10, 0, 0).isExceeded(10, 0, 0));
+		Assert.assertFalse(new AutoFlushPolicy(10, 0, 0).isExceeded(9, 0, 0));
+		Assert.assertTrue(new AutoFlushPolicy(0, 1024, 0).isExceeded(1, 1024, 0));
+		Assert.assertTrue(new AutoFlushPolicy(0, 0, 1000).isExceeded(1, 0, 1000));
+	}
+
+	/**
+	 * Ensures that a UoW commits on its own when the pending changes exceed the limit of its auto-flush policy
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testAutoFlush() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		RecordingUnitOfWorkListener listener = new RecordingUnitOfWorkListener();
+		List<ExampleDomainObject> domainObjects = new ArrayList<ExampleDomainObject>();
+
+		try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+		{
+			uow.setAutoFlushPolicy(new AutoFlushPolicy(10, 0, 0));
+			uow.addListener(listener);
+
+			for (int i=0; i<25; i++)
+			{
+				ExampleDomainObject domainObject = repository.createObject();
+
+				domainObject.setProperty3("testAutoFlush_" + i);
+				repository.add(domainObject);
+				domainObjects.add(domainObject);
+			}
+
+			// Waits for the automatic commits as well
+			uow.commit();
+		}
+
+		Assert.assertFalse(listener.getAutoFlushedObjects().isEmpty());
+		Assert.assertEquals(10, (int) listener.getAutoFlushedObjects().get(0));
+		Assert.assertEquals(25, domainObjects.stream().mapToInt(ExampleDomainObject::getId).distinct().count());
+
+		for (int i=0; i<25; i++)
+		{
+			Assert.assertEquals(State.Unchanged, domainObjects.get(i).getState());
+			Assert.assertEquals("testAutoFlush_" + i, this.dao.get(domainObjects.get(i).getId()).getProperty3());
+		}
+	}
+}
@@ -0,0 +1,114 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.BeanInitializationException;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.schoste.ddd.domain.v1.annotations.AutoSet;
+import com.schoste.ddd.domain.v1.models.BasicDomainObject;
+import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
+import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.mocked.ExampleDAOImpl;
+
+/**
+ * Tests of the ConversionPlanPrecompiler class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class ConversionPlanPrecompilerTest
+{
+	/**
+	 * Domain object with a property the example data object has no getter for
+	 */
+	public static class BrokenDomainObject extends BasicDomainObject
+	{
+		/**
+		 * Sets a property which cannot be read from the example data object
+		 *
+		 * @param missingProperty a String
+		 */
+		@AutoSet
+		public void setMissingProperty(String missingProperty) { }
+	}
+
+	/**
+	 * Repository which cannot convert the example data object to its domain objects
+	 */
+	public static class BrokenRepositoryImpl extends GenericRepositoryImpl<BrokenDomainObject, ExampleDO>
+	{
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected GenericDataAccessObject<?> getDataAccessObject() { return null; }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void afterAutoConversation(ExampleDO dataObject, BrokenDomainObject domainObject) throws Exception { }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void afterAutoConversation(BrokenDomainObject domainObject, ExampleDO dataObject) throws Exception { }
+	}
+
+	/**
+	 * Creates an application context with a converter for every repository and the precompiler
+	 */
+	private static AnnotationConfigApplicationContext createContext()
+	{
+		AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+
+		context.registerBean("AutoObjectConverter", SpringAutoObjectConverterImpl.class, bd -> bd.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+		context.registerBean("ExampleDAO", ExampleDAOImpl.class);
+		context.registerBean("ConversionPlanPrecompiler", ConversionPlanPrecompiler.class);
+
+		return context;
+	}
+
+	/**
+	 * Ensures that the conversion plans of the repositories are cached once the context was started
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testPlansAreCachedAfterStartup() throws Exception
+	{
+		try (AnnotationConfigApplicationContext context = createContext())
+		{
+			context.registerBean("DomainObjectRepository", DomainObjectRepositoryImpl.class);
+			context.refresh();
+
+			DomainObjectRepositoryImpl repository = context.getBean(DomainObjectRepositoryImpl.class);
+			AutoObjectConverterImpl converter = (AutoObjectConverterImpl) repository.converter;
+
+			Assert.assertTrue(converter.conversionMethodMap.get(ExampleDO.class).containsKey(ExampleDomainObject.class));
+			Assert.assertTrue(converter.conversionMethodMap.get(ExampleDomainObject.class).containsKey(ExampleDO.class));
+		}
+	}
+
+	/**
+	 * Ensures that the startup of the context fails if the conversion plan of a repository cannot be built
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testBrokenMappingFailsStartup() throws Exception
+	{
+		try (AnnotationConfigApplicationContext context = createContext())
+		{
+			context.registerBean("BrokenRepository", BrokenRepositoryImpl.class);
+
+			BeanInitializationException e = Assert.assertThrows(BeanInitializationException.class, context::refresh);
+
+			Assert.assertTrue(e.getMessage().contains("BrokenRepository"));
+		}
+	}
+}
@@ -0,0 +1,46 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.BeforeClass;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Memory-mapped file DAO configuration / implementation of the test suite for the DomainObjectRepository
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+@ContextConfiguration(locations = { "file:src/test/resources/mappedfiletest-beans.xml" })
+@RunWith(SpringJUnit4ClassRunner.class)
+public class DomainObjectRepositoryMappedFileTest extends DomainObjectRepositoryTestSuite
+{
+	@Autowired
+	private DomainObjectRepository repository;
+	
+	/**
+	 * Deletes the file of the DAO which is left over from previous runs,
+	 * so every run starts with an empty file
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@BeforeClass
+	public static void deleteDataFile() throws Exception
+	{
+		Files.deleteIfExists(Path.of(System.getProperty("java.io.tmpdir"), "dao-fs-mapped", "example.dat"));
+	}
+	
+	@Override
+	protected DomainObjectRepository getRepository() { return this.repository; }
+
+	@Override
+	protected void createDataObjects(String callingMethodName, int callId) throws Exception
+	{
+		
+	}
+
+}
@@ -1,28 +1,1143 @@
-package com.schoste.ddd.domain.v1.services.standard;
-
-import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
-import com.schoste.ddd.domain.v1.services.GenericRepositoryTest;
-import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
-
-/**
- * Collection of tests for the DomainObjectRepository class.
- * Extending classes will do the actual tests.
- * 
- * @author Philipp Schosteritsch <s.philipp@schoste.com>
- *
- */
-public abstract class DomainObjectRepositoryTestSuite extends GenericRepositoryTest<ExampleDomainObject, ExampleDO, DomainObjectRepository>
-{
-	/**
-	 * {@inheritDoc}
-	 * 
-	 * If the id of one object is smaller 1, then the id is not regarded
-	 */
-	@Override
-	protected boolean compareDomainObjects(ExampleDomainObject one, ExampleDomainObject another) throws Exception
-	{
-		if ((one.getId() > 0) && (another.getId() > 0)) return (one.getId() == another.getId());
-		
-		return true;
-	}
-}
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
+import com.schoste.ddd.domain.v1.services.GenericRepositoryTest;
+import com.schoste.ddd.domain.v1.services.PartialUpdateDataAccessObject;
+import com.schoste.ddd.domain.v1.services.RecordingUnitOfWorkListener;
+import com.schoste.ddd.domain.v1.services.RepositorySnapshot;
+import com.schoste.ddd.domain.v1.services.UnitOfWork;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
+import com.schoste.ddd.infrastructure.dal.v2.services.GenericDataAccessObject;
+
+/**
+ * Collection of tests for the DomainObjectRepository class.
+ * Extending classes will do the actual tests.
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public abstract class DomainObjectRepositoryTestSuite extends GenericRepositoryTest<ExampleDomainObject, ExampleDO, DomainObjectRepository>
+{
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * If the id of one object is smaller 1, then the id is not regarded
+	 */
+	@Override
+	protected boolean compareDomainObjects(ExampleDomainObject one, ExampleDomainObject another) throws Exception
+	{
+		if ((one.getId() > 0) && (another.getId() > 0)) return (one.getId() == another.getId());
+		
+		return true;
+	}
+
+	/**
+	 * Ensures that domain objects which were changed without being marked as modified are persisted
+	 * and that domain objects which were marked as modified without being changed are not persisted
+	 * if dirty checking is enabled.
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testDirtyChecking() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		
+		repository.setDirtyChecking(true);
+		
+		try
+		{
+			UnitOfWork uow = this.getUnitOfWork();
+			RecordingUnitOfWorkListener listener = new RecordingUnitOfWorkListener();
+			
+			uow.addListener(listener);
+			
+			ExampleDomainObject changedObject = this.createDomainObject("testDirtyChecking", 0);
+			ExampleDomainObject unchangedObject = this.createDomainObject("testDirtyChecking", 1);
+			
+			changedObject.setProperty1("testDirtyChecking_0");
+			unchangedObject.setProperty1("testDirtyChecking_1");
+			
+			repository.add(changedObject);
+			repository.add(unchangedObject);
+			
+			uow.commit();
+			
+			changedObject.setProperty1("testDirtyChecking_0_changed");
+			repository.setModified(unchangedObject);
+			
+			uow.commit();
+			
+			Assert.assertEquals(List.of(changedObject), listener.getPersistedExistingObjects());
+			Assert.assertEquals(State.Unchanged, changedObject.getState());
+			Assert.assertEquals(State.Unchanged, unchangedObject.getState());
+			Assert.assertEquals("testDirtyChecking_0_changed", this.repoDataAccessObject.get(changedObject.getId()).getProperty1());
+		}
+		finally
+		{
+			repository.setDirtyChecking(false);
+		}
+	}
+
+	/**
+	 * Ensures that domain objects which were loaded before dirty checking was enabled
+	 * are only persisted if they are marked as modified
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testDirtyCheckingEnabledLater() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		UnitOfWork uow = this.getUnitOfWork();
+		RecordingUnitOfWorkListener listener = new RecordingUnitOfWorkListener();
+		ExampleDomainObject changedObject = this.createDomainObject("testDirtyCheckingEnabledLater", 0);
+		ExampleDomainObject unchangedObject = this.createDomainObject("testDirtyCheckingEnabledLater", 1);
+		
+		changedObject.setProperty1("testDirtyCheckingEnabledLater_0");
+		unchangedObject.setProperty1("testDirtyCheckingEnabledLater_1");
+		
+		repository.add(changedObject);
+		repository.add(unchangedObject);
+		
+		uow.commit();
+		uow.addListener(listener);
+		repository.setDirtyChecking(true);
+		
+		try
+		{
+			changedObject.setProperty1("testDirtyCheckingEnabledLater_0_changed");
+			repository.setModified(changedObject);
+			
+			uow.commit();
+			
+			Assert.assertEquals(List.of(changedObject), listener.getPersistedExistingObjects());
+			Assert.assertEquals(State.Unchanged, unchangedObject.getState());
+			Assert.assertEquals("testDirtyCheckingEnabledLater_0_changed", this.repoDataAccessObject.get(changedObject.getId()).getProperty1());
+		}
+		finally
+		{
+			repository.setDirtyChecking(false);
+		}
+	}
+
+	/**
+	 * Ensures that only the changed properties of domain objects are written if dirty checking is enabled
+	 * and the data access object supports partial updates. Otherwise the domain objects are saved as a whole.
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testPartialUpdate() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		
+		repository.setDirtyChecking(true);
+		
+		try
+		{
+			UnitOfWork uow = this.getUnitOfWork();
+			ExampleDomainObject domainObject = this.createDomainObject("testPartialUpdate", 0);
+			
+			domainObject.setProperty1("testPartialUpdate_0");
+			domainObject.setProperty2("testPartialUpdate_0_0");
+			
+			repository.add(domainObject);
+			
+			uow.commit();
+			
+			// Change the persisted data object behind the back of the repository
+			ExampleDO dataObject = this.repoDataAccessObject.get(domainObject.getId());
+			
+			dataObject.setProperty2("testPartialUpdate_0_0_changed");
+			
+			this.repoDataAccessObject.save(new ExampleDO[] { dataObject });
+			
+			domainObject.setProperty1("testPartialUpdate_0_changed");
+			
+			uow.commit();
+			
+			ExampleDO persistedDataObject = this.repoDataAccessObject.get(domainObject.getId());
+			String expectedProperty2 = (this.repoDataAccessObject instanceof PartialUpdateDataAccessObject) ? "testPartialUpdate_0_0_changed" : "testPartialUpdate_0_0";
+			
+			Assert.assertEquals(State.Unchanged, domainObject.getState());
+			Assert.assertEquals("testPartialUpdate_0_changed", persistedDataObject.getProperty1());
+			Assert.assertEquals(expectedProperty2, persistedDataObject.getProperty2());
+		}
+		finally
+		{
+			repository.setDirtyChecking(false);
+		}
+	}
+
+	/**
+	 * Ensures that the data object a domain object was loaded from is kept and that only copies
+	 * of it are changed when the domain object is converted to persist it.
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testLoadedDataObject() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		UnitOfWork uow = this.getUnitOfWork();
+		ExampleDomainObject domainObject = this.createDomainObject("testLoadedDataObject", 0);
+		
+		domainObject.setProperty1("testLoadedDataObject_0");
+		
+		repository.add(domainObject);
+		
+		Assert.assertNull(repository.getLoadedDataObject(domainObject));
+		
+		uow.commit();
+		
+		ExampleDO loadedDataObject = repository.getLoadedDataObject(domainObject);
+		
+		Assert.assertNotNull(loadedDataObject);
+		Assert.assertEquals(domainObject.getId(), loadedDataObject.getId());
+		
+		domainObject.setProperty1("testLoadedDataObject_0_changed");
+		
+		ExampleDO dataObject = repository.domainObjectToDataObject(domainObject);
+		
+		Assert.assertNotSame(loadedDataObject, dataObject);
+		Assert.assertEquals("testLoadedDataObject_0_changed", dataObject.getProperty1());
+		Assert.assertEquals("testLoadedDataObject_0", loadedDataObject.getProperty1());
+	}
+
+	/**
+	 * Ensures that committing increments the version of domain objects and that changes of domain objects
+	 * which were changed by someone else since they were loaded are rejected.
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testConcurrencyConflict() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		UnitOfWork uow = this.getUnitOfWork();
+		ExampleDomainObject domainObject = this.createDomainObject("testConcurrencyConflict", 0);
+		
+		repository.add(domainObject);
+		
+		uow.commit();
+		
+		Assert.assertEquals(1, domainObject.getVersion());
+		
+		repository.setModified(domainObject);
+		
+		uow.commit();
+		
+		Assert.assertEquals(2, domainObject.getVersion());
+		Assert.assertEquals(2, this.repoDataAccessObject.get(domainObject.getId()).getVersion());
+		
+		// Save the data object behind the back of the repository
+		ExampleDO dataObject = this.repoDataAccessObject.get(domainObject.getId());
+		
+		dataObject.setVersion(dataObject.getVersion() +1);
+		
+		this.repoDataAccessObject.save(new ExampleDO[] { dataObject });
+		
+		repository.setModified(domainObject);
+		
+		try
+		{
+			uow.commit();
+			
+			Assert.fail();
+		}
+		catch (ConcurrencyConflictException e)
+		{
+			Assert.assertSame(domainObject, e.getDomainObject());
+			Assert.assertEquals(2, e.getExpectedVersion());
+			Assert.assertEquals(3, e.getPersistedVersion());
+		}
+		
+		uow.rollback();
+	}
+
+	/**
+	 * Ensures that snapshots keep the persisted state at the time they were taken
+	 * while domain objects are committed and deleted afterwards.
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testSnapshot() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		UnitOfWork uow = this.getUnitOfWork();
+		ExampleDomainObject domainObject = this.createDomainObject("testSnapshot", 0);
+		
+		domainObject.setProperty1("testSnapshot_0");
+		
+		repository.add(domainObject);
+		
+		Assert.assertNull(repository.snapshot().get(domainObject.getId()));
+		
+		uow.commit();
+		
+		RepositorySnapshot<ExampleDomainObject> committedSnapshot = repository.snapshot();
+		
+		domainObject.setProperty1("testSnapshot_0_changed");
+		repository.setModified(domainObject);
+		
+		uow.commit();
+		
+		RepositorySnapshot<ExampleDomainObject> changedSnapshot = repository.snapshot();
+		
+		repository.remove(domainObject);
+		
+		uow.commit();
+		
+		ExampleDomainObject committedObject = committedSnapshot.get(domainObject.getId());
+		
+		Assert.assertNotSame(domainObject, committedObject);
+		Assert.assertEquals(State.Detached, committedObject.getState());
+		Assert.assertEquals("testSnapshot_0", committedObject.getProperty1());
+		Assert.assertEquals("testSnapshot_0_changed", changedSnapshot.get(domainObject.getId()).getProperty1());
+		Assert.assertEquals(changedSnapshot.size(), committedSnapshot.size());
+		Assert.assertEquals(committedSnapshot.size() -1, repository.snapshot().size());
+		Assert.assertNull(repository.snapshot().get(domainObject.getId()));
+	}
+
+	/**
+	 * Ensures that repositories committed concurrently are committed after the repositories they depend on
+	 * and that cyclic dependencies are rejected.
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testParallelCommit() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		DomainObjectRepositoryImpl dependentRepository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		UnitOfWorkImpl uow = new UnitOfWorkImpl(List.of(dependentRepository, repository));
+		RecordingUnitOfWorkListener listener = new RecordingUnitOfWorkListener();
+		
+		uow.setParallelCommit(true);
+		uow.addDependency(dependentRepository, repository);
+		uow.addListener(listener);
+		
+		try
+		{
+			uow.addDependency(repository, dependentRepository);
+			
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected because of the cycle
+		}
+		
+		ExampleDomainObject domainObject = this.createDomainObject("testParallelCommit", 0);
+		ExampleDomainObject dependentObject = dependentRepository.createObject();
+		
+		repository.add(domainObject);
+		dependentRepository.add(dependentObject);
+		
+		uow.commit();
+		
+		Assert.assertEquals(List.of(domainObject, dependentObject), listener.getPersistedNewObjects());
+		Assert.assertEquals(State.Unchanged, domainObject.getState());
+		Assert.assertEquals(State.Unchanged, dependentObject.getState());
+		Assert.assertNotNull(this.repoDataAccessObject.get(domainObject.getId()));
+		Assert.assertNotNull(this.repoDataAccessObject.get(dependentObject.getId()));
+		
+		uow.close();
+	}
+
+	/**
+	 * Ensures that the changes of a repository are written in chunks of the configured size
+	 * and that the progress is reported after every chunk
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testChunkedCommit() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		UnitOfWorkImpl uow = new UnitOfWorkImpl(repository);
+		RecordingUnitOfWorkListener listener = new RecordingUnitOfWorkListener();
+		List<ExampleDomainObject> domainObjects = new ArrayList<ExampleDomainObject>();
+		
+		uow.setCommitChunkSize(2);
+		uow.addListener(listener);
+		
+		for (int i=0; i<5; i++)
+		{
+			ExampleDomainObject domainObject = this.createDomainObject("testChunkedCommit", i);
+
+			repository.add(domainObject);
+			domainObjects.add(domainObject);
+		}
+		
+		uow.commit();
+		
+		Assert.assertEquals(List.of(2, 2, 1), listener.getPersistedNewChunkSizes());
+		Assert.assertEquals(List.of(2, 4, 5), listener.getCommittedObjects());
+		Assert.assertEquals(List.of(5, 5, 5), listener.getTotalObjects());
+		Assert.assertEquals(List.of(repository, repository, repository), listener.getCommittedRepositories());
+		
+		for (ExampleDomainObject domainObject : domainObjects)
+		{
+			Assert.assertEquals(State.Unchanged, domainObject.getState());
+			Assert.assertNotNull(this.repoDataAccessObject.get(domainObject.getId()));
+		}
+		
+		uow.close();
+	}
+
+	/**
+	 * Ensures that all changes of a repository are written in the order of the phases
+	 * if chunks are converted while the previous chunk is written
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testPipelinedCommit() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		UnitOfWorkImpl uow = new UnitOfWorkImpl(repository);
+		RecordingUnitOfWorkListener listener = new RecordingUnitOfWorkListener();
+		List<String> phases = listener.getPhases();
+		List<ExampleDomainObject> domainObjects = new ArrayList<ExampleDomainObject>();
+		
+		uow.setCommitChunkSize(3);
+		uow.setPipelinedCommit(true);
+		uow.addListener(listener);
+		
+		for (int i=0; i<10; i++)
+		{
+			ExampleDomainObject domainObject = this.createDomainObject("testPipelinedCommit", i);
+
+			repository.add(domainObject);
+			domainObjects.add(domainObject);
+		}
+		
+		uow.commit();
+		
+		Assert.assertEquals(List.of("new", "new", "new", "new"), phases);
+		
+		phases.clear();
+		
+		for (int i=0; i<5; i++)
+		{
+			domainObjects.get(i).setProperty1("testPipelinedCommit" + (i+10));
+			repository.setModified(domainObjects.get(i));
+		}
+		
+		repository.remove(domainObjects.get(9));
+		uow.commit();
+		
+		Assert.assertEquals(List.of("delete", "existing", "existing"), phases);
+		Assert.assertNull(this.repoDataAccessObject.get(domainObjects.get(9).getId()));
+		
+		for (int i=0; i<5; i++)
+		{
+			Assert.assertEquals(State.Unchanged, domainObjects.get(i).getState());
+			Assert.assertEquals("testPipelinedCommit" + (i+10), this.repoDataAccessObject.get(domainObjects.get(i).getId()).getProperty1());
+		}
+		
+		uow.close();
+	}
+
+	/**
+	 * Ensures that a commit which fails in one repository undoes the changes which were
+	 * written to another repository already and that incomplete commits are undone on recovery
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testWriteAheadLog() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = (DomainObjectRepositoryImpl) this.getRepository();
+		DomainObjectRepositoryImpl otherRepository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		UnitOfWorkImpl uow = new UnitOfWorkImpl(List.of(repository, otherRepository));
+		Path logFile = Files.createTempFile("testWriteAheadLog", ".log");
+		ExampleDomainObject changedObject = this.createDomainObject("testWriteAheadLog", 0);
+		
+		changedObject.setProperty3("testWriteAheadLog_0");
+		
+		try (WriteAheadLog writeAheadLog = new WriteAheadLog(logFile))
+		{
+			uow.setWriteAheadLog(writeAheadLog);
+			
+			ExampleDomainObject deletedObject = this.createDomainObject("testWriteAheadLog", 1);
+			ExampleDomainObject conflictingObject = otherRepository.createObject();
+			
+			repository.add(changedObject);
+			repository.add(deletedObject);
+			otherRepository.add(conflictingObject);
+			
+			uow.commit();
+			
+			Assert.assertEquals(0, Files.size(logFile));
+			
+			int dataObjectCount = this.repoDataAccessObject.getAll().size();
+			
+			ExampleDomainObject addedObject = this.createDomainObject("testWriteAheadLog", 2);
+			int changedVersion = changedObject.getVersion();
+			
+			changedObject.setProperty3("testWriteAheadLog_0_changed");
+			repository.setModified(changedObject);
+			repository.remove(deletedObject);
+			repository.add(addedObject);
+			
+			int addedId = addedObject.getId();
+			
+			// Save the data object behind the back of the other repository, so its commit fails
+			ExampleDO dataObject = this.repoDataAccessObject.get(conflictingObject.getId());
+			
+			dataObject.setVersion(dataObject.getVersion() +1);
+			
+			this.repoDataAccessObject.save(new ExampleDO[] { dataObject });
+			otherRepository.setModified(conflictingObject);
+			
+			try
+			{
+				uow.commit();
+				
+				Assert.fail();
+			}
+			catch (ConcurrencyConflictException e)
+			{
+				// expected
+			}
+			
+			Assert.assertEquals(dataObjectCount, this.repoDataAccessObject.getAll().size());
+			Assert.assertEquals("testWriteAheadLog_0", this.repoDataAccessObject.get(changedObject.getId()).getProperty3());
+			Assert.assertNotNull(this.repoDataAccessObject.get(deletedObject.getId()));
+			Assert.assertEquals(0, Files.size(logFile));
+			
+			// The changes remain in the UoW and are committed once the conflict is resolved
+			Assert.assertSame(changedObject, repository.get(changedObject.getId()));
+			Assert.assertEquals("testWriteAheadLog_0_changed", changedObject.getProperty3());
+			Assert.assertEquals(State.Modified, changedObject.getState());
+			Assert.assertEquals(changedVersion, changedObject.getVersion());
+			Assert.assertEquals(State.Deleted, deletedObject.getState());
+			Assert.assertEquals(State.Added, addedObject.getState());
+			Assert.assertEquals(addedId, addedObject.getId());
+			Assert.assertSame(addedObject, repository.get(addedId));
+			
+			conflictingObject.setVersion(dataObject.getVersion());
+			uow.commit();
+			
+			Assert.assertEquals(dataObjectCount, this.repoDataAccessObject.getAll().size());
+			Assert.assertEquals("testWriteAheadLog_0_changed", this.repoDataAccessObject.get(changedObject.getId()).getProperty3());
+			Assert.assertNull(this.repoDataAccessObject.get(deletedObject.getId()));
+			Assert.assertEquals(State.Unchanged, addedObject.getState());
+			Assert.assertNotNull(this.repoDataAccessObject.get(addedObject.getId()));
+			
+			// Write a data object without completing the logged commit as if the application stopped
+			WriteAheadLog.Transaction transaction = writeAheadLog.begin();
+			
+			writeAheadLog.logBeforeImages(transaction, repository, new ExampleDO[] { (ExampleDO) this.repoDataAccessObject.get(changedObject.getId()).clone() });
+			
+			dataObject = this.repoDataAccessObject.get(changedObject.getId());
+			dataObject.setProperty3("testWriteAheadLog_0_incomplete");
+			
+			this.repoDataAccessObject.save(new ExampleDO[] { dataObject });
+		}
+		
+		try (WriteAheadLog writeAheadLog = new WriteAheadLog(logFile))
+		{
+			Assert.assertEquals(1, writeAheadLog.recover(List.of(repository)));
+			Assert.assertEquals("testWriteAheadLog_0_changed", this.repoDataAccessObject.get(changedObject.getId()).getProperty3());
+		}
+		finally
+		{
+			Files.delete(logFile);
+			uow.close();
+		}
+	}
+
+	/**
+	 * Ensures that the commits of concurrent UoWs which share a group commit coordinator are
+	 * written completely and that a commit which cannot be written fails on its own
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testGroupCommit() throws Exception
+	{
+		GroupCommitCoordinator coordinator = new GroupCommitCoordinator(200, 1000);
+		List<DomainObjectRepositoryImpl> repositories = new ArrayList<DomainObjectRepositoryImpl>();
+		List<UnitOfWorkImpl> uows = new ArrayList<UnitOfWorkImpl>();
+		List<ExampleDomainObject> domainObjects = new ArrayList<ExampleDomainObject>();
+		
+		for (int i=0; i<5; i++)
+		{
+			DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+			UnitOfWorkImpl uow = new UnitOfWorkImpl(repository);
+			ExampleDomainObject domainObject = repository.createObject();
+			
+			uow.setGroupCommitCoordinator(coordinator);
+			repository.add(domainObject);
+			
+			repositories.add(repository);
+			uows.add(uow);
+			domainObjects.add(domainObject);
+		}
+		
+		Assert.assertTrue(this.commitConcurrently(uows).isEmpty());
+		Assert.assertEquals(5, domainObjects.stream().mapToInt(ExampleDomainObject::getId).distinct().count());
+		
+		for (ExampleDomainObject domainObject : domainObjects) Assert.assertNotNull(this.repoDataAccessObject.get(domainObject.getId()));
+		
+		// Save a data object behind the back of one repository, so its commit fails
+		ExampleDO dataObject = this.repoDataAccessObject.get(domainObjects.get(0).getId());
+		
+		dataObject.setVersion(dataObject.getVersion() +1);
+		
+		this.repoDataAccessObject.save(new ExampleDO[] { dataObject });
+		
+		for (int i=0; i<5; i++)
+		{
+			domainObjects.get(i).setProperty3("testGroupCommit_" + i);
+			repositories.get(i).setModified(domainObjects.get(i));
+		}
+		
+		List<Exception> exceptions = this.commitConcurrently(uows);
+		
+		Assert.assertEquals(1, exceptions.size());
+		Assert.assertTrue(exceptions.get(0) instanceof ConcurrencyConflictException);
+		Assert.assertSame(domainObjects.get(0), ((ConcurrencyConflictException) exceptions.get(0)).getDomainObject());
+		
+		for (int i=1; i<5; i++) Assert.assertEquals("testGroupCommit_" + i, this.repoDataAccessObject.get(domainObjects.get(i).getId()).getProperty3());
+		
+		for (UnitOfWorkImpl uow : uows) uow.close();
+	}
+	
+	/**
+	 * Ensures that an asynchronous commit persists the changes made before it was started,
+	 * notifies the listeners and returns the changes to the UoW if it fails
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testCommitAsync() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		RecordingUnitOfWorkListener listener = new RecordingUnitOfWorkListener();
+		List<Exception> commitExceptions = listener.getCommitExceptions();
+		
+		try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+		{
+			uow.addListener(listener);
+			
+			ExampleDomainObject domainObject = repository.createObject();
+			
+			domainObject.setProperty3("testCommitAsync_0");
+			repository.add(domainObject);
+			
+			CompletableFuture<Void> commit = uow.commitAsync();
+			
+			commit.join();
+			
+			Assert.assertEquals(1, commitExceptions.size());
+			Assert.assertNull(commitExceptions.get(0));
+			Assert.assertTrue(domainObject.getId() > 0);
+			Assert.assertEquals("testCommitAsync_0", this.repoDataAccessObject.get(domainObject.getId()).getProperty3());
+			
+			// Save the data object behind the back of the repository, so the next commit fails
+			ExampleDO dataObject = this.repoDataAccessObject.get(domainObject.getId());
+			
+			dataObject.setVersion(dataObject.getVersion() +1);
+			
+			this.repoDataAccessObject.save(new ExampleDO[] { dataObject });
+			
+			domainObject.setProperty3("testCommitAsync_1");
+			repository.setModified(domainObject);
+			
+			commit = uow.commitAsync();
+			
+			try
+			{
+				commit.join();
+				
+				Assert.fail();
+			}
+			catch (CompletionException e)
+			{
+				Assert.assertTrue(e.getCause() instanceof ConcurrencyConflictException);
+			}
+			
+			Assert.assertEquals(2, commitExceptions.size());
+			Assert.assertTrue(commitExceptions.get(1) instanceof ConcurrencyConflictException);
+			Assert.assertEquals("testCommitAsync_0", this.repoDataAccessObject.get(domainObject.getId()).getProperty3());
+			
+			// The failed change is tracked again, so it is committed once the conflict is resolved
+			domainObject.setVersion(this.repoDataAccessObject.get(domainObject.getId()).getVersion());
+			
+			uow.commit();
+			
+			Assert.assertEquals("testCommitAsync_1", this.repoDataAccessObject.get(domainObject.getId()).getProperty3());
+		}
+	}
+	
+	/**
+	 * Ensures that a rollback waits for an asynchronous commit in progress, so it neither reverts
+	 * the changes which are being committed nor keeps the changes which were made afterwards
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testRollbackWaitsForCommitAsync() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		CountDownLatch saveStarted = new CountDownLatch(1);
+		CountDownLatch saveReleased = new CountDownLatch(1);
+		SlowExampleDAO dao = new SlowExampleDAO(this.repoDataAccessObject, 0)
+		{
+			@Override
+			public void save(GenericDataObject[] dataObjects) throws DALException
+			{
+				saveStarted.countDown();
+
+				try
+				{
+					saveReleased.await();
+				}
+				catch (InterruptedException e)
+				{
+					throw new DALException(e);
+				}
+
+				super.save(dataObjects);
+			}
+		};
+
+		repository.setDataAccessObject(dao);
+		
+		try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+		{
+			ExampleDomainObject committedObject = repository.createObject();
+			
+			committedObject.setProperty3("testRollbackWaitsForCommitAsync_0");
+			repository.add(committedObject);
+			
+			CompletableFuture<Void> commit = uow.commitAsync();
+			
+			saveStarted.await();
+			
+			ExampleDomainObject pendingObject = repository.createObject();
+			
+			pendingObject.setProperty3("testRollbackWaitsForCommitAsync_1");
+			repository.add(pendingObject);
+			
+			Thread rollback = Thread.ofVirtual().start(() ->
+			{
+				try
+				{
+					uow.rollback();
+				}
+				catch (DomainException e)
+				{
+					throw new IllegalStateException(e);
+				}
+			});
+			
+			rollback.join(100);
+			
+			Assert.assertTrue(rollback.isAlive());
+			
+			saveReleased.countDown();
+			rollback.join();
+			commit.join();
+			
+			Assert.assertEquals(State.Unchanged, committedObject.getState());
+			Assert.assertEquals("testRollbackWaitsForCommitAsync_0", this.repoDataAccessObject.get(committedObject.getId()).getProperty3());
+			Assert.assertEquals(State.Detached, pendingObject.getState());
+		}
+	}
+	
+	/**
+	 * Ensures that a UoW which was not closed is removed from its repository after it was
+	 * garbage collected and that the leak is reported with the stack at its creation
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testLeakedUnitOfWork() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		List<Throwable> leaks = Collections.synchronizedList(new ArrayList<Throwable>());
+		
+		UnitOfWorkLeakDetector.setSamplingInterval(1);
+		UnitOfWorkLeakDetector.setReporter(leaks::add);
+		
+		try
+		{
+			WeakReference<UnitOfWorkImpl> uow = this.createUnclosedUnitOfWork(repository);
+			
+			Assert.assertEquals(1, UnitOfWorkLeakDetector.getUnclosedUnitsOfWork().size());
+			
+			for (int i=0; (uow.get() != null) && (i<100); i++)
+			{
+				System.gc();
+				Thread.sleep(10);
+			}
+			
+			Assert.assertNull(uow.get());
+			
+			// Notifying the listeners removes the collected ones
+			for (int i=0; (!repository.weakChangeListener.isEmpty()) && (i<100); i++)
+			{
+				repository.add(repository.createObject());
+				Thread.sleep(10);
+			}
+			
+			Assert.assertTrue(repository.weakChangeListener.isEmpty());
+			
+			for (int i=0; leaks.isEmpty() && (i<100); i++)
+			{
+				UnitOfWorkLeakDetector.reportLeaks();
+				Thread.sleep(10);
+			}
+			
+			Assert.assertEquals(1, leaks.size());
+			Assert.assertTrue(Arrays.stream(leaks.get(0).getStackTrace()).anyMatch(element -> element.getMethodName().equals("createUnclosedUnitOfWork")));
+			
+			UnitOfWorkImpl closedUnitOfWork = new UnitOfWorkImpl(repository);
+			
+			Assert.assertEquals(1, UnitOfWorkLeakDetector.getUnclosedUnitsOfWork().size());
+			
+			closedUnitOfWork.close();
+			
+			Assert.assertTrue(UnitOfWorkLeakDetector.getUnclosedUnitsOfWork().isEmpty());
+		}
+		finally
+		{
+			UnitOfWorkLeakDetector.setSamplingInterval(0);
+			UnitOfWorkLeakDetector.setReporter(creationStack -> creationStack.printStackTrace(System.err));
+		}
+	}
+	
+	/**
+	 * Data access object which simulates the latency of reading data objects
+	 * and records how many reads were in progress at the same time
+	 */
+	private static class SlowExampleDAO implements ExampleDAO
+	{
+		private final GenericDataAccessObject<ExampleDO> dao;
+		private final long latency;
+		private final AtomicInteger concurrentReads = new AtomicInteger();
+		private final AtomicInteger maxConcurrentReads = new AtomicInteger();
+
+		private SlowExampleDAO(GenericDataAccessObject<ExampleDO> dao, long latency)
+		{
+			this.dao = dao;
+			this.latency = latency;
+		}
+
+		private void read() throws DALException
+		{
+			this.maxConcurrentReads.accumulateAndGet(this.concurrentReads.incrementAndGet(), Math::max);
+
+			try
+			{
+				Thread.sleep(this.latency);
+			}
+			catch (InterruptedException e)
+			{
+				throw new DALException(e);
+			}
+			finally
+			{
+				this.concurrentReads.decrementAndGet();
+			}
+		}
+
+		public ExampleDO createDataObject() throws DALException { return this.dao.createDataObject(); }
+
+		public ExampleDO get(int id) throws DALException
+		{
+			this.read();
+
+			return this.dao.get(id);
+		}
+
+		public Collection<ExampleDO> getAll() throws DALException
+		{
+			this.read();
+
+			return this.dao.getAll();
+		}
+
+		public Collection<ExampleDO> reloadAll() throws DALException
+		{
+			this.read();
+
+			return this.dao.reloadAll();
+		}
+
+		public void save(GenericDataObject[] dataObjects) throws DALException { this.dao.save(dataObjects); }
+
+		public void delete(GenericDataObject[] dataObjects) throws DALException { this.dao.delete(dataObjects); }
+	}
+
+	/**
+	 * Ensures that thousands of virtual threads can use a repository whose data access object is slow
+	 * without waiting for each other's reads, i.e. the reads are neither serialized by the repository
+	 * nor limited to the number of carrier threads
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testVirtualThreadsWithSlowDataAccessObject() throws Exception
+	{
+		final int threads = 2000;
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		SlowExampleDAO dao = new SlowExampleDAO(this.repoDataAccessObject, 20);
+		List<Exception> exceptions = Collections.synchronizedList(new ArrayList<Exception>());
+		List<ExampleDomainObject> domainObjects = Collections.synchronizedList(new ArrayList<ExampleDomainObject>());
+
+		repository.setDataAccessObject(dao);
+
+		try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+		{
+			for (int i=0; i<threads; i++)
+			{
+				String property3 = "testVirtualThreadsWithSlowDataAccessObject_" + i;
+
+				executor.submit(() ->
+				{
+					try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+					{
+						UnitOfWorkScope.call(uow, () ->
+						{
+							// An object which doesn't exist is read from the data access object every time
+							if (repository.get(Integer.MAX_VALUE) != null) throw new IllegalStateException();
+
+							ExampleDomainObject domainObject = repository.createObject();
+
+							domainObject.setProperty3(property3);
+							repository.add(domainObject);
+							uow.commit();
+							domainObjects.add(domainObject);
+
+							return null;
+						});
+					}
+					catch (Exception e)
+					{
+						exceptions.add(e);
+					}
+				});
+			}
+		}
+
+		Assert.assertTrue(exceptions.toString(), exceptions.isEmpty());
+		Assert.assertEquals(threads, domainObjects.size());
+		Assert.assertTrue(dao.maxConcurrentReads.get() > Runtime.getRuntime().availableProcessors());
+
+		for (ExampleDomainObject domainObject : domainObjects)
+		{
+			Assert.assertEquals(State.Unchanged, domainObject.getState());
+			Assert.assertTrue(domainObject.getId() > 0);
+		}
+	}
+	
+	/**
+	 * Ensures that UoWs which modified disjoint objects of the same repository log the before images
+	 * of their data objects in parallel instead of one after another
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testDisjointCommitsInParallel() throws Exception
+	{
+		final int objects = 8;
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		SlowExampleDAO dao = new SlowExampleDAO(this.repoDataAccessObject, 50);
+		List<ExampleDomainObject> domainObjects = new ArrayList<ExampleDomainObject>();
+		List<UnitOfWorkImpl> uows = new ArrayList<UnitOfWorkImpl>();
+
+		try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+		{
+			for (int i=0; i<objects; i++)
+			{
+				ExampleDomainObject domainObject = repository.createObject();
+
+				domainObject.setProperty3("testDisjointCommitsInParallel_" + i);
+				repository.add(domainObject);
+				domainObjects.add(domainObject);
+			}
+
+			uow.commit();
+		}
+
+		repository.setDataAccessObject(dao);
+
+		Path logFile = Files.createTempFile("testDisjointCommitsInParallel", ".log");
+
+		try (WriteAheadLog writeAheadLog = new WriteAheadLog(logFile))
+		{
+			for (ExampleDomainObject domainObject : domainObjects)
+			{
+				UnitOfWorkImpl uow = new UnitOfWorkImpl(repository);
+
+				uow.setWriteAheadLog(writeAheadLog);
+				uows.add(uow);
+
+				UnitOfWorkScope.run(uow, () ->
+				{
+					try
+					{
+						domainObject.setProperty1("testDisjointCommitsInParallel_changed");
+						repository.setModified(domainObject);
+					}
+					catch (DomainException e)
+					{
+						throw new IllegalStateException(e);
+					}
+				});
+			}
+
+			Assert.assertTrue(this.commitConcurrently(uows).isEmpty());
+		}
+		finally
+		{
+			for (UnitOfWorkImpl uow : uows) uow.close();
+
+			Files.delete(logFile);
+		}
+
+		Assert.assertTrue(dao.maxConcurrentReads.get() > 1);
+
+		for (ExampleDomainObject domainObject : domainObjects)
+		{
+			Assert.assertEquals(State.Unchanged, domainObject.getState());
+			Assert.assertEquals("testDisjointCommitsInParallel_changed", this.repoDataAccessObject.get(domainObject.getId()).getProperty1());
+		}
+	}
+	
+	/**
+	 * Ensures that new domain objects get final ids from the id allocator, keep them when they
+	 * are committed and that added objects which are removed again are not deleted from the DAO
+	 * 
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testIdAllocator() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		Path allocatorFile = Files.createTempFile("testIdAllocator", ".id");
+		
+		Files.delete(allocatorFile);
+		
+		try (HiLoIdAllocator idAllocator = new HiLoIdAllocator(allocatorFile, 2, 1000000000); UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+		{
+			repository.setIdAllocator(idAllocator);
+			
+			ExampleDomainObject parent = repository.createObject();
+			ExampleDomainObject child = repository.createObject();
+			ExampleDomainObject removedObject = repository.createObject();
+			int parentId = parent.getId();
+			int childId = child.getId();
+			
+			Assert.assertEquals(1000000000, parentId);
+			Assert.assertEquals(1000000001, childId);
+			Assert.assertEquals(1000000002, removedObject.getId());
+			
+			// The new objects can reference each other before they are committed
+			parent.setProperty1("testIdAllocator_parent");
+			child.setProperty1("testIdAllocator_child");
+			child.setProperty2(Integer.toString(parentId));
+			
+			repository.add(parent);
+			repository.add(child);
+			repository.add(removedObject);
+			repository.remove(removedObject);
+			
+			uow.commit();
+			
+			Assert.assertEquals(parentId, parent.getId());
+			Assert.assertEquals(childId, child.getId());
+			Assert.assertEquals(State.Unchanged, parent.getState());
+			Assert.assertEquals(State.Unchanged, child.getState());
+			Assert.assertSame(parent, repository.get(parentId));
+			Assert.assertSame(child, repository.get(childId));
+			Assert.assertEquals("testIdAllocator_parent", this.repoDataAccessObject.get(Integer.parseInt(this.repoDataAccessObject.get(childId).getProperty2())).getProperty1());
+			Assert.assertNull(this.repoDataAccessObject.get(removedObject.getId()));
+			
+			child.setProperty1("testIdAllocator_child_changed");
+			repository.setModified(child);
+			
+			uow.commit();
+			
+			Assert.assertEquals("testIdAllocator_child_changed", this.repoDataAccessObject.get(childId).getProperty1());
+			
+			repository.remove(parent);
+			repository.remove(child);
+			
+			uow.commit();
+			
+			Assert.assertNull(this.repoDataAccessObject.get(parentId));
+		}
+		finally
+		{
+			Files.deleteIfExists(allocatorFile);
+		}
+	}
+	
+	private WeakReference<UnitOfWorkImpl> createUnclosedUnitOfWork(DomainObjectRepositoryImpl repository) throws Exception
+	{
+		UnitOfWorkImpl uow = new UnitOfWorkImpl(repository);
+		
+		repository.add(repository.createObject());
+		
+		return new WeakReference<UnitOfWorkImpl>(uow);
+	}
+	
+	private List<Exception> commitConcurrently(List<UnitOfWorkImpl> uows) throws Exception
+	{
+		List<Exception> exceptions = Collections.synchronizedList(new ArrayList<Exception>());
+		CountDownLatch start = new CountDownLatch(1);
+		List<Thread> threads = new ArrayList<Thread>();
+		
+		for (UnitOfWorkImpl uow : uows) threads.add(Thread.startVirtualThread(() ->
+		{
+			try
+			{
+				start.await();
+				uow.commit();
+			}
+			catch (Exception e)
+			{
+				exceptions.add(e);
+			}
+		}));
+		
+		start.countDown();
+		
+		for (Thread thread : threads) thread.join();
+		
+		return exceptions;
+	}
+}
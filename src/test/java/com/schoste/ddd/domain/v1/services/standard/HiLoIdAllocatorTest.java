@@ -0,0 +1,51 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of the HiLoIdAllocator class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class HiLoIdAllocatorTest
+{
+	/**
+	 * Ensures that ids are handed out in blocks and that reopened allocators
+	 * continue after the blocks which were reserved before
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testBlocks() throws Exception
+	{
+		Path file = Files.createTempFile("HiLoIdAllocatorTest", ".id");
+
+		try
+		{
+			try (HiLoIdAllocator idAllocator = new HiLoIdAllocator(file, 3))
+			{
+				Assert.assertEquals(0, Files.size(file));
+				Assert.assertEquals(1, idAllocator.nextId());
+				Assert.assertEquals(Long.BYTES, Files.size(file));
+				Assert.assertEquals(2, idAllocator.nextId());
+				Assert.assertEquals(3, idAllocator.nextId());
+				Assert.assertEquals(4, idAllocator.nextId());
+			}
+
+			// The remaining ids of the second block are lost
+			try (HiLoIdAllocator idAllocator = new HiLoIdAllocator(file, 3, 100))
+			{
+				Assert.assertEquals(7, idAllocator.nextId());
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+}
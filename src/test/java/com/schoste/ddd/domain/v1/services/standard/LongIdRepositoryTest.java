@@ -0,0 +1,234 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import com.schoste.ddd.domain.v1.annotations.AutoSet;
+import com.schoste.ddd.domain.v1.models.BasicLongDomainObject;
+import com.schoste.ddd.domain.v1.services.LongDataAccessObject;
+import com.schoste.ddd.domain.v1.services.LongDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.mocked.GenericMockedDAO;
+
+/**
+ * Tests of repositories whose domain objects, data objects and DAO use ids beyond the range of int
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class LongIdRepositoryTest
+{
+	private static final long FIRST_ID = (long) Integer.MAX_VALUE + 1;
+
+	/**
+	 * Domain object with a long id
+	 */
+	public static class ExampleLongDomainObject extends BasicLongDomainObject
+	{
+		private String property1;
+
+		/**
+		 * Gets the example property
+		 *
+		 * @return a String
+		 */
+		public String getProperty1() { return this.property1; }
+
+		/**
+		 * Sets the example property
+		 *
+		 * @param property1 a String
+		 */
+		@AutoSet
+		public void setProperty1(String property1) { this.property1 = property1; }
+	}
+
+	/**
+	 * Data object with a long id
+	 */
+	public static class ExampleLongDO extends GenericDataObject implements LongDataObject
+	{
+		private static final long serialVersionUID = 2470365176423197718L;
+
+		private long longId;
+		private String property1;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public long getLongId() { return this.longId; }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		public void setLongId(long id) { this.longId = id; }
+
+		/**
+		 * Gets the example property
+		 *
+		 * @return a String
+		 */
+		public String getProperty1() { return this.property1; }
+
+		/**
+		 * Sets the example property
+		 *
+		 * @param property1 a String
+		 */
+		@com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet
+		public void setProperty1(String property1) { this.property1 = property1; }
+	}
+
+	/**
+	 * DAO which stores its data objects by their long id and assigns ids beyond the range of int
+	 */
+	public static class ExampleLongDAOImpl extends GenericMockedDAO<ExampleLongDO> implements LongDataAccessObject<ExampleLongDO>
+	{
+		private final Map<Long, ExampleLongDO> dataObjects = new ConcurrentHashMap<Long, ExampleLongDO>();
+		private long nextLongId = FIRST_ID;
+
+		private static ExampleLongDO copy(GenericDataObject dataObject) throws DALException
+		{
+			try
+			{
+				return (ExampleLongDO) dataObject.clone();
+			}
+			catch (CloneNotSupportedException e)
+			{
+				throw new DALException(e);
+			}
+		}
+
+		@Override
+		public ExampleLongDO createDataObject() throws DALException { return new ExampleLongDO(); }
+
+		@Override
+		public ExampleLongDO get(long id) throws DALException
+		{
+			ExampleLongDO dataObject = this.dataObjects.get(id);
+
+			return (dataObject != null) ? copy(dataObject) : null;
+		}
+
+		@Override
+		public ExampleLongDO get(int id) throws DALException { return this.get((long) id); }
+
+		@Override
+		public Collection<ExampleLongDO> getAll() throws DALException
+		{
+			Collection<ExampleLongDO> dataObjects = new ArrayList<ExampleLongDO>();
+
+			for (ExampleLongDO dataObject : this.dataObjects.values()) dataObjects.add(copy(dataObject));
+
+			return dataObjects;
+		}
+
+		@Override
+		public Collection<ExampleLongDO> reloadAll() throws DALException { return this.getAll(); }
+
+		@Override
+		public synchronized void save(GenericDataObject[] dataObjects) throws DALException
+		{
+			for (GenericDataObject dataObject : dataObjects)
+			{
+				ExampleLongDO longDataObject = (ExampleLongDO) dataObject;
+
+				if (longDataObject.getLongId() <= 0) longDataObject.setLongId(this.nextLongId++);
+
+				this.dataObjects.put(longDataObject.getLongId(), copy(longDataObject));
+			}
+		}
+
+		@Override
+		public synchronized void delete(GenericDataObject[] dataObjects) throws DALException
+		{
+			for (GenericDataObject dataObject : dataObjects) this.dataObjects.remove(((ExampleLongDO) dataObject).getLongId());
+		}
+	}
+
+	/**
+	 * Repository of the domain objects with long ids
+	 */
+	public static class ExampleLongRepositoryImpl extends GenericRepositoryImpl<ExampleLongDomainObject, ExampleLongDO>
+	{
+		@Autowired
+		private ExampleLongDAOImpl dao;
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected ExampleLongDAOImpl getDataAccessObject() { return this.dao; }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void afterAutoConversation(ExampleLongDO dataObject, ExampleLongDomainObject domainObject) throws Exception { }
+
+		/**
+		 * {@inheritDoc}
+		 */
+		@Override
+		protected void afterAutoConversation(ExampleLongDomainObject domainObject, ExampleLongDO dataObject) throws Exception { }
+	}
+
+	/**
+	 * Ensures that domain objects get ids beyond the range of int from the DAO when they are committed
+	 * and that they can be read by these ids, also by repositories which didn't commit them
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testIdsBeyondIntRange() throws Exception
+	{
+		try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext())
+		{
+			context.registerBean("AutoObjectConverter", SpringAutoObjectConverterImpl.class, bd -> bd.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+			context.registerBean("DomainObject", ExampleLongDomainObject.class, bd -> bd.setScope(BeanDefinition.SCOPE_PROTOTYPE));
+			context.registerBean("ExampleLongDAO", ExampleLongDAOImpl.class);
+			context.refresh();
+
+			ExampleLongRepositoryImpl repository = context.getAutowireCapableBeanFactory().createBean(ExampleLongRepositoryImpl.class);
+			ExampleLongDomainObject domainObject1;
+			ExampleLongDomainObject domainObject2;
+
+			try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+			{
+				domainObject1 = repository.createObject();
+				domainObject2 = repository.createObject();
+
+				domainObject1.setProperty1("testIdsBeyondIntRange_1");
+				domainObject2.setProperty1("testIdsBeyondIntRange_2");
+				repository.add(domainObject1);
+				repository.add(domainObject2);
+				uow.commit();
+			}
+
+			Assert.assertEquals(FIRST_ID, domainObject1.getLongId());
+			Assert.assertEquals(FIRST_ID + 1, domainObject2.getLongId());
+			Assert.assertEquals(Integer.MAX_VALUE, domainObject1.getId());
+			Assert.assertEquals(Integer.MAX_VALUE, domainObject2.getId());
+			Assert.assertSame(domainObject1, repository.get(FIRST_ID));
+			Assert.assertSame(domainObject2, repository.get(FIRST_ID + 1));
+
+			ExampleLongRepositoryImpl readingRepository = context.getAutowireCapableBeanFactory().createBean(ExampleLongRepositoryImpl.class);
+
+			Assert.assertEquals("testIdsBeyondIntRange_1", readingRepository.get(FIRST_ID).getProperty1());
+			Assert.assertEquals("testIdsBeyondIntRange_2", readingRepository.get(FIRST_ID + 1).getProperty1());
+			Assert.assertEquals(FIRST_ID + 1, readingRepository.get(FIRST_ID + 1).getLongId());
+			Assert.assertNull(readingRepository.get(FIRST_ID + 2));
+		}
+	}
+}
@@ -0,0 +1,117 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of the LongObjectMap class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class LongObjectMapTest
+{
+	/**
+	 * Ensures that entries with keys beyond the range of int can be put, replaced, read and removed
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testPutGetRemove() throws Exception
+	{
+		LongObjectMap<String> map = new LongObjectMap<String>();
+		long key = Integer.MAX_VALUE + 1L;
+
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.put(key, "a"));
+		Assert.assertNull(map.put(-key, "b"));
+		Assert.assertEquals("a", map.put(key, "c"));
+		Assert.assertEquals(2, map.size());
+		Assert.assertEquals("c", map.get(key));
+		Assert.assertEquals("b", map.get(-key));
+		Assert.assertNull(map.get(0));
+		Assert.assertTrue(map.containsKey(key));
+		Assert.assertEquals("c", map.remove(key));
+		Assert.assertFalse(map.containsKey(key));
+		Assert.assertNull(map.remove(key));
+		Assert.assertEquals(1, map.size());
+
+		map.clear();
+
+		Assert.assertTrue(map.isEmpty());
+		Assert.assertNull(map.get(-key));
+	}
+
+	/**
+	 * Ensures that the map behaves like a HashMap when many entries are put and removed randomly
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testRandomOperations() throws Exception
+	{
+		LongObjectMap<Long> map = new LongObjectMap<Long>();
+		Map<Long, Long> expectedMap = new HashMap<Long, Long>();
+		Random random = new Random(33);
+
+		for (int i=0; i<100000; i++)
+		{
+			long key = random.nextInt(5000) * 0x100000000L;
+
+			if (random.nextInt(3) == 0) Assert.assertEquals(expectedMap.remove(key), map.remove(key));
+			else Assert.assertEquals(expectedMap.put(key, (long) i), map.put(key, (long) i));
+		}
+
+		Assert.assertEquals(expectedMap.size(), map.size());
+		Assert.assertEquals(expectedMap.size(), map.keys().length);
+		Assert.assertEquals(expectedMap.size(), map.values().size());
+
+		for (long key : map.keys()) Assert.assertEquals(expectedMap.get(key), map.get(key));
+	}
+
+	/**
+	 * Ensures that optimistic reads neither throw nor hang while another thread resizes and clears the map
+	 * and that they read the same values as {@see LongObjectMap#get(long)} once the map is not changed anymore
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testGetOptimistically() throws Exception
+	{
+		LongObjectMap<Long> map = new LongObjectMap<Long>();
+		AtomicBoolean stopped = new AtomicBoolean(false);
+		Thread writer = new Thread(() ->
+		{
+			Random random = new Random(47);
+
+			while (!stopped.get())
+			{
+				for (int i=0; i<1000; i++) map.put(random.nextInt(5000), (long) i);
+				for (int i=0; i<500; i++) map.remove(random.nextInt(5000));
+
+				if (random.nextInt(10) == 0) map.clear();
+			}
+		});
+
+		writer.start();
+
+		try
+		{
+			Random random = new Random(11);
+
+			for (int i=0; i<1000000; i++) map.getOptimistically(random.nextInt(5000));
+		}
+		finally
+		{
+			stopped.set(true);
+			writer.join();
+		}
+
+		for (long key=0; key<5000; key++) Assert.assertEquals(map.get(key), map.getOptimistically(key));
+	}
+}
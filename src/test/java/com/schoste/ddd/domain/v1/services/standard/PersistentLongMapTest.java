@@ -0,0 +1,100 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.stream.Collectors;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of the PersistentLongMap class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class PersistentLongMapTest
+{
+	/**
+	 * Ensures that changing a map doesn't change the map it was created from
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testImmutability() throws Exception
+	{
+		PersistentLongMap<String> empty = PersistentLongMap.empty();
+		PersistentLongMap<String> one = empty.plus(Long.MAX_VALUE, "a");
+		PersistentLongMap<String> two = one.plus(Long.MIN_VALUE, "b");
+		PersistentLongMap<String> replaced = two.plus(Long.MAX_VALUE, "c");
+		PersistentLongMap<String> removed = replaced.minus(Long.MIN_VALUE);
+
+		Assert.assertEquals(0, empty.size());
+		Assert.assertNull(empty.get(Long.MAX_VALUE));
+		Assert.assertEquals(1, one.size());
+		Assert.assertEquals("a", one.get(Long.MAX_VALUE));
+		Assert.assertNull(one.get(Long.MIN_VALUE));
+		Assert.assertEquals(2, two.size());
+		Assert.assertEquals("a", two.get(Long.MAX_VALUE));
+		Assert.assertEquals("b", two.get(Long.MIN_VALUE));
+		Assert.assertEquals(2, replaced.size());
+		Assert.assertEquals("c", replaced.get(Long.MAX_VALUE));
+		Assert.assertEquals(1, removed.size());
+		Assert.assertNull(removed.get(Long.MIN_VALUE));
+		Assert.assertSame(removed, removed.minus(0));
+		Assert.assertEquals(0, removed.minus(Long.MAX_VALUE).size());
+	}
+
+	/**
+	 * Ensures that every version of the map behaves like a copied HashMap when many entries are put and removed randomly
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testRandomOperations() throws Exception
+	{
+		List<PersistentLongMap<Long>> maps = new ArrayList<PersistentLongMap<Long>>();
+		List<Map<Long, Long>> expectedMaps = new ArrayList<Map<Long, Long>>();
+		PersistentLongMap<Long> map = PersistentLongMap.empty();
+		Map<Long, Long> expectedMap = new HashMap<Long, Long>();
+		Random random = new Random(34);
+
+		for (int i=0; i<50000; i++)
+		{
+			long key = random.nextInt(3000) - 1500L;
+
+			if (random.nextInt(3) == 0)
+			{
+				map = map.minus(key);
+				expectedMap.remove(key);
+			}
+			else
+			{
+				map = map.plus(key, (long) i);
+				expectedMap.put(key, (long) i);
+			}
+
+			if ((i % 5000) == 0)
+			{
+				maps.add(map);
+				expectedMaps.add(new HashMap<Long, Long>(expectedMap));
+			}
+		}
+
+		maps.add(map);
+		expectedMaps.add(expectedMap);
+
+		for (int i=0; i<maps.size(); i++)
+		{
+			Assert.assertEquals(expectedMaps.get(i).size(), maps.get(i).size());
+			Assert.assertEquals(expectedMaps.get(i).size(), maps.get(i).values().size());
+			Assert.assertEquals(expectedMaps.get(i).keySet(), Arrays.stream(maps.get(i).keys()).boxed().collect(Collectors.toSet()));
+
+			for (long key=-1500; key<1500; key++) Assert.assertEquals(expectedMaps.get(i).get(key), maps.get(i).get(key));
+		}
+	}
+}
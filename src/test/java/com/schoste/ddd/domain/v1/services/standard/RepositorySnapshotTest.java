@@ -0,0 +1,105 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.lang.ref.Reference;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
+import com.schoste.ddd.domain.v1.services.RepositorySnapshot;
+import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+
+/**
+ * Tests of the snapshots of the GenericRepositoryImpl class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+@ContextConfiguration(locations = { "file:src/test/resources/unittest-beans.xml" })
+@RunWith(SpringJUnit4ClassRunner.class)
+public class RepositorySnapshotTest
+{
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	/**
+	 * Ensures that loaded domain objects and their data objects can be collected although they were
+	 * published to snapshots and that snapshots read collected data objects again
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testLoadedObjectsCanBeCollected() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		DomainObjectRepositoryImpl readingRepository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		int id;
+
+		try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+		{
+			ExampleDomainObject domainObject = repository.createObject();
+
+			domainObject.setProperty3("testLoadedObjectsCanBeCollected_0");
+			repository.add(domainObject);
+			uow.commit();
+
+			id = domainObject.getId();
+		}
+
+		List<Reference<?>> loadedObjects = this.load(readingRepository, id);
+		RepositorySnapshot<ExampleDomainObject> snapshot = readingRepository.snapshot();
+
+		for (Reference<?> loadedObject : loadedObjects)
+		{
+			exhaustMemory(loadedObject);
+
+			Assert.assertNull(loadedObject.get());
+		}
+
+		Assert.assertEquals(1, snapshot.size());
+		Assert.assertEquals("testLoadedObjectsCanBeCollected_0", snapshot.get(id).getProperty3());
+		Assert.assertEquals(1, snapshot.getAll().size());
+		Assert.assertEquals("testLoadedObjectsCanBeCollected_0", readingRepository.get(id).getProperty3());
+	}
+
+	/**
+	 * Loads a domain object without keeping it or its data object referenced
+	 *
+	 * @return weak references to the domain object and the data object it was loaded from
+	 */
+	private List<Reference<?>> load(DomainObjectRepositoryImpl repository, int id) throws Exception
+	{
+		ExampleDomainObject domainObject = repository.get(id);
+		ExampleDO dataObject = repository.getLoadedDataObject(domainObject);
+
+		Assert.assertNotNull(dataObject);
+
+		return List.of(new WeakReference<ExampleDomainObject>(domainObject), new WeakReference<ExampleDO>(dataObject));
+	}
+
+	/**
+	 * Allocates memory until the referenced object was collected. Softly referenced objects
+	 * are collected before the JVM runs out of memory at the latest.
+	 */
+	private static void exhaustMemory(Reference<?> reference)
+	{
+		List<long[]> garbage = new ArrayList<long[]>();
+
+		try
+		{
+			while (reference.get() != null) garbage.add(new long[1 << 20]);
+		}
+		catch (OutOfMemoryError e)
+		{
+			// expected if the object is only collected when no memory is left
+		}
+	}
+}
@@ -1,95 +1,294 @@
-package com.schoste.ddd.domain.v1.services.standard;
-
-import org.junit.Assert;
-import org.junit.Test;
-import org.springframework.beans.factory.annotation.Autowired;
-
-import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
-import com.schoste.ddd.domain.v1.services.AutoObjectConverter;
-import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
-
-abstract public class SpringAutoObjectConverterTestSuite
-{
-	@Autowired
-	protected AutoObjectConverter converter;
-
-	@Test
-	public void testConvertSrcNull() throws Exception
-	{
-		ExampleDO src = new ExampleDO();
-		ExampleDomainObject dst = new ExampleDomainObject();
-		
-		src.setProperty1("setProperty1");
-		src.setProperty2("setProperty2");
-		src.setProperty3("setProperty3");
-		
-		this.converter.convert(null, dst);
-		
-		Assert.assertEquals("setProperty1", src.getProperty1());
-		Assert.assertEquals("setProperty2", src.getProperty2());
-		Assert.assertEquals("setProperty3", src.getProperty3());
-		Assert.assertNull(dst.getProperty1());
-		Assert.assertNull(dst.getProperty2());
-		Assert.assertNull(dst.getProperty3());
-	}
-
-	@Test
-	public void testConvertDstNull() throws Exception
-	{
-		ExampleDO src = new ExampleDO();
-		ExampleDomainObject dst = new ExampleDomainObject();
-		
-		src.setProperty1("setProperty1");
-		src.setProperty2("setProperty2");
-		src.setProperty3("setProperty3");
-		
-		this.converter.convert(src, null);
-		
-		Assert.assertEquals("setProperty1", src.getProperty1());
-		Assert.assertEquals("setProperty2", src.getProperty2());
-		Assert.assertEquals("setProperty3", src.getProperty3());
-		Assert.assertNull(dst.getProperty1());
-		Assert.assertNull(dst.getProperty2());
-		Assert.assertNull(dst.getProperty3());
-	}
-
-	@Test
-	public void testConvertDataObjToDomainObj() throws Exception
-	{
-		ExampleDO src = new ExampleDO();
-		ExampleDomainObject dst = new ExampleDomainObject();
-		
-		src.setProperty1("setProperty1");
-		src.setProperty2("setProperty2");
-		src.setProperty3("setProperty3");
-		
-		this.converter.convert(src, dst);
-
-		Assert.assertEquals("setProperty1", src.getProperty1());
-		Assert.assertEquals("setProperty2", src.getProperty2());
-		Assert.assertEquals("setProperty3", src.getProperty3());
-		Assert.assertEquals("setProperty1", dst.getProperty1());
-		Assert.assertEquals("setProperty2", dst.getProperty2());
-		Assert.assertNotEquals("setProperty3", dst.getProperty3());
-	}
-
-	@Test
-	public void testConvertDomainObjToDataObj() throws Exception
-	{
-		ExampleDomainObject src = new ExampleDomainObject();
-		ExampleDO dst = new ExampleDO();
-		
-		src.setProperty1("setProperty1");
-		src.setProperty2("setProperty2");
-		src.setProperty3("setProperty3");
-		
-		this.converter.convert(src, dst);
-
-		Assert.assertEquals("setProperty1", src.getProperty1());
-		Assert.assertEquals("setProperty2", src.getProperty2());
-		Assert.assertEquals("setProperty3", src.getProperty3());
-		Assert.assertEquals("setProperty1", dst.getProperty1());
-		Assert.assertEquals("setProperty2", dst.getProperty2());
-		Assert.assertNotEquals("setProperty3", dst.getProperty3());
-	}
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import com.schoste.ddd.domain.v1.annotations.AutoSet;
+import com.schoste.ddd.domain.v1.exceptions.DomainException;
+import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
+import com.schoste.ddd.domain.v1.models.ExampleImmutableValueObject;
+import com.schoste.ddd.domain.v1.models.ExampleProjection;
+import com.schoste.ddd.domain.v1.models.ExampleValueObject;
+import com.schoste.ddd.domain.v1.services.AutoObjectConverter;
+import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+import com.schoste.ddd.infrastructure.dal.v2.models.ExampleValueDO;
+
+abstract public class SpringAutoObjectConverterTestSuite
+{
+	@Autowired
+	protected AutoObjectConverter converter;
+
+	@Test
+	public void testConvertSrcNull() throws Exception
+	{
+		ExampleDO src = new ExampleDO();
+		ExampleDomainObject dst = new ExampleDomainObject();
+		
+		src.setProperty1("setProperty1");
+		src.setProperty2("setProperty2");
+		src.setProperty3("setProperty3");
+		
+		this.converter.convert(null, dst);
+		
+		Assert.assertEquals("setProperty1", src.getProperty1());
+		Assert.assertEquals("setProperty2", src.getProperty2());
+		Assert.assertEquals("setProperty3", src.getProperty3());
+		Assert.assertNull(dst.getProperty1());
+		Assert.assertNull(dst.getProperty2());
+		Assert.assertNull(dst.getProperty3());
+	}
+
+	@Test
+	public void testConvertDstNull() throws Exception
+	{
+		ExampleDO src = new ExampleDO();
+		ExampleDomainObject dst = new ExampleDomainObject();
+		
+		src.setProperty1("setProperty1");
+		src.setProperty2("setProperty2");
+		src.setProperty3("setProperty3");
+		
+		this.converter.convert(src, null);
+		
+		Assert.assertEquals("setProperty1", src.getProperty1());
+		Assert.assertEquals("setProperty2", src.getProperty2());
+		Assert.assertEquals("setProperty3", src.getProperty3());
+		Assert.assertNull(dst.getProperty1());
+		Assert.assertNull(dst.getProperty2());
+		Assert.assertNull(dst.getProperty3());
+	}
+
+	@Test
+	public void testConvertDataObjToDomainObj() throws Exception
+	{
+		ExampleDO src = new ExampleDO();
+		ExampleDomainObject dst = new ExampleDomainObject();
+		
+		src.setProperty1("setProperty1");
+		src.setProperty2("setProperty2");
+		src.setProperty3("setProperty3");
+		
+		this.converter.convert(src, dst);
+
+		Assert.assertEquals("setProperty1", src.getProperty1());
+		Assert.assertEquals("setProperty2", src.getProperty2());
+		Assert.assertEquals("setProperty3", src.getProperty3());
+		Assert.assertEquals("setProperty1", dst.getProperty1());
+		Assert.assertEquals("setProperty2", dst.getProperty2());
+		Assert.assertNotEquals("setProperty3", dst.getProperty3());
+	}
+
+	@Test
+	public void testConvertDomainObjToDataObj() throws Exception
+	{
+		ExampleDomainObject src = new ExampleDomainObject();
+		ExampleDO dst = new ExampleDO();
+		
+		src.setProperty1("setProperty1");
+		src.setProperty2("setProperty2");
+		src.setProperty3("setProperty3");
+		
+		this.converter.convert(src, dst);
+
+		Assert.assertEquals("setProperty1", src.getProperty1());
+		Assert.assertEquals("setProperty2", src.getProperty2());
+		Assert.assertEquals("setProperty3", src.getProperty3());
+		Assert.assertEquals("setProperty1", dst.getProperty1());
+		Assert.assertEquals("setProperty2", dst.getProperty2());
+		Assert.assertNotEquals("setProperty3", dst.getProperty3());
+	}
+
+	@Test
+	public void testConvertNestedObjects() throws Exception
+	{
+		ExampleValueDO src = new ExampleValueDO();
+		ExampleValueDO srcParent = new ExampleValueDO();
+		ExampleValueObject dst = new ExampleValueObject();
+
+		src.setName("child");
+		srcParent.setName("parent");
+		src.setParent(srcParent);
+
+		this.converter.convert(src, dst);
+
+		Assert.assertEquals("child", dst.getName());
+		Assert.assertNotNull(dst.getParent());
+		Assert.assertEquals("parent", dst.getParent().getName());
+		Assert.assertNull(dst.getParent().getParent());
+		Assert.assertNull(dst.getChildren());
+	}
+
+	@Test
+	public void testConvertCollectionsAndCycles() throws Exception
+	{
+		ExampleValueDO src = new ExampleValueDO();
+		ExampleValueDO srcChild1 = new ExampleValueDO();
+		ExampleValueDO srcChild2 = new ExampleValueDO();
+		ExampleValueObject dst = new ExampleValueObject();
+
+		src.setName("parent");
+		srcChild1.setName("child1");
+		srcChild1.setParent(src);
+		srcChild2.setName("child2");
+		srcChild2.setParent(src);
+		src.setChildren(new ArrayList<>());
+		src.getChildren().add(srcChild1);
+		src.getChildren().add(srcChild2);
+		src.getChildren().add(srcChild1);
+
+		this.converter.convert(src, dst);
+
+		Assert.assertEquals(3, dst.getChildren().size());
+		Assert.assertEquals("child1", dst.getChildren().get(0).getName());
+		Assert.assertEquals("child2", dst.getChildren().get(1).getName());
+
+		// Shared references must stay shared and cycles must point back to the converted objects
+		Assert.assertSame(dst.getChildren().get(0), dst.getChildren().get(2));
+		Assert.assertSame(dst, dst.getChildren().get(0).getParent());
+		Assert.assertSame(dst, dst.getChildren().get(1).getParent());
+	}
+
+	@Test
+	public void testConvertNestedObjectsToDataObjects() throws Exception
+	{
+		ExampleValueObject src = new ExampleValueObject();
+		ExampleValueObject srcParent = new ExampleValueObject();
+		ExampleValueObject srcChild = new ExampleValueObject();
+		ExampleValueDO dataObject = new ExampleValueDO();
+		ExampleValueObject dst = new ExampleValueObject();
+
+		src.setName("child");
+		srcParent.setName("parent");
+		srcChild.setName("grandchild");
+		srcChild.setParent(src);
+		src.setParent(srcParent);
+		src.setChildren(new ArrayList<>());
+		src.getChildren().add(srcChild);
+
+		// The setters of the data object are annotated by the DAL annotation which cannot request nested conversion
+		this.converter.convert(src, dataObject);
+
+		Assert.assertEquals(ExampleValueDO.class, dataObject.getParent().getClass());
+		Assert.assertEquals("parent", dataObject.getParent().getName());
+		Assert.assertEquals(ExampleValueDO.class, ((Object) dataObject.getChildren().get(0)).getClass());
+		Assert.assertSame(dataObject, dataObject.getChildren().get(0).getParent());
+
+		this.converter.convert(dataObject, dst);
+
+		Assert.assertEquals("child", dst.getName());
+		Assert.assertEquals("parent", dst.getParent().getName());
+		Assert.assertEquals("grandchild", dst.getChildren().get(0).getName());
+		Assert.assertSame(dst, dst.getChildren().get(0).getParent());
+	}
+
+	@Test
+	public void testCreateRecord() throws Exception
+	{
+		ExampleDO src = new ExampleDO();
+
+		src.setProperty1("setProperty1");
+		src.setProperty2("setProperty2");
+		src.setProperty3("setProperty3");
+
+		ExampleProjection dst = this.converter.create(src, ExampleProjection.class);
+
+		Assert.assertEquals("setProperty1", dst.property1());
+		Assert.assertEquals("setProperty2", dst.secondProperty());
+		Assert.assertNull(this.converter.create(null, ExampleProjection.class));
+	}
+
+	@Test
+	public void testCreateImmutableObjects() throws Exception
+	{
+		ExampleValueObject src = new ExampleValueObject();
+		ExampleValueObject srcChild = new ExampleValueObject();
+
+		src.setName("parent");
+		srcChild.setName("child");
+		src.setChildren(new ArrayList<>());
+		src.getChildren().add(srcChild);
+		src.getChildren().add(srcChild);
+
+		ExampleSummary dst = this.converter.create(src, ExampleSummary.class);
+
+		Assert.assertEquals("parent", dst.name());
+		Assert.assertEquals(2, dst.children().size());
+		Assert.assertEquals("child", dst.children().get(0).getName());
+		Assert.assertSame(dst.children().get(0), dst.children().get(1));
+	}
+
+	@Test
+	public void testCreateCyclicImmutableObjects() throws Exception
+	{
+		ExampleValueDO src = new ExampleValueDO();
+
+		src.setName("self");
+		src.setParent(src);
+
+		Assert.assertThrows(DomainException.class, () -> this.converter.create(src, ExampleCyclicSummary.class));
+	}
+
+	@Test
+	public void testWidenPrimitiveValues() throws Exception
+	{
+		ExampleTypedTarget dst = new ExampleTypedTarget();
+
+		this.converter.convert(new ExampleUntypedSource(), dst);
+
+		Assert.assertEquals(42L, dst.getCount());
+	}
+
+	@Test
+	public void testAssignValuesOfUndeclaredClasses() throws Exception
+	{
+		ExampleTypedTarget dst = new ExampleTypedTarget();
+
+		this.converter.convert(new ExampleUntypedSource(), dst);
+
+		// The getter declares Object, but the String it returns fits the setter
+		Assert.assertEquals("x", dst.getName());
+	}
+
+	/**
+	 * Source whose getters don't declare the classes of the setters of {@see ExampleTypedTarget}
+	 */
+	public static class ExampleUntypedSource
+	{
+		public int getCount() { return 42; }
+
+		public Object getName() { return "x"; }
+	}
+
+	/**
+	 * Target whose setters accept wider or more specific classes than the getters of {@see ExampleUntypedSource} declare
+	 */
+	public static class ExampleTypedTarget
+	{
+		private long count;
+		private String name;
+
+		public long getCount() { return this.count; }
+
+		@AutoSet
+		public void setCount(long count) { this.count = count; }
+
+		public String getName() { return this.name; }
+
+		@AutoSet
+		public void setName(String name) { this.name = name; }
+	}
+
+	/**
+	 * Immutable summary of an {@see ExampleValueObject}
+	 */
+	public record ExampleSummary(String name, @AutoSet(targetClass = ExampleImmutableValueObject.class) List<ExampleImmutableValueObject> children) { }
+
+	/**
+	 * Immutable summary of an {@see ExampleValueDO} which cannot reference itself
+	 */
+	public record ExampleCyclicSummary(String name, @AutoSet(nested = true) ExampleCyclicSummary parent) { }
 }
\ No newline at end of file
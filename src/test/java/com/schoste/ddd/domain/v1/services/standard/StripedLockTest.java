@@ -0,0 +1,97 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * Tests of the StripedLock class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class StripedLockTest
+{
+	/**
+	 * Ensures that the number of stripes is a power of two and that ids mapping to the same stripe
+	 * lock it only once
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testStripes() throws Exception
+	{
+		StripedLock stripedLock = new StripedLock(5);
+
+		Assert.assertEquals(8, stripedLock.getStripeCount());
+		Assert.assertEquals(1, new StripedLock(1).getStripeCount());
+
+		long id = 42;
+		long otherId = id +1;
+
+		while (stripedLock.indexOf(otherId) != stripedLock.indexOf(id)) otherId++;
+
+		StripedLock.Stripes stripes = stripedLock.lock(Arrays.asList(id, otherId, id));
+		Thread thread = Thread.startVirtualThread(() ->
+		{
+			// A stripe held by another thread cannot be acquired
+			stripedLock.lock(Collections.singleton(id)).unlock();
+		});
+
+		thread.join(100);
+
+		Assert.assertTrue(thread.isAlive());
+
+		// Releasing the stripe once releases it although two ids map to it
+		stripes.unlock();
+		thread.join();
+	}
+
+	/**
+	 * Ensures that threads locking overlapping sets of ids in different orders don't deadlock
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testOverlappingIds() throws Exception
+	{
+		StripedLock stripedLock = new StripedLock(4);
+		List<Thread> threads = new ArrayList<Thread>();
+
+		for (int t=0; t<8; t++)
+		{
+			Random random = new Random(t);
+
+			threads.add(Thread.startVirtualThread(() ->
+			{
+				for (int i=0; i<10000; i++)
+				{
+					List<Long> ids = Arrays.asList((long) random.nextInt(100), (long) random.nextInt(100), (long) random.nextInt(100));
+
+					StripedLock.Stripes stripes = stripedLock.lock(ids);
+
+					try
+					{
+						Thread.yield();
+					}
+					finally
+					{
+						stripes.unlock();
+					}
+				}
+			}));
+		}
+
+		for (Thread thread : threads)
+		{
+			thread.join(60000);
+
+			Assert.assertFalse(thread.isAlive());
+		}
+	}
+}
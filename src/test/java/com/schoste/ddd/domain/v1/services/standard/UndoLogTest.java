@@ -0,0 +1,78 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+
+/**
+ * Tests of the UndoLog class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class UndoLogTest
+{
+	private static UndoLog.Entry createEntry(Object object)
+	{
+		return new UndoLog.Entry(UndoLog.Kind.Added, null, object, State.Detached, null);
+	}
+
+	/**
+	 * Ensures that savepoints keep their position when entries before them are discarded
+	 * and that truncating releases the savepoints set afterwards
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testSavepoints() throws Exception
+	{
+		UndoLog undoLog = new UndoLog();
+
+		undoLog.add(createEntry("a"));
+		undoLog.setSavepoint("first");
+		undoLog.add(createEntry("b"));
+		undoLog.setSavepoint("second");
+		undoLog.add(createEntry("c"));
+
+		Assert.assertEquals(3, undoLog.getEntries(0).size());
+		Assert.assertEquals("c", undoLog.getEntries(undoLog.getSavepoint("second")).get(0).getObject());
+
+		undoLog.discard(1);
+
+		Assert.assertEquals(2, undoLog.getEntries(0).size());
+		Assert.assertEquals("b", undoLog.getEntries(undoLog.getSavepoint("first")).get(0).getObject());
+
+		undoLog.truncate(undoLog.getSavepoint("first"));
+
+		Assert.assertTrue(undoLog.getEntries(0).isEmpty());
+		Assert.assertEquals(1, undoLog.getSavepoint("first"));
+
+		try
+		{
+			undoLog.getSavepoint("second");
+
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected because the savepoint was set after the position the log was truncated to
+		}
+
+		undoLog.add(createEntry("d"));
+		undoLog.discard(undoLog.getPosition());
+
+		Assert.assertTrue(undoLog.getEntries(0).isEmpty());
+
+		try
+		{
+			undoLog.releaseSavepoint("first");
+
+			Assert.fail();
+		}
+		catch (IllegalArgumentException e)
+		{
+			// expected because the savepoint was set before the discarded entries
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
+
+/**
+ * Tests of the savepoints of the UnitOfWorkImpl class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+@ContextConfiguration(locations = { "file:src/test/resources/unittest-beans.xml" })
+@RunWith(SpringJUnit4ClassRunner.class)
+public class UnitOfWorkSavepointTest
+{
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private ExampleDAO dao;
+
+	/**
+	 * Ensures that rolling back restores added, removed and modified domain objects without
+	 * reloading the repository and that savepoints revert only the changes made after them
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testSavepoints() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+
+		try (UnitOfWorkImpl uow = new UnitOfWorkImpl(repository))
+		{
+			ExampleDomainObject modifiedObject = repository.createObject();
+			ExampleDomainObject removedObject = repository.createObject();
+
+			modifiedObject.setProperty3("testSavepoints_0");
+			removedObject.setProperty3("testSavepoints_removed");
+			repository.add(modifiedObject);
+			repository.add(removedObject);
+
+			uow.commit();
+
+			modifiedObject.setProperty3("testSavepoints_1");
+			repository.setModified(modifiedObject);
+
+			uow.setSavepoint("savepoint");
+
+			ExampleDomainObject addedObject = repository.createObject();
+
+			modifiedObject.setProperty3("testSavepoints_2");
+			repository.add(addedObject);
+			repository.remove(removedObject);
+
+			uow.rollbackToSavepoint("savepoint");
+
+			Assert.assertEquals("testSavepoints_1", modifiedObject.getProperty3());
+			Assert.assertEquals(State.Modified, modifiedObject.getState());
+			Assert.assertEquals(State.Detached, addedObject.getState());
+			Assert.assertEquals(State.Unchanged, removedObject.getState());
+			Assert.assertSame(removedObject, repository.get(removedObject.getId()));
+
+			repository.remove(removedObject);
+
+			uow.rollback();
+
+			Assert.assertEquals("testSavepoints_0", modifiedObject.getProperty3());
+			Assert.assertEquals(State.Unchanged, modifiedObject.getState());
+			Assert.assertEquals(State.Unchanged, removedObject.getState());
+			Assert.assertSame(modifiedObject, repository.get(modifiedObject.getId()));
+
+			try
+			{
+				uow.rollbackToSavepoint("savepoint");
+
+				Assert.fail();
+			}
+			catch (IllegalArgumentException e)
+			{
+				// expected because rolling back everything released the savepoint
+			}
+
+			uow.commit();
+
+			Assert.assertEquals("testSavepoints_0", this.dao.get(modifiedObject.getId()).getProperty3());
+			Assert.assertNotNull(this.dao.get(removedObject.getId()));
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.schoste.ddd.domain.v1.services.standard;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+import com.schoste.ddd.domain.v1.models.DomainObject.State;
+import com.schoste.ddd.domain.v1.models.ExampleDomainObject;
+import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
+
+/**
+ * Tests of the UnitOfWorkScope class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+@ContextConfiguration(locations = { "file:src/test/resources/unittest-beans.xml" })
+@RunWith(SpringJUnit4ClassRunner.class)
+public class UnitOfWorkScopeTest
+{
+	@Autowired
+	private ApplicationContext applicationContext;
+
+	@Autowired
+	private ExampleDAO dao;
+
+	/**
+	 * Ensures that nested scopes bind their own UoW and restore the outer one when they end
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testNestedScopes() throws Exception
+	{
+		try (UnitOfWorkImpl outerUnitOfWork = new UnitOfWorkImpl(Collections.emptyList()); UnitOfWorkImpl innerUnitOfWork = new UnitOfWorkImpl(Collections.emptyList()))
+		{
+			UnitOfWorkScope.run(outerUnitOfWork, () ->
+			{
+				UnitOfWorkScope.run(innerUnitOfWork, () -> Assert.assertSame(innerUnitOfWork, UnitOfWorkScope.current()));
+
+				Assert.assertSame(outerUnitOfWork, UnitOfWorkScope.current());
+			});
+
+			Assert.assertNull(UnitOfWorkScope.current());
+		}
+	}
+
+	/**
+	 * Ensures that the threads of a pool which was created within a scope inherit the UoW
+	 * only until the scope ends
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testPoolCreatedInScope() throws Exception
+	{
+		try (UnitOfWorkImpl uow = new UnitOfWorkImpl(Collections.emptyList()))
+		{
+			ExecutorService executor = UnitOfWorkScope.call(uow, () ->
+			{
+				ExecutorService pool = Executors.newSingleThreadExecutor();
+
+				// The thread of the pool is started within the scope
+				Assert.assertSame(uow, pool.submit(UnitOfWorkScope::current).get());
+
+				return pool;
+			});
+
+			try
+			{
+				Assert.assertNull(executor.submit(UnitOfWorkScope::current).get());
+			}
+			finally
+			{
+				executor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * Ensures that the changes made by virtual threads started within the scope of a UoW
+	 * are attributed to this UoW only, although another UoW tracks the same repository
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testUnitOfWorkScope() throws Exception
+	{
+		DomainObjectRepositoryImpl repository = this.applicationContext.getAutowireCapableBeanFactory().createBean(DomainObjectRepositoryImpl.class);
+		List<ExampleDomainObject> domainObjects = Collections.synchronizedList(new ArrayList<ExampleDomainObject>());
+
+		try (UnitOfWorkImpl scopedUnitOfWork = new UnitOfWorkImpl(repository); UnitOfWorkImpl otherUnitOfWork = new UnitOfWorkImpl(repository))
+		{
+			UnitOfWorkScope.call(scopedUnitOfWork, () ->
+			{
+				Assert.assertSame(scopedUnitOfWork, UnitOfWorkScope.current());
+
+				try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor())
+				{
+					for (int i=0; i<4; i++)
+					{
+						String property3 = "testUnitOfWorkScope_" + i;
+
+						executor.submit(() ->
+						{
+							ExampleDomainObject domainObject = repository.createObject();
+
+							domainObject.setProperty3(property3);
+							repository.add(domainObject);
+							domainObjects.add(domainObject);
+
+							return null;
+						});
+					}
+				}
+
+				return null;
+			});
+
+			Assert.assertNull(UnitOfWorkScope.current());
+			Assert.assertEquals(4, domainObjects.size());
+
+			otherUnitOfWork.commit();
+
+			for (ExampleDomainObject domainObject : domainObjects) Assert.assertEquals(State.Added, domainObject.getState());
+
+			scopedUnitOfWork.commit();
+
+			for (ExampleDomainObject domainObject : domainObjects)
+			{
+				Assert.assertEquals(State.Unchanged, domainObject.getState());
+				Assert.assertNotNull(this.dao.get(domainObject.getId()));
+			}
+		}
+	}
+}
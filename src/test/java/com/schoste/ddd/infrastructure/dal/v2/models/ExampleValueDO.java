@@ -0,0 +1,84 @@
+package com.schoste.ddd.infrastructure.dal.v2.models;
+
+import java.io.Serializable;
+import java.util.List;
+
+import com.schoste.ddd.infrastructure.dal.v2.annotations.AutoSet;
+
+/**
+ * Example data object which is nested in other data objects
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class ExampleValueDO implements Serializable
+{
+	private static final long serialVersionUID = -2206328816343318745L;
+
+	private String name;
+	private ExampleValueDO parent;
+	private List<ExampleValueDO> children;
+
+	/**
+	 * Gets the name of the data object
+	 * 
+	 * @return a String
+	 */
+	public String getName()
+	{
+		return name;
+	}
+
+	/**
+	 * Sets the name of the data object
+	 * 
+	 * @param name a String
+	 */
+	@AutoSet
+	public void setName(String name)
+	{
+		this.name = name;
+	}
+
+	/**
+	 * Gets the parent of the data object
+	 * 
+	 * @return the parent or null
+	 */
+	public ExampleValueDO getParent()
+	{
+		return parent;
+	}
+
+	/**
+	 * Sets the parent of the data object
+	 * 
+	 * @param parent the parent or null
+	 */
+	@AutoSet
+	public void setParent(ExampleValueDO parent)
+	{
+		this.parent = parent;
+	}
+
+	/**
+	 * Gets the children of the data object
+	 * 
+	 * @return a list of data objects
+	 */
+	public List<ExampleValueDO> getChildren()
+	{
+		return children;
+	}
+
+	/**
+	 * Sets the children of the data object
+	 * 
+	 * @param children a list of data objects
+	 */
+	@AutoSet
+	public void setChildren(List<ExampleValueDO> children)
+	{
+		this.children = children;
+	}
+}
@@ -0,0 +1,43 @@
+package com.schoste.ddd.infrastructure.dal.v2.services.mapped;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationContext;
+
+import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
+import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
+
+/**
+ * Implementation of the ExampleDAO interface used in DomainObjectRepository
+ * 
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class ExampleDAOImpl extends GenericMappedFileDAO<ExampleDO> implements ExampleDAO
+{
+	@Autowired
+	protected ApplicationContext applicationContext;
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public ExampleDAOImpl(String storagePath) throws IllegalArgumentException, IllegalStateException, Exception 
+	{
+		super(storagePath);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	public ExampleDAOImpl(String storagePath, int initialCapacity) throws IllegalArgumentException, IllegalStateException, Exception 
+	{
+		super(storagePath, initialCapacity);
+	}
+	
+	@Override
+	public ExampleDO createDataObject() throws DALException
+	{
+		return (ExampleDO) this.applicationContext.getBean(ExampleDO.class);
+	}
+
+}
@@ -0,0 +1,207 @@
+package com.schoste.ddd.infrastructure.dal.v2.services.mapped;
+
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
+
+/**
+ * Tests of the GenericMappedFileDAO class
+ *
+ * @author Philipp Schosteritsch <s.philipp@schoste.com>
+ *
+ */
+public class GenericMappedFileDAOTest
+{
+	private static ExampleDO createDataObject(int id, String property1)
+	{
+		ExampleDO dataObject = new ExampleDO();
+
+		dataObject.setId(id);
+		dataObject.setProperty1(property1);
+
+		return dataObject;
+	}
+
+	/**
+	 * Ensures that the latest records are read after the mapping grew and the file was reopened,
+	 * that deleted data objects stay deleted and that new ids continue after the highest id
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testReopen() throws Exception
+	{
+		Path file = Files.createTempFile("GenericMappedFileDAOTest", ".dat");
+
+		try
+		{
+			try (ExampleDAOImpl dao = new ExampleDAOImpl(file.toString(), 64))
+			{
+				ExampleDO first = createDataObject(0, "first");
+				ExampleDO second = createDataObject(0, "second");
+				ExampleDO third = createDataObject(10, "third");
+
+				dao.save(new GenericDataObject[] { first, second, third });
+
+				Assert.assertEquals(1, first.getId());
+				Assert.assertEquals(2, second.getId());
+
+				first.setProperty1("first_changed");
+
+				dao.save(new GenericDataObject[] { first });
+				dao.delete(new GenericDataObject[] { second });
+
+				Assert.assertEquals("first_changed", dao.get(1).getProperty1());
+				Assert.assertNull(dao.get(2));
+				Assert.assertEquals(2, dao.getAll().size());
+			}
+
+			try (ExampleDAOImpl dao = new ExampleDAOImpl(file.toString(), 64))
+			{
+				Assert.assertEquals("first_changed", dao.get(1).getProperty1());
+				Assert.assertNull(dao.get(2));
+				Assert.assertEquals("third", dao.get(10).getProperty1());
+				Assert.assertEquals(2, dao.getAll().size());
+
+				ExampleDO fourth = createDataObject(0, "fourth");
+
+				dao.save(new GenericDataObject[] { fourth });
+
+				Assert.assertEquals(11, fourth.getId());
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Ensures that a record which was only partially written is ignored and overwritten
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testTornRecord() throws Exception
+	{
+		Path file = Files.createTempFile("GenericMappedFileDAOTest", ".dat");
+
+		try
+		{
+			try (ExampleDAOImpl dao = new ExampleDAOImpl(file.toString()))
+			{
+				dao.save(new GenericDataObject[] { createDataObject(1, "first"), createDataObject(2, "second") });
+			}
+
+			try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw"))
+			{
+				// Corrupt the last byte of the payload of the second record
+				long secondRecord = 16 + raf.readInt();
+				raf.seek(secondRecord);
+
+				long lastByte = secondRecord + 16 + raf.readInt() - 1;
+
+				raf.seek(lastByte);
+
+				int value = raf.readByte();
+
+				raf.seek(lastByte);
+				raf.writeByte(value ^ 0xFF);
+			}
+
+			try (ExampleDAOImpl dao = new ExampleDAOImpl(file.toString()))
+			{
+				Assert.assertEquals("first", dao.get(1).getProperty1());
+				Assert.assertNull(dao.get(2));
+
+				dao.save(new GenericDataObject[] { createDataObject(3, "third") });
+			}
+
+			try (ExampleDAOImpl dao = new ExampleDAOImpl(file.toString()))
+			{
+				Assert.assertEquals(2, dao.getAll().size());
+				Assert.assertEquals("third", dao.get(3).getProperty1());
+			}
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+
+	/**
+	 * Ensures that versioned saves and deletes write nothing if the version of any data object doesn't match
+	 *
+	 * @throws Exception re-throws every exception
+	 */
+	@Test
+	public void testSaveIfUnchanged() throws Exception
+	{
+		Path file = Files.createTempFile("GenericMappedFileDAOTest", ".dat");
+
+		try (ExampleDAOImpl dao = new ExampleDAOImpl(file.toString()))
+		{
+			ExampleDO first = createDataObject(1, "first");
+			ExampleDO second = createDataObject(2, "second");
+
+			first.setVersion(1);
+			second.setVersion(1);
+
+			dao.save(new GenericDataObject[] { first, second });
+
+			first.setVersion(2);
+			first.setProperty1("first_changed");
+
+			dao.saveIfUnchanged(new GenericDataObject[] { first });
+
+			Assert.assertEquals(2, dao.get(1).getVersion());
+
+			ExampleDO stale = createDataObject(1, "first_stale");
+
+			stale.setVersion(2);
+			second.setVersion(2);
+			second.setProperty1("second_changed");
+
+			try
+			{
+				dao.saveIfUnchanged(new GenericDataObject[] { second, stale });
+
+				Assert.fail();
+			}
+			catch (ConcurrencyConflictException e)
+			{
+				Assert.assertSame(stale, e.getDomainObject());
+				Assert.assertEquals(1, e.getExpectedVersion());
+				Assert.assertEquals(2, e.getPersistedVersion());
+			}
+
+			Assert.assertEquals("second", dao.get(2).getProperty1());
+
+			try
+			{
+				dao.deleteIfUnchanged(new GenericDataObject[] { createDataObject(2, "second") });
+
+				Assert.fail();
+			}
+			catch (ConcurrencyConflictException e)
+			{
+				Assert.assertEquals(1, e.getPersistedVersion());
+			}
+
+			dao.deleteIfUnchanged(new GenericDataObject[] { dao.get(2) });
+
+			Assert.assertNull(dao.get(2));
+		}
+		finally
+		{
+			Files.delete(file);
+		}
+	}
+}
@@ -1,7 +1,12 @@
 package com.schoste.ddd.infrastructure.dal.v2.services.mocked;
 
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.domain.v1.services.DataObjectChangeSet;
+import com.schoste.ddd.domain.v1.services.PartialUpdateDataAccessObject;
+import com.schoste.ddd.domain.v1.services.VersionedDataAccessObject;
 import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
 import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
 import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
 import com.schoste.ddd.infrastructure.dal.v2.services.mocked.GenericMockedDAO;
 
@@ -11,12 +16,67 @@ import com.schoste.ddd.infrastructure.dal.v2.services.mocked.GenericMockedDAO;
  * @author Philipp Schosteritsch <s.philipp@schoste.com>
  *
  */
-public class ExampleDAOImpl extends GenericMockedDAO<ExampleDO> implements ExampleDAO
+public class ExampleDAOImpl extends GenericMockedDAO<ExampleDO> implements ExampleDAO, PartialUpdateDataAccessObject<ExampleDO>, VersionedDataAccessObject<ExampleDO>
 {
+	private void checkVersions(GenericDataObject[] dataObjects, int versionIncrement) throws ConcurrencyConflictException, DALException
+	{
+		for (GenericDataObject dataObject : dataObjects)
+		{
+			ExampleDO persistedDataObject = this.get(dataObject.getId());
+			int expectedVersion = ((ExampleDO) dataObject).getVersion() - versionIncrement;
+			int persistedVersion = (persistedDataObject != null) ? persistedDataObject.getVersion() : 0;
+
+			if ((persistedDataObject == null) || (persistedVersion != expectedVersion)) throw new ConcurrencyConflictException(dataObject, expectedVersion, persistedVersion);
+		}
+	}
+
 	@Override
 	public ExampleDO createDataObject() throws DALException
 	{
 		return new ExampleDO();
 	}
 
+	@Override
+	public synchronized void update(DataObjectChangeSet<?>[] changeSets) throws DALException
+	{
+		ExampleDO[] dataObjects = new ExampleDO[changeSets.length];
+
+		for (int i=0; i<changeSets.length; i++)
+		{
+			ExampleDO changedDataObject = (ExampleDO) changeSets[i].getDataObject();
+			ExampleDO dataObject = this.get(Math.toIntExact(changeSets[i].getId()));
+
+			if (changeSets[i].getProperties().contains("property1")) dataObject.setProperty1(changedDataObject.getProperty1());
+			if (changeSets[i].getProperties().contains("property2")) dataObject.setProperty2(changedDataObject.getProperty2());
+			if (changeSets[i].getProperties().contains("property3")) dataObject.setProperty3(changedDataObject.getProperty3());
+
+			dataObject.setVersion(changedDataObject.getVersion());
+
+			dataObjects[i] = dataObject;
+		}
+
+		this.save(dataObjects);
+	}
+
+	@Override
+	public synchronized void saveIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException
+	{
+		this.checkVersions(dataObjects, 1);
+		this.save(dataObjects);
+	}
+
+	@Override
+	public synchronized void deleteIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException
+	{
+		this.checkVersions(dataObjects, 0);
+		this.delete(dataObjects);
+	}
+
+	@Override
+	public synchronized void updateIfUnchanged(DataObjectChangeSet<?>[] changeSets) throws ConcurrencyConflictException, DALException
+	{
+		for (DataObjectChangeSet<?> changeSet : changeSets) this.checkVersions(new GenericDataObject[] { changeSet.getDataObject() }, 1);
+
+		this.update(changeSets);
+	}
 }
@@ -3,8 +3,11 @@ package com.schoste.ddd.infrastructure.dal.v2.services.serialization;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.ApplicationContext;
 
+import com.schoste.ddd.domain.v1.exceptions.ConcurrencyConflictException;
+import com.schoste.ddd.domain.v1.services.VersionedDataAccessObject;
 import com.schoste.ddd.infrastructure.dal.v2.exceptions.DALException;
 import com.schoste.ddd.infrastructure.dal.v2.models.ExampleDO;
+import com.schoste.ddd.infrastructure.dal.v2.models.GenericDataObject;
 import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
 
 /**
@@ -13,11 +16,23 @@ import com.schoste.ddd.infrastructure.dal.v2.services.ExampleDAO;
  * @author Philipp Schosteritsch <s.philipp@schoste.com>
  *
  */
-public class ExampleDAOImpl extends GenericSerializationDAO<ExampleDO> implements ExampleDAO
+public class ExampleDAOImpl extends GenericSerializationDAO<ExampleDO> implements ExampleDAO, VersionedDataAccessObject<ExampleDO>
 {
 	@Autowired
 	protected ApplicationContext applicationContext;
 
+	private void checkVersions(GenericDataObject[] dataObjects, int versionIncrement) throws ConcurrencyConflictException, DALException
+	{
+		for (GenericDataObject dataObject : dataObjects)
+		{
+			ExampleDO persistedDataObject = this.get(dataObject.getId());
+			int expectedVersion = ((ExampleDO) dataObject).getVersion() - versionIncrement;
+			int persistedVersion = (persistedDataObject != null) ? persistedDataObject.getVersion() : 0;
+
+			if ((persistedDataObject == null) || (persistedVersion != expectedVersion)) throw new ConcurrencyConflictException(dataObject, expectedVersion, persistedVersion);
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -32,4 +47,18 @@ public class ExampleDAOImpl extends GenericSerializationDAO<ExampleDO> implement
 		return (ExampleDO) this.applicationContext.getBean(ExampleDO.class);
 	}
 
+	@Override
+	public synchronized void saveIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException
+	{
+		this.checkVersions(dataObjects, 1);
+		this.save(dataObjects);
+	}
+
+	@Override
+	public synchronized void deleteIfUnchanged(GenericDataObject[] dataObjects) throws ConcurrencyConflictException, DALException
+	{
+		this.checkVersions(dataObjects, 0);
+		this.delete(dataObjects);
+	}
+
 }